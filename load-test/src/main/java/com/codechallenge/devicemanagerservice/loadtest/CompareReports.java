@@ -0,0 +1,71 @@
+package com.codechallenge.devicemanagerservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Compares two load test reports, typically of two commits run with the same options. Prints the change of
+ * throughput and latency percentiles per operation and exits with 1 when throughput dropped or p99 grew by more
+ * than {@code --threshold} percent (default 10).
+ *
+ * <pre>
+ * java -cp load-test/target/device-manager-load-test.jar \
+ *     com.codechallenge.devicemanagerservice.loadtest.CompareReports base.json candidate.json --threshold=10
+ * </pre>
+ */
+public final class CompareReports {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CompareReports <base.json> <candidate.json> [--threshold=10]");
+            System.exit(2);
+        }
+        double threshold = new Options(Arrays.copyOfRange(args, 2, args.length)).integer("threshold", 10);
+        ObjectMapper objectMapper = new ObjectMapper();
+        LoadReport base = objectMapper.readValue(new File(args[0]), LoadReport.class);
+        LoadReport candidate = objectMapper.readValue(new File(args[1]), LoadReport.class);
+
+        if (!base.config().equals(candidate.config())) {
+            System.out.println("Warning: the reports were produced with different options");
+        }
+        System.out.printf("%s -> %s%n", base.label(), candidate.label());
+        System.out.printf("%-8s %20s %20s %20s %20s%n", "op", "req/s", "p50 ms", "p99 ms", "p999 ms");
+
+        boolean regressed = false;
+        for (Operation operation : base.operations().keySet()) {
+            LoadReport.Stats after = candidate.operations().get(operation);
+            if (after != null) {
+                regressed |= compare(operation.name(), base.operations().get(operation), after, threshold);
+            }
+        }
+        regressed |= compare("TOTAL", base.total(), candidate.total(), threshold);
+
+        if (regressed) {
+            System.out.printf("Regression beyond %.0f%%%n", threshold);
+            System.exit(1);
+        }
+    }
+
+    private static boolean compare(String name, LoadReport.Stats before, LoadReport.Stats after, double threshold) {
+        double throughput = change(before.throughput(), after.throughput());
+        double p99 = change(before.p99Ms(), after.p99Ms());
+        boolean regressed = throughput < -threshold || p99 > threshold;
+        System.out.printf(Locale.ROOT, "%-8s %20s %20s %20s %20s%s%n", name,
+                cell(before.throughput(), after.throughput()), cell(before.p50Ms(), after.p50Ms()),
+                cell(before.p99Ms(), after.p99Ms()), cell(before.p999Ms(), after.p999Ms()),
+                regressed ? "  <-- regression" : "");
+        return regressed;
+    }
+
+    private static String cell(double before, double after) {
+        return String.format(Locale.ROOT, "%.1f (%+.1f%%)", after, change(before, after));
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before * 100;
+    }
+}
@@ -0,0 +1,88 @@
+package com.codechallenge.devicemanagerservice.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Blocking calls against the device API, meant to be made from virtual threads. Every call returns the HTTP status;
+ * bodies are read only where the caller needs the created id.
+ */
+final class DeviceClient {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final URI baseUri;
+
+    private final HttpClient client;
+
+    DeviceClient(URI baseUri) {
+        this.baseUri = baseUri;
+        this.client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    /**
+     * Returns the id of the created device, or -1 with a non-201 response.
+     */
+    long create(String name, String brand, String state) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(json("/api/devices")
+                .POST(HttpRequest.BodyPublishers.ofString(body(name, brand, state)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher id = ID.matcher(response.body());
+        return response.statusCode() == 201 && id.find() ? Long.parseLong(id.group(1)) : -1;
+    }
+
+    int get(long id) throws IOException, InterruptedException {
+        return send(request("/api/devices/" + id).GET().build());
+    }
+
+    int update(long id, String name, String brand, String state) throws IOException, InterruptedException {
+        return send(json("/api/devices/" + id)
+                .PUT(HttpRequest.BodyPublishers.ofString(body(name, brand, state)))
+                .build());
+    }
+
+    int delete(long id) throws IOException, InterruptedException {
+        return send(request("/api/devices/" + id).DELETE().build());
+    }
+
+    int list(int page, int size, String total) throws IOException, InterruptedException {
+        return send(request("/api/devices?page=" + page + "&size=" + size + "&total=" + total).GET().build());
+    }
+
+    int search(String brand, int page, int size, String total) throws IOException, InterruptedException {
+        return send(request("/api/devices/search?brand=" + brand + "&page=" + page + "&size=" + size
+                + "&total=" + total).GET().build());
+    }
+
+    int health() throws IOException, InterruptedException {
+        return send(request("/actuator/health").GET().build());
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(REQUEST_TIMEOUT);
+    }
+
+    private HttpRequest.Builder json(String path) {
+        return request(path).header("Content-Type", "application/json");
+    }
+
+    private static String body(String name, String brand, String state) {
+        return "{\"name\":\"" + name + "\",\"brand\":\"" + brand + "\",\"state\":\"" + state + "\"}";
+    }
+}
@@ -0,0 +1,162 @@
+package com.codechallenge.devicemanagerservice.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop benchmark for comparing the platform and virtual thread execution modes of one running service.
+ * Every client is a virtual thread that keeps exactly one request in flight, alternating between a device lookup and
+ * a search page so most requests spend their time waiting on JDBC. Start the service once per mode and run this
+ * against it with a matching {@code --label}; each run appends one CSV line per client count to {@code --report}.
+ * Throughput and latency cover successful responses only, so requests shed with a 503 show up as errors rather than
+ * as cheap throughput. All clients share one address, so start the service with the rate limiter and the adaptive
+ * concurrency limit off ({@code RATE_LIMIT_ENABLED=false CONCURRENCY_LIMIT_ENABLED=false}); otherwise the benchmark
+ * measures those instead of the execution mode.
+ *
+ * <pre>
+ * java -cp load-test/target/device-manager-load-test.jar \
+ *     com.codechallenge.devicemanagerservice.loadtest.ExecutionModeBenchmark --label=virtual --clients=1000,10000
+ * </pre>
+ */
+public final class ExecutionModeBenchmark {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = Duration.ofMinutes(2).toNanos() / 1000;
+
+    private final DeviceClient client;
+
+    private ExecutionModeBenchmark(DeviceClient client) {
+        this.client = client;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        URI baseUri = URI.create(options.string("base-url", "http://localhost:8080"));
+        String label = options.string("label", "unlabelled");
+        int[] clientCounts = options.integers("clients", "1000,2500,5000,10000");
+        int devices = options.integer("devices", 1000);
+        int brands = options.integer("brands", 20);
+        Duration warmup = options.duration("warmup", "10s");
+        Duration duration = options.duration("duration", "30s");
+        Path report = Path.of(options.string("report", "execution-mode-benchmark.csv"));
+
+        ExecutionModeBenchmark benchmark = new ExecutionModeBenchmark(new DeviceClient(baseUri));
+        List<Long> ids = benchmark.seed(devices, brands);
+        System.out.printf("Seeded %d devices across %d brands%n", ids.size(), brands);
+        System.out.printf("%-10s %8s %12s %10s %10s %10s %10s %8s%n",
+                "mode", "clients", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+
+        if (Files.notExists(report)) {
+            Files.writeString(report, "mode,clients,requests,throughput,p50_ms,p99_ms,p999_ms,max_ms,errors\n");
+        }
+        for (int clients : clientCounts) {
+            Result result = benchmark.run(clients, ids, brands, warmup, duration);
+            String line = String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%d%n", label, clients,
+                    result.requests(), result.throughput(), millis(result.latency().getValueAtPercentile(50)),
+                    millis(result.latency().getValueAtPercentile(99)),
+                    millis(result.latency().getValueAtPercentile(99.9)), millis(result.latency().getMaxValue()),
+                    result.errors());
+            Files.writeString(report, line, StandardOpenOption.APPEND);
+            System.out.printf(Locale.ROOT, "%-10s %8d %12.1f %10.2f %10.2f %10.2f %10.2f %8d%n", label, clients,
+                    result.throughput(), millis(result.latency().getValueAtPercentile(50)),
+                    millis(result.latency().getValueAtPercentile(99)),
+                    millis(result.latency().getValueAtPercentile(99.9)), millis(result.latency().getMaxValue()),
+                    result.errors());
+        }
+    }
+
+    private List<Long> seed(int devices, int brands) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(50);
+        List<Future<Long>> created = new ArrayList<>(devices);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < devices; i++) {
+                int index = i;
+                inFlight.acquire();
+                created.add(executor.submit(() -> {
+                    try {
+                        return client.create("bench-" + index, "Brand-" + index % brands, "AVAILABLE");
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+        }
+        List<Long> ids = new ArrayList<>(devices);
+        for (Future<Long> id : created) {
+            try {
+                if (id.get() < 0) {
+                    throw new IllegalStateException("Seeding failed, is the service running with the rate limit off?");
+                }
+                ids.add(id.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Seeding failed", e.getCause());
+            }
+        }
+        return ids;
+    }
+
+    private Result run(int clients, List<Long> ids, int brands, Duration warmup, Duration duration) {
+        Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        LongAdder errors = new LongAdder();
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long deadline = measureFrom + duration.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long now;
+                    while ((now = System.nanoTime()) < deadline) {
+                        boolean failed;
+                        try {
+                            int status = random.nextBoolean()
+                                    ? client.get(ids.get(random.nextInt(ids.size())))
+                                    : client.search("Brand-" + random.nextInt(brands), random.nextInt(5), 20, "NONE");
+                            failed = status >= 400;
+                        } catch (IOException e) {
+                            failed = true;
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        if (now < measureFrom) {
+                            continue;
+                        }
+                        if (failed) {
+                            errors.increment();
+                        } else {
+                            recorder.recordValue(Math.min((System.nanoTime() - now) / 1000, HIGHEST_TRACKABLE_MICROS));
+                        }
+                    }
+                });
+            }
+        }
+
+        Histogram latency = recorder.getIntervalHistogram();
+        return new Result(latency.getTotalCount(), latency.getTotalCount() / (duration.toNanos() / 1e9), latency,
+                errors.sum());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private record Result(long requests, double throughput, Histogram latency, long errors) {
+    }
+}
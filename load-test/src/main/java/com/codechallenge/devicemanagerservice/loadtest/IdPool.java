@@ -0,0 +1,70 @@
+package com.codechallenge.devicemanagerservice.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ids of the devices the run created and has not deleted yet. A lock rather than synchronized keeps virtual threads
+ * from pinning their carrier while they wait.
+ */
+final class IdPool {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long[] ids = new long[1024];
+
+    private int size;
+
+    void add(long id) {
+        lock.lock();
+        try {
+            if (size == ids.length) {
+                long[] grown = new long[ids.length * 2];
+                System.arraycopy(ids, 0, grown, 0, size);
+                ids = grown;
+            }
+            ids[size++] = id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A random live id, or -1 when the pool is empty.
+     */
+    long any(ThreadLocalRandom random) {
+        lock.lock();
+        try {
+            return size == 0 ? -1 : ids[random.nextInt(size)];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns a random id so no other client deletes it too, or -1 when the pool is empty.
+     */
+    long take(ThreadLocalRandom random) {
+        lock.lock();
+        try {
+            if (size == 0) {
+                return -1;
+            }
+            int index = random.nextInt(size);
+            long id = ids[index];
+            ids[index] = ids[--size];
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.codechallenge.devicemanagerservice.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Result of one load test run as written to the JSON report. Latencies are in milliseconds and cover successful
+ * requests only; throughput is successful requests per second of the measured period.
+ */
+record LoadReport(String label, String startedAt, Config config, Stats total, Map<Operation, Stats> operations) {
+
+    record Config(String baseUrl, int clients, String mix, int devices, int brands, int pageSize, int nameLength,
+                  String totalMode, long warmupSeconds, long durationSeconds) {
+    }
+
+    record Stats(long requests, long errors, double throughput, double p50Ms, double p90Ms, double p99Ms,
+                 double p999Ms, double maxMs) {
+
+        static Stats of(Histogram latency, long errors, Duration measured) {
+            return new Stats(latency.getTotalCount(), errors,
+                    latency.getTotalCount() / (measured.toNanos() / 1e9),
+                    millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(90)),
+                    millis(latency.getValueAtPercentile(99)), millis(latency.getValueAtPercentile(99.9)),
+                    millis(latency.getMaxValue()));
+        }
+
+        private static double millis(long micros) {
+            return Math.round(micros / 10.0) / 100.0;
+        }
+    }
+}
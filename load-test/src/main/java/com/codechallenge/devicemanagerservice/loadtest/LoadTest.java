@@ -0,0 +1,294 @@
+package com.codechallenge.devicemanagerservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop mixed workload against one node. Each client is a virtual thread that keeps one request in flight and
+ * picks the next operation from the weighted mix. Devices are seeded first and only ever moved between AVAILABLE and
+ * INACTIVE, so the in-use rules never reject a request; a 404 on get or update is expected when a concurrent delete
+ * won the race and is not counted as an error.
+ *
+ * <pre>
+ * java -jar load-test/target/device-manager-load-test.jar --label=$(git rev-parse --short HEAD) \
+ *     --clients=200 --duration=60s --mix=get:50,search:15,list:10,create:10,update:10,delete:5
+ * </pre>
+ *
+ * With {@code --service-jar} the harness starts the service itself, passing {@code --service-args}, and stops it
+ * when the run is over. The rate limiter and the adaptive concurrency limit are switched off in that service unless
+ * {@code --service-args} sets them, since every client shares one address and their 429s and 503s would be measured
+ * instead of the node. A service started by hand for {@code --base-url} needs the same settings.
+ */
+public final class LoadTest {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = Duration.ofMinutes(2).toNanos() / 1000;
+
+    private static final String[] STATES = {"AVAILABLE", "INACTIVE"};
+
+    private static final List<String> SERVICE_DEFAULTS = List.of(
+            "--device.rate-limit.enabled=false",
+            "--device.concurrency.enabled=false");
+
+    private static final String NAME_CHARACTERS = "abcdefghijklmnopqrstuvwxyz0123456789";
+
+    private final DeviceClient client;
+
+    private final Workload workload;
+
+    private final IdPool ids = new IdPool();
+
+    private final int brands;
+
+    private final int pageSize;
+
+    private final int nameLength;
+
+    private final String totalMode;
+
+    private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    private LoadTest(DeviceClient client, Workload workload, int brands, int pageSize, int nameLength,
+                     String totalMode) {
+        this.client = client;
+        this.workload = workload;
+        this.brands = brands;
+        this.pageSize = pageSize;
+        this.nameLength = nameLength;
+        this.totalMode = totalMode;
+        for (Operation operation : workload.weights().keySet()) {
+            latencies.put(operation, new Recorder(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        URI baseUri = URI.create(options.string("base-url", "http://localhost:8080"));
+        Workload workload = new Workload(options.string("mix", "get:50,search:15,list:10,create:10,update:10,delete:5"));
+        int clients = options.integer("clients", 100);
+        int devices = options.integer("devices", 10_000);
+        int brands = options.integer("brands", 50);
+        int pageSize = options.integer("page-size", 20);
+        int nameLength = options.integer("name-length", 16);
+        String totalMode = options.string("total", "EXACT");
+        Duration warmup = options.duration("warmup", "15s");
+        Duration duration = options.duration("duration", "60s");
+        Path report = Path.of(options.string("report", "load-test-report.json"));
+
+        DeviceClient client = new DeviceClient(baseUri);
+        Process service = startService(options, client);
+        try {
+            LoadTest loadTest = new LoadTest(client, workload, brands, pageSize, nameLength, totalMode);
+            String startedAt = Instant.now().toString();
+            loadTest.seed(devices);
+            System.out.printf("Seeded %d devices across %d brands, running %d clients with %s%n", devices, brands,
+                    clients, workload);
+
+            LoadReport result = loadTest.run(clients, warmup, duration, new LoadReport.Config(baseUri.toString(),
+                    clients, workload.toString(), devices, brands, pageSize, nameLength, totalMode,
+                    warmup.toSeconds(), duration.toSeconds()), options.string("label", "unlabelled"), startedAt);
+
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), result);
+            print(result);
+            System.out.println("Report written to " + report.toAbsolutePath());
+        } finally {
+            if (service != null) {
+                service.destroy();
+                service.waitFor();
+            }
+        }
+    }
+
+    private void seed(int devices) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(50);
+        List<Future<Long>> created = new ArrayList<>(devices);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < devices; i++) {
+                int index = i;
+                inFlight.acquire();
+                created.add(executor.submit(() -> {
+                    try {
+                        return client.create(name(ThreadLocalRandom.current()), brand(index), STATES[index % 2]);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+        }
+        for (Future<Long> id : created) {
+            try {
+                if (id.get() < 0) {
+                    throw new IllegalStateException("Seeding failed, is the service running with the rate limit off?");
+                }
+                ids.add(id.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Seeding failed", e.getCause());
+            }
+        }
+    }
+
+    private LoadReport run(int clients, Duration warmup, Duration duration, LoadReport.Config config, String label,
+                           String startedAt) {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long deadline = measureFrom + duration.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long start;
+                    while ((start = System.nanoTime()) < deadline) {
+                        Operation operation = workload.next(random);
+                        boolean succeeded;
+                        try {
+                            succeeded = execute(operation, random);
+                        } catch (IOException e) {
+                            succeeded = false;
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        if (start < measureFrom) {
+                            continue;
+                        }
+                        if (succeeded) {
+                            latencies.get(operation).recordValue(
+                                    Math.min((System.nanoTime() - start) / 1000, HIGHEST_TRACKABLE_MICROS));
+                        } else {
+                            errors.get(operation).increment();
+                        }
+                    }
+                });
+            }
+        }
+
+        Map<Operation, LoadReport.Stats> operations = new EnumMap<>(Operation.class);
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long totalErrors = 0;
+        for (Operation operation : latencies.keySet()) {
+            Histogram latency = latencies.get(operation).getIntervalHistogram();
+            long failed = errors.get(operation).sum();
+            operations.put(operation, LoadReport.Stats.of(latency, failed, duration));
+            total.add(latency);
+            totalErrors += failed;
+        }
+        return new LoadReport(label, startedAt, config, LoadReport.Stats.of(total, totalErrors, duration), operations);
+    }
+
+    private boolean execute(Operation operation, ThreadLocalRandom random) throws IOException, InterruptedException {
+        return switch (operation) {
+            case CREATE -> {
+                long id = client.create(name(random), brand(random.nextInt(brands)), STATES[random.nextInt(2)]);
+                if (id >= 0) {
+                    ids.add(id);
+                }
+                yield id >= 0;
+            }
+            case GET -> found(client.get(ids.any(random)));
+            case UPDATE -> found(client.update(ids.any(random), name(random), brand(random.nextInt(brands)),
+                    STATES[random.nextInt(2)]));
+            case DELETE -> {
+                long id = ids.take(random);
+                yield id < 0 || client.delete(id) == 204;
+            }
+            case LIST -> client.list(page(random), pageSize, totalMode) == 200;
+            case SEARCH -> client.search(brand(random.nextInt(brands)), page(random), pageSize, totalMode) == 200;
+        };
+    }
+
+    private static boolean found(int status) {
+        return status == 200 || status == 404;
+    }
+
+    // stays within the pages that exist while the seeded devices are around
+    private int page(ThreadLocalRandom random) {
+        return random.nextInt(Math.max(1, ids.size() / pageSize / brands));
+    }
+
+    private String name(ThreadLocalRandom random) {
+        char[] name = new char[nameLength];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = NAME_CHARACTERS.charAt(random.nextInt(NAME_CHARACTERS.length()));
+        }
+        return new String(name);
+    }
+
+    private static String brand(int index) {
+        return "Brand-" + index;
+    }
+
+    private static Process startService(Options options, DeviceClient client) throws Exception {
+        String jar = options.string("service-jar", null);
+        if (jar == null) {
+            return null;
+        }
+        List<String> command = new ArrayList<>(List.of("java", "-jar", jar));
+        String serviceArgs = options.string("service-args", "");
+        List<String> extra = serviceArgs.isBlank() ? List.of() : List.of(serviceArgs.trim().split("\\s+"));
+        for (String setting : SERVICE_DEFAULTS) {
+            String key = setting.substring(0, setting.indexOf('=') + 1);
+            if (extra.stream().noneMatch(arg -> arg.startsWith(key))) {
+                command.add(setting);
+            }
+        }
+        command.addAll(extra);
+        Path log = Path.of(options.string("service-log", "load-test-service.log"));
+        Process service = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        System.out.println("Started " + String.join(" ", command) + ", logging to " + log.toAbsolutePath());
+
+        long deadline = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!service.isAlive()) {
+                throw new IllegalStateException("Service exited with " + service.exitValue() + ", see " + log);
+            }
+            try {
+                if (client.health() == 200) {
+                    return service;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(500);
+        }
+        service.destroy();
+        throw new IllegalStateException("Service did not become healthy within 2 minutes, see " + log);
+    }
+
+    private static void print(LoadReport report) {
+        System.out.printf("%-8s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                "op", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms");
+        report.operations().forEach((operation, stats) -> print(operation.name(), stats));
+        print("TOTAL", report.total());
+    }
+
+    private static void print(String name, LoadReport.Stats stats) {
+        System.out.printf(Locale.ROOT, "%-8s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name,
+                stats.requests(), stats.errors(), stats.throughput(), stats.p50Ms(), stats.p90Ms(), stats.p99Ms(),
+                stats.p999Ms(), stats.maxMs());
+    }
+}
@@ -0,0 +1,11 @@
+package com.codechallenge.devicemanagerservice.loadtest;
+
+import java.util.Locale;
+
+enum Operation {
+    CREATE, GET, UPDATE, DELETE, LIST, SEARCH;
+
+    static Operation of(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
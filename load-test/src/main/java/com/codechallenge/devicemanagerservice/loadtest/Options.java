@@ -0,0 +1,43 @@
+package com.codechallenge.devicemanagerservice.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * {@code --name=value} command line options.
+ */
+final class Options {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    Options(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+    }
+
+    String string(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int integer(String name, int defaultValue) {
+        return values.containsKey(name) ? Integer.parseInt(values.get(name)) : defaultValue;
+    }
+
+    int[] integers(String name, String defaultValue) {
+        return Arrays.stream(string(name, defaultValue).split(","))
+                .mapToInt(value -> Integer.parseInt(value.trim()))
+                .toArray();
+    }
+
+    // 30s, 2m, 1m30s
+    Duration duration(String name, String defaultValue) {
+        return Duration.parse("PT" + string(name, defaultValue).toUpperCase(Locale.ROOT));
+    }
+}
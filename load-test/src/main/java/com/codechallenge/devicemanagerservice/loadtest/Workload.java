@@ -0,0 +1,69 @@
+package com.codechallenge.devicemanagerservice.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted operation mix, written as {@code get:50,search:15,list:10,create:10,update:10,delete:5}. Operations left
+ * out are not run.
+ */
+final class Workload {
+
+    private final Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+
+    private final Operation[] operations;
+
+    private final int[] cumulative;
+
+    private final int total;
+
+    Workload(String mix) {
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight but got " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + parts[0]);
+            }
+            weights.merge(Operation.of(parts[0]), weight, Integer::sum);
+        }
+        weights.values().removeIf(weight -> weight == 0);
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix selects no operation: " + mix);
+        }
+
+        operations = weights.keySet().toArray(new Operation[0]);
+        cumulative = new int[operations.length];
+        int sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += weights.get(operations[i]);
+            cumulative[i] = sum;
+        }
+        total = sum;
+    }
+
+    Operation next(ThreadLocalRandom random) {
+        int pick = random.nextInt(total);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (pick < cumulative[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    Map<Operation, Integer> weights() {
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder mix = new StringBuilder();
+        weights.forEach((operation, weight) -> mix.append(mix.isEmpty() ? "" : ",")
+                .append(operation.name().toLowerCase()).append(':').append(weight));
+        return mix.toString();
+    }
+}
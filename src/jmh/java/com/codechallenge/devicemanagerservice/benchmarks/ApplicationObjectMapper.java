@@ -0,0 +1,28 @@
+package com.codechallenge.devicemanagerservice.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The object mapper the service writes responses with: Spring Boot's Jackson auto-configuration applied to the
+ * {@code spring.jackson} settings in the service's application.yml, without starting the rest of the application.
+ */
+final class ApplicationObjectMapper {
+
+    private ApplicationObjectMapper() {
+    }
+
+    static ObjectMapper create() {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(JacksonAutoConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run()) {
+            return context.getBean(ObjectMapper.class);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.codechallenge.devicemanagerservice.benchmarks;
+
+import com.codechallenge.devicemanagerservice.dto.DeviceCreateDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.mapper.DeviceMapper;
+import com.codechallenge.devicemanagerservice.model.DeviceEntity;
+import com.codechallenge.devicemanagerservice.model.DeviceState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeviceMapperBenchmark {
+
+    private DeviceEntity entity;
+
+    private DeviceCreateDto createDto;
+
+    @Setup
+    public void setUp() {
+        Instant now = Instant.now();
+        entity = new DeviceEntity(42L, "MacBook Pro", "Apple", DeviceState.AVAILABLE, now, now, 3L);
+        createDto = new DeviceCreateDto("MacBook Pro", "Apple", DeviceState.AVAILABLE);
+    }
+
+    @Benchmark
+    public DeviceResponseDto createDeviceDto() {
+        return DeviceMapper.createDeviceDto(entity);
+    }
+
+    @Benchmark
+    public DeviceEntity createDeviceEntity() {
+        return DeviceMapper.createDeviceEntity(createDto);
+    }
+}
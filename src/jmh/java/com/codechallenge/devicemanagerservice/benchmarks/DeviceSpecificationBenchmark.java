@@ -0,0 +1,72 @@
+package com.codechallenge.devicemanagerservice.benchmarks;
+
+import com.codechallenge.devicemanagerservice.model.DeviceEntity;
+import com.codechallenge.devicemanagerservice.service.DeviceSpecification;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the search criteria query the way a request does: a fresh specification, query and root, then the
+ * predicates. The session factory is bootstrapped without a database, which criteria construction never touches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeviceSpecificationBenchmark {
+
+    @Param({"NONE", "BRAND", "BRAND_AND_STATE"})
+    public String filter;
+
+    private SessionFactory sessionFactory;
+
+    private CriteriaBuilder builder;
+
+    private String brand;
+
+    private String state;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(DeviceEntity.class)
+                .setProperty("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect")
+                .setProperty("hibernate.boot.allow_jdbc_metadata_access", "false")
+                .setProperty("jakarta.persistence.validation.mode", "none")
+                .buildSessionFactory();
+        builder = sessionFactory.getCriteriaBuilder();
+        brand = filter.equals("NONE") ? null : "Apple";
+        state = filter.equals("BRAND_AND_STATE") ? "AVAILABLE" : null;
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public CriteriaQuery<DeviceEntity> searchBy() {
+        CriteriaQuery<DeviceEntity> query = builder.createQuery(DeviceEntity.class);
+        Root<DeviceEntity> root = query.from(DeviceEntity.class);
+        return query.where(DeviceSpecification.searchBy(brand, state).toPredicate(root, query, builder));
+    }
+}
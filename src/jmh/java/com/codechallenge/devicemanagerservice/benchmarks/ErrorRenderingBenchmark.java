@@ -0,0 +1,76 @@
+package com.codechallenge.devicemanagerservice.benchmarks;
+
+import com.codechallenge.devicemanagerservice.advices.GlobalExceptionHandler;
+import com.codechallenge.devicemanagerservice.controllers.DeviceManagerControllers;
+import com.codechallenge.devicemanagerservice.dto.DeviceCreateDto;
+import com.codechallenge.devicemanagerservice.exception.DeviceNotFoundException;
+import com.codechallenge.devicemanagerservice.exception.DeviceOperationException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps an exception to its error response and writes the body, as happens on every rejected request. The exceptions
+ * are created once so only the rendering is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorRenderingBenchmark {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    private ObjectMapper objectMapper;
+
+    private DeviceNotFoundException notFound;
+
+    private DeviceOperationException inUse;
+
+    private MethodArgumentNotValidException invalid;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        objectMapper = ApplicationObjectMapper.create();
+        notFound = new DeviceNotFoundException(42L);
+        inUse = new DeviceOperationException("Cannot delete device in use");
+
+        DeviceCreateDto dto = new DeviceCreateDto();
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(dto, "deviceCreateDto");
+        bindingResult.rejectValue("name", "NotBlank", "Name is required");
+        bindingResult.rejectValue("brand", "NotBlank", "Brand is required");
+        invalid = new MethodArgumentNotValidException(new MethodParameter(
+                DeviceManagerControllers.class.getMethod("createDevice", DeviceCreateDto.class), 0), bindingResult);
+    }
+
+    @Benchmark
+    public byte[] notFound() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(handler.handleNotFound(notFound).getBody());
+    }
+
+    @Benchmark
+    public byte[] deviceInUse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(handler.handleDeviceOperation(inUse).getBody());
+    }
+
+    @Benchmark
+    public byte[] validationFailed() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(handler.handleValidation(invalid).getBody());
+    }
+}
@@ -0,0 +1,60 @@
+package com.codechallenge.devicemanagerservice.benchmarks;
+
+import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.dto.PagedResponseDto;
+import com.codechallenge.devicemanagerservice.model.DeviceState;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Serializes one list page with the application's object mapper.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PagedResponseSerializationBenchmark {
+
+    @Param({"20", "200", "2000"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+
+    private PagedResponseDto<DeviceResponseDto> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = ApplicationObjectMapper.create();
+        Instant now = Instant.now();
+        List<DeviceResponseDto> devices = LongStream.rangeClosed(1, pageSize)
+                .mapToObj(id -> new DeviceResponseDto(id, "Device " + id, "Brand " + id % 20,
+                        DeviceState.values()[(int) (id % DeviceState.values().length)], now, now))
+                .toList();
+        page = PagedResponseDto.exact(new PageImpl<>(devices, PageRequest.of(0, pageSize), 1_000_000));
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
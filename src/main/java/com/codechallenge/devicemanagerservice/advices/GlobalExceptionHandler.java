@@ -1,11 +1,18 @@
 package com.codechallenge.devicemanagerservice.advices;
 
 import com.codechallenge.devicemanagerservice.dto.ErrorResponseDto;
+import com.codechallenge.devicemanagerservice.exception.ChangesExpiredException;
 import com.codechallenge.devicemanagerservice.exception.DeviceNotFoundException;
 import com.codechallenge.devicemanagerservice.exception.DeviceOperationException;
+import com.codechallenge.devicemanagerservice.exception.DeviceOverloadedException;
 import com.codechallenge.devicemanagerservice.exception.DeviceUpdateException;
+import com.codechallenge.devicemanagerservice.exception.DeviceVersionMismatchException;
+import com.codechallenge.devicemanagerservice.exception.InvalidCursorException;
+import com.codechallenge.devicemanagerservice.exception.InvalidImportException;
+import com.codechallenge.devicemanagerservice.exception.InvalidSearchException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -103,6 +110,74 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
+    @ExceptionHandler(DeviceVersionMismatchException.class)
+    public ResponseEntity<ErrorResponseDto> handleVersionMismatch(DeviceVersionMismatchException ex) {
+        ErrorResponseDto error = new ErrorResponseDto(
+                "PRECONDITION_FAILED",
+                ex.getMessage(),
+                Instant.now(),
+                null
+        );
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(error);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponseDto> handleInvalidCursor(InvalidCursorException ex) {
+        ErrorResponseDto error = new ErrorResponseDto(
+                "INVALID_CURSOR",
+                ex.getMessage(),
+                Instant.now(),
+                null
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(InvalidSearchException.class)
+    public ResponseEntity<ErrorResponseDto> handleInvalidSearch(InvalidSearchException ex) {
+        ErrorResponseDto error = new ErrorResponseDto(
+                "INVALID_SEARCH",
+                ex.getMessage(),
+                Instant.now(),
+                null
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<ErrorResponseDto> handleInvalidImport(InvalidImportException ex) {
+        ErrorResponseDto error = new ErrorResponseDto(
+                "INVALID_IMPORT",
+                ex.getMessage(),
+                Instant.now(),
+                null
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(ChangesExpiredException.class)
+    public ResponseEntity<ErrorResponseDto> handleChangesExpired(ChangesExpiredException ex) {
+        ErrorResponseDto error = new ErrorResponseDto(
+                "CHANGES_EXPIRED",
+                ex.getMessage(),
+                Instant.now(),
+                null
+        );
+        return ResponseEntity.status(HttpStatus.GONE).body(error);
+    }
+
+    @ExceptionHandler(DeviceOverloadedException.class)
+    public ResponseEntity<ErrorResponseDto> handleOverloaded(DeviceOverloadedException ex) {
+        ErrorResponseDto error = new ErrorResponseDto(
+                "SERVICE_UNAVAILABLE",
+                ex.getMessage(),
+                Instant.now(),
+                null
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<ErrorResponseDto> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
         ErrorResponseDto error = new ErrorResponseDto(
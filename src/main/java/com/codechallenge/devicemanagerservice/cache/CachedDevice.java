@@ -0,0 +1,30 @@
+package com.codechallenge.devicemanagerservice.cache;
+
+import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+
+import java.util.Optional;
+
+// device == null marks either a deleted id, whose version is pinned to Long.MAX_VALUE so no in-flight read can
+// resurrect it, or a stale marker left by a remote invalidation that only a read of at least that version replaces
+public record CachedDevice(long version, DeviceResponseDto device) {
+
+    static CachedDevice deleted() {
+        return new CachedDevice(Long.MAX_VALUE, null);
+    }
+
+    static CachedDevice stale(long version) {
+        return new CachedDevice(version, null);
+    }
+
+    public Optional<DeviceResponseDto> asOptional() {
+        return Optional.ofNullable(device);
+    }
+
+    boolean isStale() {
+        return device == null && version != Long.MAX_VALUE;
+    }
+
+    boolean isNewerThan(CachedDevice other) {
+        return other.isStale() ? version >= other.version : version > other.version;
+    }
+}
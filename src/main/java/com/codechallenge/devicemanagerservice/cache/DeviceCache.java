@@ -0,0 +1,91 @@
+package com.codechallenge.devicemanagerservice.cache;
+
+import com.codechallenge.devicemanagerservice.config.DeviceCacheProperties;
+import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.event.DeviceChangeType;
+import com.codechallenge.devicemanagerservice.event.DeviceChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Component
+public class DeviceCache {
+
+    public static final String NAME = "devices";
+
+    private final boolean enabled;
+    private final Cache<Long, CachedDevice> cache;
+
+    public DeviceCache(DeviceCacheProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.enabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.expireAfterWrite())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+    }
+
+    public CachedDevice get(Long id) {
+        if (!enabled) {
+            return null;
+        }
+        CachedDevice cached = cache.getIfPresent(id);
+        return cached == null || cached.isStale() ? null : cached;
+    }
+
+    /**
+     * Whether {@link #get} would answer {@code id} right now, without counting a hit or a miss.
+     */
+    public boolean contains(Long id) {
+        if (!enabled) {
+            return false;
+        }
+        CachedDevice cached = cache.asMap().get(id);
+        return cached != null && !cached.isStale();
+    }
+
+    public void put(DeviceResponseDto device, long version) {
+        if (enabled) {
+            cache.asMap().merge(device.getId(), new CachedDevice(version, device), DeviceCache::newest);
+        }
+    }
+
+    public void markDeleted(Long id) {
+        if (enabled) {
+            cache.put(id, CachedDevice.deleted());
+        }
+    }
+
+    public void invalidate(DeviceInvalidation invalidation) {
+        if (!enabled) {
+            return;
+        }
+        if (invalidation.deleted()) {
+            markDeleted(invalidation.id());
+        } else {
+            cache.asMap().merge(invalidation.id(), CachedDevice.stale(invalidation.version()), DeviceCache::newest);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        if (event.type() == DeviceChangeType.UPDATED) {
+            put(event.device(), event.version());
+        } else if (event.type() == DeviceChangeType.DELETED) {
+            markDeleted(event.id());
+        }
+    }
+
+    private static CachedDevice newest(CachedDevice current, CachedDevice incoming) {
+        return incoming.isNewerThan(current) ? incoming : current;
+    }
+}
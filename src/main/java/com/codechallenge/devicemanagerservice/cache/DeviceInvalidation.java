@@ -0,0 +1,60 @@
+package com.codechallenge.devicemanagerservice.cache;
+
+import com.codechallenge.devicemanagerservice.event.DeviceChangeType;
+import com.codechallenge.devicemanagerservice.event.DeviceChangedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wire format of a cross-node invalidation: comma separated {@code u<id>:<version>} or {@code d<id>:<version>}
+ * entries, split so every NOTIFY payload stays below the 8000 byte limit of Postgres.
+ */
+public record DeviceInvalidation(long id, long version, boolean deleted) {
+
+    static final int MAX_PAYLOAD_BYTES = 7900;
+
+    public static DeviceInvalidation of(DeviceChangedEvent event) {
+        return new DeviceInvalidation(event.id(), event.version(), event.type() == DeviceChangeType.DELETED);
+    }
+
+    public static List<String> encode(List<DeviceInvalidation> invalidations) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder();
+        for (DeviceInvalidation invalidation : invalidations) {
+            String entry = invalidation.toString();
+            if (!payload.isEmpty() && payload.length() + 1 + entry.length() > MAX_PAYLOAD_BYTES) {
+                payloads.add(payload.toString());
+                payload.setLength(0);
+            }
+            if (!payload.isEmpty()) {
+                payload.append(',');
+            }
+            payload.append(entry);
+        }
+        if (!payload.isEmpty()) {
+            payloads.add(payload.toString());
+        }
+        return payloads;
+    }
+
+    public static List<DeviceInvalidation> decode(String payload) {
+        List<DeviceInvalidation> invalidations = new ArrayList<>();
+        for (String entry : payload.split(",")) {
+            int separator = entry.indexOf(':');
+            if (entry.length() < 4 || separator < 2 || (entry.charAt(0) != 'u' && entry.charAt(0) != 'd')) {
+                throw new IllegalArgumentException("Malformed invalidation entry: " + entry);
+            }
+            invalidations.add(new DeviceInvalidation(
+                    Long.parseLong(entry.substring(1, separator)),
+                    Long.parseLong(entry.substring(separator + 1)),
+                    entry.charAt(0) == 'd'));
+        }
+        return invalidations;
+    }
+
+    @Override
+    public String toString() {
+        return (deleted ? "d" : "u") + id + ":" + version;
+    }
+}
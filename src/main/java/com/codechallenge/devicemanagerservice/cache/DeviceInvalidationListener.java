@@ -0,0 +1,117 @@
+package com.codechallenge.devicemanagerservice.cache;
+
+import com.codechallenge.devicemanagerservice.config.DeviceInvalidationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Holds one dedicated {@code LISTEN} connection outside the pool and applies remote invalidations to the local cache.
+ * Notifications sent while the connection was down are lost, so every (re)connect starts by clearing the cache.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "device.cache.invalidation", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DeviceInvalidationListener implements SmartLifecycle {
+
+    private final JdbcConnectionDetails connectionDetails;
+    private final DeviceCache deviceCache;
+    private final DeviceInvalidationProperties properties;
+
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread worker;
+
+    public DeviceInvalidationListener(JdbcConnectionDetails connectionDetails, DeviceCache deviceCache,
+                                      DeviceInvalidationProperties properties) {
+        this.connectionDetails = connectionDetails;
+        this.deviceCache = deviceCache;
+        this.properties = properties;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = Thread.ofPlatform().daemon().name("device-invalidation-listener").start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        closeQuietly(connection);
+        try {
+            worker.join(properties.pollTimeout().multipliedBy(2).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection listening = DriverManager.getConnection(connectionDetails.getJdbcUrl(),
+                    connectionDetails.getUsername(), connectionDetails.getPassword())) {
+                connection = listening;
+                try (Statement statement = listening.createStatement()) {
+                    statement.execute("LISTEN \"" + properties.channel().replace("\"", "\"\"") + "\"");
+                }
+                deviceCache.invalidateAll();
+                log.info("Listening for device invalidations on channel {}", properties.channel());
+                PGConnection pgConnection = listening.unwrap(PGConnection.class);
+                while (running) {
+                    apply(pgConnection.getNotifications((int) properties.pollTimeout().toMillis()));
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (running) {
+                    log.warn("Device invalidation listener failed, reconnecting in {}", properties.reconnectDelay(), e);
+                    pause();
+                }
+            }
+        }
+    }
+
+    private void apply(PGNotification[] notifications) {
+        if (notifications == null) {
+            return;
+        }
+        for (PGNotification notification : notifications) {
+            try {
+                DeviceInvalidation.decode(notification.getParameter()).forEach(deviceCache::invalidate);
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring device invalidation payload: {}", notification.getParameter(), e);
+            }
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(properties.reconnectDelay());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // the worker notices the closed connection and exits
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.codechallenge.devicemanagerservice.cache;
+
+import com.codechallenge.devicemanagerservice.config.DeviceInvalidationProperties;
+import com.codechallenge.devicemanagerservice.event.DeviceChangeType;
+import com.codechallenge.devicemanagerservice.event.DeviceChangedEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the changes of a transaction and sends them as one {@code pg_notify} per payload chunk right before commit.
+ * Postgres only delivers notifications once the transaction commits, and drops them on rollback.
+ */
+@Component
+@ConditionalOnProperty(prefix = "device.cache.invalidation", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DeviceInvalidationPublisher {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String channel;
+
+    public DeviceInvalidationPublisher(JdbcTemplate jdbcTemplate, DeviceInvalidationProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.channel = properties.channel();
+    }
+
+    @EventListener
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        if (event.type() != DeviceChangeType.CREATED && TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending().add(DeviceInvalidation.of(event));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DeviceInvalidation> pending() {
+        List<DeviceInvalidation> pending = (List<DeviceInvalidation>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<DeviceInvalidation> batch = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, batch);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    DeviceInvalidation.encode(batch).forEach(DeviceInvalidationPublisher.this::notify);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DeviceInvalidationPublisher.this);
+                }
+            });
+            pending = batch;
+        }
+        return pending;
+    }
+
+    private void notify(String payload) {
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", channel, payload);
+    }
+}
@@ -0,0 +1,49 @@
+package com.codechallenge.devicemanagerservice.changes;
+
+import com.codechallenge.devicemanagerservice.exception.InvalidCursorException;
+
+import java.util.Comparator;
+
+/**
+ * Position in the change feed: the transaction id that wrote an outbox row and the row's id within the outbox.
+ * Clients see it as {@code <txid>-<id>} and pass it back unchanged; {@link #START} precedes every change.
+ */
+public record ChangePosition(long txid, long id) implements Comparable<ChangePosition> {
+
+    public static final ChangePosition START = new ChangePosition(0, 0);
+
+    private static final Comparator<ChangePosition> ORDER = Comparator.comparingLong(ChangePosition::txid)
+            .thenComparingLong(ChangePosition::id);
+
+    public String encode() {
+        return txid + "-" + id;
+    }
+
+    public static ChangePosition decode(String offset) {
+        if (offset == null || offset.isBlank()) {
+            return START;
+        }
+        String[] parts = offset.strip().split("-", 2);
+        try {
+            if (parts.length != 2) {
+                throw new InvalidCursorException("Malformed change offset");
+            }
+            ChangePosition position = new ChangePosition(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            if (position.txid < 0 || position.id < 0) {
+                throw new InvalidCursorException("Malformed change offset");
+            }
+            return position;
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Malformed change offset");
+        }
+    }
+
+    public boolean isStart() {
+        return equals(START);
+    }
+
+    @Override
+    public int compareTo(ChangePosition other) {
+        return ORDER.compare(this, other);
+    }
+}
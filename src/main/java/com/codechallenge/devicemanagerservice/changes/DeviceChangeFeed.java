@@ -0,0 +1,310 @@
+package com.codechallenge.devicemanagerservice.changes;
+
+import com.codechallenge.devicemanagerservice.config.DeviceChangeFeedProperties;
+import com.codechallenge.devicemanagerservice.dto.DeviceChangeDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceChangesDto;
+import com.codechallenge.devicemanagerservice.event.DeviceChangeType;
+import com.codechallenge.devicemanagerservice.event.DeviceChangedEvent;
+import com.codechallenge.devicemanagerservice.exception.ChangesExpiredException;
+import com.codechallenge.devicemanagerservice.exception.InvalidSearchException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reads the change feed from {@code device_change_outbox}, which the triggers on {@code device_table} fill inside
+ * every writing transaction. Only rows of transactions older than every transaction still running are returned, so
+ * the feed never shows a change while an earlier one can still commit behind it.
+ * <p>
+ * Waiting readers share one poller thread, which looks up the newest readable position every {@code pollInterval},
+ * or right away when a change commits through this instance, and wakes them when it moved. The poller also purges
+ * changes older than the retention and records how far it purged, so a consumer resuming from before that point gets
+ * a {@link ChangesExpiredException} instead of silently missing changes.
+ */
+@Slf4j
+@Component
+public class DeviceChangeFeed implements SmartLifecycle {
+
+    public static final String LATEST = "latest";
+
+    private static final String READ_SQL = """
+            SELECT CAST(txid AS text) AS txid, id, device_id, change, version, name, brand, state, changed_at
+            FROM device_change_outbox
+            WHERE (txid, id) > (CAST(CAST(? AS text) AS xid8), ?)
+              AND txid < pg_snapshot_xmin(pg_current_snapshot())
+            ORDER BY txid, id
+            LIMIT ?
+            """;
+
+    private static final String HEAD_SQL = """
+            SELECT CAST(txid AS text) AS txid, id
+            FROM device_change_outbox
+            WHERE txid < pg_snapshot_xmin(pg_current_snapshot())
+            ORDER BY txid DESC, id DESC
+            LIMIT 1
+            """;
+
+    private static final String EXPIRED_SQL = """
+            SELECT (CAST(CAST(? AS text) AS xid8), ?) < (txid, id) FROM device_change_outbox_horizon
+            """;
+
+    private static final String PURGE_CUTOFF_SQL = """
+            SELECT CAST(txid AS text) AS txid, id
+            FROM device_change_outbox
+            WHERE changed_at < ? AND txid < pg_snapshot_xmin(pg_current_snapshot())
+            ORDER BY txid DESC, id DESC
+            LIMIT 1
+            """;
+
+    // the horizon moves first, so a reader never finds rows missing without the horizon saying so
+    private static final String ADVANCE_HORIZON_SQL = """
+            UPDATE device_change_outbox_horizon
+            SET txid = CAST(CAST(? AS text) AS xid8), id = ?
+            WHERE (txid, id) < (CAST(CAST(? AS text) AS xid8), ?)
+            """;
+
+    private static final String PURGE_SQL = """
+            DELETE FROM device_change_outbox
+            WHERE (txid, id) IN (SELECT txid, id FROM device_change_outbox
+                                 WHERE (txid, id) <= (CAST(CAST(? AS text) AS xid8), ?)
+                                 ORDER BY txid, id
+                                 LIMIT ?)
+            """;
+
+    private static final int PURGE_CHUNK_SIZE = 10_000;
+
+    private static final RowMapper<ChangePosition> POSITION_MAPPER = (row, rowNum) ->
+            new ChangePosition(Long.parseLong(row.getString("txid")), row.getLong("id"));
+
+    private static final RowMapper<DeviceChangeDto> CHANGE_MAPPER = (row, rowNum) -> new DeviceChangeDto(
+            new ChangePosition(Long.parseLong(row.getString("txid")), row.getLong("id")).encode(),
+            row.getLong("device_id"),
+            DeviceChangeType.valueOf(row.getString("change")),
+            row.getLong("version"),
+            row.getString("name"),
+            row.getString("brand"),
+            row.getString("state"),
+            row.getTimestamp("changed_at").toInstant());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DeviceChangeFeedProperties properties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition advanced = lock.newCondition();
+    private final Condition committed = lock.newCondition();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private volatile ChangePosition head = ChangePosition.START;
+    private boolean commitPending;
+
+    private volatile boolean running;
+    private Thread poller;
+
+    public DeviceChangeFeed(JdbcTemplate jdbcTemplate, DeviceChangeFeedProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * Resolves an offset as sent by a client: absent means the oldest retained change, {@value #LATEST} the newest
+     * committed one, anything else must be an offset this feed handed out and still retains.
+     */
+    public ChangePosition resolve(String offset) {
+        if (LATEST.equalsIgnoreCase(offset == null ? "" : offset.strip())) {
+            return latest();
+        }
+        ChangePosition position = ChangePosition.decode(offset);
+        if (!position.isStart()
+                && Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXPIRED_SQL, Boolean.class,
+                Long.toString(position.txid()), position.id()))) {
+            throw new ChangesExpiredException("Changes after " + position.encode()
+                    + " are no longer retained, resynchronize and resume from the latest offset");
+        }
+        return position;
+    }
+
+    public int checkBatchSize(int limit) {
+        if (limit < 1 || limit > properties.maxBatchSize()) {
+            throw new InvalidSearchException("limit must be between 1 and " + properties.maxBatchSize());
+        }
+        return limit;
+    }
+
+    public Duration checkWait(int waitSeconds) {
+        if (waitSeconds < 0 || waitSeconds > properties.maxWait().toSeconds()) {
+            throw new InvalidSearchException("wait must be between 0 and " + properties.maxWait().toSeconds()
+                    + " seconds");
+        }
+        return Duration.ofSeconds(waitSeconds);
+    }
+
+    /**
+     * Up to {@code limit} changes after {@code after}, in commit order.
+     */
+    public DeviceChangesDto read(ChangePosition after, int limit) {
+        List<DeviceChangeDto> changes = jdbcTemplate.query(READ_SQL, CHANGE_MAPPER, Long.toString(after.txid()),
+                after.id(), limit);
+        String next = changes.isEmpty() ? after.encode() : changes.getLast().offset();
+        return new DeviceChangesDto(changes, next);
+    }
+
+    /**
+     * Like {@link #read}, but while nothing new is committed waits up to {@code wait} for the next change.
+     */
+    public DeviceChangesDto await(ChangePosition after, int limit, Duration wait) throws InterruptedException {
+        long deadline = System.nanoTime() + wait.toNanos();
+        while (true) {
+            ChangePosition seen = head;
+            DeviceChangesDto changes = read(after, limit);
+            long remaining = deadline - System.nanoTime();
+            if (!changes.changes().isEmpty() || remaining <= 0) {
+                return changes;
+            }
+            awaitHeadBeyond(seen.compareTo(after) > 0 ? seen : after, remaining);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        if (waiting.get() == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            commitPending = true;
+            committed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        poller = Thread.ofPlatform().daemon().name("device-change-poller").start(this::pollContinuously);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (poller != null) {
+            poller.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Removes the changes older than the retention, oldest first and in chunks, and returns how many it removed.
+     */
+    public int purge() {
+        Timestamp threshold = Timestamp.from(Instant.now().minus(properties.retention()));
+        List<ChangePosition> cutoff = jdbcTemplate.query(PURGE_CUTOFF_SQL, POSITION_MAPPER, threshold);
+        if (cutoff.isEmpty()) {
+            return 0;
+        }
+        String txid = Long.toString(cutoff.getFirst().txid());
+        long id = cutoff.getFirst().id();
+        jdbcTemplate.update(ADVANCE_HORIZON_SQL, txid, id, txid, id);
+
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE_SQL, txid, id, PURGE_CHUNK_SIZE);
+            purged += deleted;
+        } while (deleted == PURGE_CHUNK_SIZE && running);
+        log.info("Purged {} device changes up to {}", purged, cutoff.getFirst().encode());
+        return purged;
+    }
+
+    private ChangePosition latest() {
+        List<ChangePosition> newest = jdbcTemplate.query(HEAD_SQL, POSITION_MAPPER);
+        return newest.isEmpty() ? ChangePosition.START : newest.getFirst();
+    }
+
+    private void awaitHeadBeyond(ChangePosition position, long timeoutNanos) throws InterruptedException {
+        waiting.incrementAndGet();
+        lock.lock();
+        try {
+            long remaining = timeoutNanos;
+            while (head.compareTo(position) <= 0 && remaining > 0) {
+                remaining = advanced.awaitNanos(remaining);
+            }
+        } finally {
+            lock.unlock();
+            waiting.decrementAndGet();
+        }
+    }
+
+    private void pollContinuously() {
+        long nextPurge = System.nanoTime();
+        while (running) {
+            try {
+                if (waiting.get() > 0) {
+                    refreshHead();
+                }
+                if (System.nanoTime() - nextPurge >= 0) {
+                    purge();
+                    nextPurge = System.nanoTime() + properties.purgeInterval().toNanos();
+                }
+                awaitCommitOrPollInterval();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Device change poll failed", e);
+                pause();
+            }
+        }
+    }
+
+    private void refreshHead() {
+        ChangePosition newest = latest();
+        if (newest.compareTo(head) == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            head = newest;
+            advanced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitCommitOrPollInterval() throws InterruptedException {
+        lock.lock();
+        try {
+            if (!commitPending) {
+                committed.await(properties.pollInterval().toNanos(), TimeUnit.NANOSECONDS);
+            }
+            commitPending = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(properties.pollInterval());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
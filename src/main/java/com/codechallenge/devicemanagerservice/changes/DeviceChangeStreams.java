@@ -0,0 +1,138 @@
+package com.codechallenge.devicemanagerservice.changes;
+
+import com.codechallenge.devicemanagerservice.config.DeviceChangeFeedProperties;
+import com.codechallenge.devicemanagerservice.dto.DeviceChangesDto;
+import com.codechallenge.devicemanagerservice.exception.DeviceOverloadedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers the change feed asynchronously, so a waiting client holds neither a request thread nor a slot of the
+ * connection pool guard. Long polls and Server-Sent Events streams each wait on a virtual thread of their own; a
+ * stream sends every batch as one {@code changes} event whose id is the offset to resume from, and a comment as
+ * heartbeat while idle, which is also how a client that went away is noticed. Waiting polls and open streams are
+ * bounded separately and turned away with a 503 beyond that, since nothing in front of the handler counts them once it
+ * has gone async.
+ */
+@Slf4j
+@Component
+public class DeviceChangeStreams {
+
+    // room for the read that follows the wait before the container would time the request out
+    private static final Duration RESPONSE_MARGIN = Duration.ofSeconds(5);
+
+    private final DeviceChangeFeed feed;
+    private final DeviceChangeFeedProperties properties;
+    private final Semaphore streams;
+    private final Semaphore polls;
+
+    public DeviceChangeStreams(DeviceChangeFeed feed, DeviceChangeFeedProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.feed = feed;
+        this.properties = properties;
+        this.streams = new Semaphore(properties.maxStreams());
+        this.polls = new Semaphore(properties.maxPolls());
+        Gauge.builder("device.changes.streams", streams, available -> properties.maxStreams()
+                        - available.availablePermits())
+                .description("Open change feed streams")
+                .register(meterRegistry);
+        Gauge.builder("device.changes.polls", polls, available -> properties.maxPolls()
+                        - available.availablePermits())
+                .description("Change feed long polls waiting for a change")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Answers right away when changes after the offset are committed or {@code waitSeconds} is 0, otherwise once the
+     * next change commits or the wait is over.
+     */
+    public DeferredResult<DeviceChangesDto> poll(String offset, int limit, int waitSeconds) {
+        ChangePosition after = feed.resolve(offset);
+        int batchSize = feed.checkBatchSize(limit);
+        Duration wait = feed.checkWait(waitSeconds);
+
+        DeferredResult<DeviceChangesDto> result = new DeferredResult<>(wait.plus(RESPONSE_MARGIN).toMillis());
+        if (wait.isZero()) {
+            result.setResult(feed.read(after, batchSize));
+            return result;
+        }
+        if (!polls.tryAcquire()) {
+            throw new DeviceOverloadedException("Too many change polls are waiting, retry later.");
+        }
+        Thread.ofVirtual().name("device-change-poll").start(() -> {
+            try {
+                result.setResult(feed.await(after, batchSize, wait));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.setErrorResult(e);
+            } catch (RuntimeException e) {
+                result.setErrorResult(e);
+            } finally {
+                polls.release();
+            }
+        });
+        return result;
+    }
+
+    public SseEmitter stream(String offset, int limit) {
+        ChangePosition after = feed.resolve(offset);
+        int batchSize = feed.checkBatchSize(limit);
+        if (!streams.tryAcquire()) {
+            throw new DeviceOverloadedException("Too many change streams are open, retry later.");
+        }
+        SseEmitter emitter = new SseEmitter(properties.streamTimeout().toMillis());
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(e -> open.set(false));
+
+        Thread.ofVirtual().name("device-change-stream").start(() -> {
+            try {
+                send(emitter, open, after, batchSize);
+            } finally {
+                streams.release();
+            }
+        });
+        return emitter;
+    }
+
+    private void send(SseEmitter emitter, AtomicBoolean open, ChangePosition after, int limit) {
+        ChangePosition position = after;
+        try {
+            while (open.get()) {
+                DeviceChangesDto batch = feed.await(position, limit, properties.heartbeat());
+                if (!open.get()) {
+                    return;
+                }
+                if (batch.changes().isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    emitter.send(SseEmitter.event()
+                            .id(batch.next())
+                            .name("changes")
+                            .data(batch.changes(), MediaType.APPLICATION_JSON));
+                    position = ChangePosition.decode(batch.next());
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the client went away or the emitter timed out
+            log.debug("Change stream from {} closed: {}", after.encode(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        } catch (RuntimeException e) {
+            log.warn("Change stream from {} failed", after.encode(), e);
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.codechallenge.devicemanagerservice.concurrency;
+
+import com.codechallenge.devicemanagerservice.config.DeviceConcurrencyProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A concurrency limit that follows latency, after the gradient algorithm of Netflix' concurrency-limits. Every sample
+ * window compares the average latency of the window with a slowly moving long-term average: while the two agree the
+ * limit grows by about its square root, and when the window gets slower the limit shrinks in proportion, down to
+ * half per window. Calls beyond the limit wait up to {@code maxWait} in a bounded queue and are rejected after that.
+ * <p>
+ * Taking and returning a slot is a compare-and-set on the in-flight count; the lock is only used by callers that
+ * have to wait.
+ */
+public final class AdaptiveConcurrencyLimit {
+
+    // the window may be this much slower than the long-term average before the limit starts to shrink
+    private static final double TOLERANCE = 1.5;
+
+    private static final double SMOOTHING = 0.2;
+
+    private static final int LONG_WINDOWS = 100;
+
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    private final DeviceConcurrencyProperties properties;
+    private final LongSupplier nanoTime;
+    private final long windowNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private volatile double limit;
+
+    private final LongAdder windowLatency = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private final AtomicLong windowEnd;
+    private volatile double longLatency;
+
+    public AdaptiveConcurrencyLimit(DeviceConcurrencyProperties properties, LongSupplier nanoTime) {
+        this.properties = properties;
+        this.nanoTime = nanoTime;
+        this.windowNanos = properties.sampleWindow().toNanos();
+        this.limit = properties.initialLimit();
+        this.windowEnd = new AtomicLong(nanoTime.getAsLong() + windowNanos);
+    }
+
+    /**
+     * Takes a slot, waiting up to {@code maxWait} for one. Returns false when none became free or the queue is full;
+     * a true result has to be paired with {@link #release}.
+     */
+    public boolean acquire() throws InterruptedException {
+        if (tryAcquire()) {
+            return true;
+        }
+        if (waiting.get() >= properties.maxQueue()) {
+            return false;
+        }
+
+        long remaining = properties.maxWait().toNanos();
+        lock.lock();
+        waiting.incrementAndGet();
+        try {
+            while (!tryAcquire()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            waiting.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the slot and records how long the call took.
+     */
+    public void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+        windowLatency.add(latencyNanos);
+        windowSamples.increment();
+
+        long now = nanoTime.getAsLong();
+        long end = windowEnd.get();
+        if (now - end >= 0 && windowSamples.sum() >= MIN_WINDOW_SAMPLES && windowEnd.compareAndSet(end,
+                now + windowNanos)) {
+            update();
+        }
+        if (waiting.get() > 0) {
+            signal();
+        }
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public int waiting() {
+        return waiting.get();
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowMaxInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    // runs on the one caller that closed the window, so the long-term average is never written concurrently; it is
+    // volatile because the next window may be closed on another thread
+    private void update() {
+        long samples = windowSamples.sumThenReset();
+        double latency = (double) windowLatency.sumThenReset() / Math.max(samples, 1);
+        int maxInFlight = windowMaxInFlight.getAndSet(inFlight.get());
+
+        if (longLatency == 0) {
+            longLatency = latency;
+        } else {
+            longLatency += (latency - longLatency) / LONG_WINDOWS;
+            // after a slow period the long-term average would keep the limit low for a long time; let it recover
+            if (longLatency / latency > 2) {
+                longLatency *= 0.95;
+            }
+        }
+
+        double current = limit;
+        // a limit that is not used says nothing about the latency it would cause, so it only grows when it is
+        if (maxInFlight < current / 2 && latency <= longLatency * TOLERANCE) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longLatency / latency));
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(properties.minLimit(), Math.min(properties.maxLimit(), next));
+        if (limit > current) {
+            signalAll();
+        }
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void signalAll() {
+        lock.lock();
+        try {
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
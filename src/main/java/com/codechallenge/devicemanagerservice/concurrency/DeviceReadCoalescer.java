@@ -0,0 +1,76 @@
+package com.codechallenge.devicemanagerservice.concurrency;
+
+import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.dto.VersionedDeviceDto;
+import com.codechallenge.devicemanagerservice.event.DeviceChangedEvent;
+import com.codechallenge.devicemanagerservice.model.DeviceState;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical device reads that run at the same time, so a burst of requests for one device or one search
+ * page costs one query and one mapped result. Searches open their read-only transaction only for the call that runs,
+ * the others wait without holding a connection.
+ * <p>
+ * A committed write makes the reads running at that moment unshareable: callers arriving after the commit, such as
+ * the writer reading its own change, start a fresh query instead of joining one that may have read the old row.
+ * Searches are also keyed by the change epoch the caller read for its ETag: a caller that already sees a newer epoch
+ * never joins a query started before that change, so the page it gets is never older than its tag.
+ */
+@Component
+public class DeviceReadCoalescer {
+
+    // well above a healthy query, so callers only stop waiting on a call that is stuck
+    private static final Duration MAX_SHARED_WAIT = Duration.ofSeconds(5);
+
+    private final SingleFlight<Long, Optional<VersionedDeviceDto>> devices;
+    private final SingleFlight<SearchKey, Page<DeviceResponseDto>> pages;
+    private final SingleFlight<SearchKey, Slice<DeviceResponseDto>> slices;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public DeviceReadCoalescer(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.devices = new SingleFlight<>("getById", MAX_SHARED_WAIT, meterRegistry);
+        this.pages = new SingleFlight<>("findDevices", MAX_SHARED_WAIT, meterRegistry);
+        this.slices = new SingleFlight<>("findDevicesSlice", MAX_SHARED_WAIT, meterRegistry);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public Optional<VersionedDeviceDto> getById(Long id, Supplier<Optional<VersionedDeviceDto>> load) {
+        return devices.execute(id, load);
+    }
+
+    public Page<DeviceResponseDto> findDevices(String brand, DeviceState state, Pageable pageable, long epoch,
+                                               Supplier<Page<DeviceResponseDto>> query) {
+        return pages.execute(new SearchKey(brand, state, pageable, epoch), () -> readOnlyTransaction.execute(status ->
+                query.get()));
+    }
+
+    public Slice<DeviceResponseDto> findDevicesSlice(String brand, DeviceState state, Pageable pageable, long epoch,
+                                                     Supplier<Slice<DeviceResponseDto>> query) {
+        return slices.execute(new SearchKey(brand, state, pageable, epoch), () -> readOnlyTransaction.execute(status ->
+                query.get()));
+    }
+
+    // any write can move a device into or out of a search page, so searches are all let go
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        devices.forget(event.id());
+        pages.forgetAll();
+        slices.forgetAll();
+    }
+
+    private record SearchKey(String brand, DeviceState state, Pageable pageable, long epoch) {
+    }
+}
@@ -0,0 +1,100 @@
+package com.codechallenge.devicemanagerservice.concurrency;
+
+import com.codechallenge.devicemanagerservice.cache.DeviceCache;
+import com.codechallenge.devicemanagerservice.config.DeviceConcurrencyProperties;
+import com.codechallenge.devicemanagerservice.exception.DeviceOverloadedException;
+import com.codechallenge.devicemanagerservice.service.DeviceCreateBatcher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Runs {@code DeviceService} calls under an {@link AdaptiveConcurrencyLimit}, outside the transaction so a call that
+ * has to wait holds no connection. Exports, bulk transitions and the in-memory lookups are left out: they either run
+ * far longer than a request and would drag the latency average along, or never touch the database. Creates under
+ * group commit are left out as well: they wait in the batcher's own bounded queue, and the linger they spend there
+ * would read as a slow database. Lookups by id that the device cache answers take no slot either, so cache hits
+ * neither queue behind the database nor pull its latency average down.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(prefix = "device.concurrency", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DeviceServiceConcurrencyLimit {
+
+    // an entry evicted between the check and the lookup costs one query without a slot
+    private static final Set<String> CACHED_LOOKUPS = Set.of("getById", "getVersionedById", "getVersion");
+
+    private final Logger logger = LoggerFactory.getLogger(DeviceServiceConcurrencyLimit.class);
+
+    private final AdaptiveConcurrencyLimit limit;
+
+    private final Counter rejected;
+
+    private final DeviceCreateBatcher createBatcher;
+
+    private final DeviceCache deviceCache;
+
+    public DeviceServiceConcurrencyLimit(DeviceConcurrencyProperties properties, DeviceCreateBatcher createBatcher,
+                                         DeviceCache deviceCache, MeterRegistry meterRegistry) {
+        this.createBatcher = createBatcher;
+        this.deviceCache = deviceCache;
+        this.limit = new AdaptiveConcurrencyLimit(properties, System::nanoTime);
+        Gauge.builder("device.concurrency.limit", limit, AdaptiveConcurrencyLimit::limit)
+                .description("Concurrent DeviceService calls currently allowed")
+                .register(meterRegistry);
+        Gauge.builder("device.concurrency.in_flight", limit, AdaptiveConcurrencyLimit::inFlight)
+                .register(meterRegistry);
+        Gauge.builder("device.concurrency.waiting", limit, AdaptiveConcurrencyLimit::waiting)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("device.concurrency.rejected").register(meterRegistry);
+    }
+
+    @Around("execution(* com.codechallenge.devicemanagerservice.service.DeviceService.*(..))"
+            + " && !execution(* com.codechallenge.devicemanagerservice.service.DeviceService.exportDevices(..))"
+            + " && !execution(* com.codechallenge.devicemanagerservice.service.DeviceService.transitionState(..))"
+            + " && !execution(* com.codechallenge.devicemanagerservice.service.DeviceService.suggest(..))"
+            + " && !execution(* com.codechallenge.devicemanagerservice.service.DeviceService.getChangeEpoch(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getSignature().getName();
+        if (createBatcher.isRunning() && operation.equals("save")) {
+            return joinPoint.proceed();
+        }
+        if (CACHED_LOOKUPS.contains(operation) && joinPoint.getArgs()[0] instanceof Long id
+                && deviceCache.contains(id)) {
+            return joinPoint.proceed();
+        }
+
+        boolean acquired;
+        try {
+            acquired = limit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            logger.warn("Rejected {}: {} calls in flight at a limit of {}", operation, limit.inFlight(),
+                    limit.limit());
+            throw new DeviceOverloadedException("The service is overloaded, retry later.");
+        }
+
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            limit.release(System.nanoTime() - start);
+        }
+    }
+}
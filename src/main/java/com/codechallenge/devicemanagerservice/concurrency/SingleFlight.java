@@ -0,0 +1,105 @@
+package com.codechallenge.devicemanagerservice.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent callers asking for the same key share one call: the first runs the loader, everyone arriving while
+ * it runs waits for and receives the same result, or the same exception. Nothing is kept once the call returns, so
+ * this is not a cache; a caller arriving afterwards starts a new call. A caller waits at most {@code maxWait} for the
+ * running call and then runs the loader itself, so one stuck call cannot hold every caller for its key.
+ * <p>
+ * Calls are counted in {@code device.coalescing.calls}, tagged with the {@code operation} and whether the caller
+ * {@code executed} the call or {@code shared} one that was already running; shared callers that gave up waiting and
+ * ran the loader themselves are also counted as {@code timed_out}.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Duration maxWait;
+    private final Counter executed;
+    private final Counter shared;
+    private final Counter timedOut;
+
+    public SingleFlight(String operation, Duration maxWait, MeterRegistry meterRegistry) {
+        this.maxWait = maxWait;
+        this.executed = calls(meterRegistry, operation, "executed");
+        this.shared = calls(meterRegistry, operation, "shared");
+        this.timedOut = calls(meterRegistry, operation, "timed_out");
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            shared.increment();
+            try {
+                return await(running);
+            } catch (TimeoutException e) {
+                timedOut.increment();
+                return loader.get();
+            }
+        }
+
+        executed.increment();
+        try {
+            V result = loader.get();
+            call.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Lets callers arriving from now on start their own call instead of joining the one running for {@code key}.
+     * Callers already waiting still get its result.
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> call) throws TimeoutException {
+        try {
+            return call.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shared call", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static Counter calls(MeterRegistry meterRegistry, String operation, String outcome) {
+        return Counter.builder("device.coalescing.calls")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
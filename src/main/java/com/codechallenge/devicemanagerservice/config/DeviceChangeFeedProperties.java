@@ -0,0 +1,26 @@
+package com.codechallenge.devicemanagerservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Change feed delivery and outbox retention. Changes committed through another instance or by an import are noticed
+ * within {@code pollInterval}; those committed through this one wake waiting readers right away. Long polls wait at
+ * most {@code maxWait} and at most {@code maxPolls} of them wait at once, streams send a heartbeat comment every {@code heartbeat} while idle and are closed after
+ * {@code streamTimeout}. Changes older than {@code retention} are purged every {@code purgeInterval}.
+ */
+@ConfigurationProperties(prefix = "device.changes")
+public record DeviceChangeFeedProperties(
+        @DefaultValue("1000") int maxBatchSize,
+        @DefaultValue("30s") Duration maxWait,
+        @DefaultValue("1s") Duration pollInterval,
+        @DefaultValue("15s") Duration heartbeat,
+        @DefaultValue("30m") Duration streamTimeout,
+        @DefaultValue("100") int maxStreams,
+        @DefaultValue("200") int maxPolls,
+        @DefaultValue("7d") Duration retention,
+        @DefaultValue("1h") Duration purgeInterval
+) {
+}
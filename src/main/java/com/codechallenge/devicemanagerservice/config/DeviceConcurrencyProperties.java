@@ -0,0 +1,23 @@
+package com.codechallenge.devicemanagerservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Bounds of the adaptive limit on concurrent {@code DeviceService} calls. The limit starts at {@code initialLimit} and
+ * is recomputed from the latency of every {@code sampleWindow}; up to {@code maxQueue} calls beyond it wait at most
+ * {@code maxWait} for a slot.
+ */
+@ConfigurationProperties(prefix = "device.concurrency")
+public record DeviceConcurrencyProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("20") int initialLimit,
+        @DefaultValue("4") int minLimit,
+        @DefaultValue("200") int maxLimit,
+        @DefaultValue("100ms") Duration sampleWindow,
+        @DefaultValue("100") int maxQueue,
+        @DefaultValue("50ms") Duration maxWait
+) {
+}
@@ -0,0 +1,17 @@
+package com.codechallenge.devicemanagerservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Limits for serving requests on virtual threads. A {@code maxConcurrentRequests} of 0 sizes the limit to the
+ * HikariCP pool.
+ */
+@ConfigurationProperties(prefix = "device.execution")
+public record DeviceExecutionProperties(
+        @DefaultValue("0") int maxConcurrentRequests,
+        @DefaultValue("2s") Duration acquireTimeout
+) {
+}
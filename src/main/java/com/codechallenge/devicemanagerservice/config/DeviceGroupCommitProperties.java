@@ -0,0 +1,21 @@
+package com.codechallenge.devicemanagerservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Group commit for device creation. When enabled, creates wait in a queue of {@code queueCapacity} and are written
+ * together, at most {@code maxBatchSize} per transaction, by a flusher that waits up to {@code maxLinger} after the
+ * first create for more to arrive. A caller waits at most {@code maxWait} for its batch to commit.
+ */
+@ConfigurationProperties(prefix = "device.group-commit")
+public record DeviceGroupCommitProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("50") int maxBatchSize,
+        @DefaultValue("5ms") Duration maxLinger,
+        @DefaultValue("1000") int queueCapacity,
+        @DefaultValue("5s") Duration maxWait
+) {
+}
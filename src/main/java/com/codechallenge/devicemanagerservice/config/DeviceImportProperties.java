@@ -0,0 +1,14 @@
+package com.codechallenge.devicemanagerservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+@ConfigurationProperties(prefix = "device.import")
+public record DeviceImportProperties(
+        @DefaultValue("10000") int chunkSize,
+        @DefaultValue("100") int maxReportedRejections,
+        Path file
+) {
+}
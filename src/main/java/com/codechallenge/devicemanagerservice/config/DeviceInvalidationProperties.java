@@ -0,0 +1,15 @@
+package com.codechallenge.devicemanagerservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "device.cache.invalidation")
+public record DeviceInvalidationProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("device_invalidation") String channel,
+        @DefaultValue("500ms") Duration pollTimeout,
+        @DefaultValue("5s") Duration reconnectDelay
+) {
+}
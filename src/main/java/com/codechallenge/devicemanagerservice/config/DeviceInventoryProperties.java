@@ -0,0 +1,13 @@
+package com.codechallenge.devicemanagerservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "device.inventory")
+public record DeviceInventoryProperties(
+        @DefaultValue("true") boolean reconcile,
+        @DefaultValue("1h") Duration reconcileInterval
+) {
+}
@@ -0,0 +1,28 @@
+package com.codechallenge.devicemanagerservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Per-client request budgets for {@code /api/*}, split into reads ({@code GET}, {@code HEAD}) and writes. Clients
+ * sending one of the {@code apiKeys} in {@code clientHeader} get a budget per key; everyone else, including clients
+ * sending an unknown key, shares the budget of their remote address. Once more than {@code maxPendingConnections}
+ * threads wait for a pooled connection, new requests are shed with a 503.
+ */
+@ConfigurationProperties(prefix = "device.rate-limit")
+public record DeviceRateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("X-API-Key") String clientHeader,
+        @DefaultValue Set<String> apiKeys,
+        @DefaultValue("200") double readsPerSecond,
+        @DefaultValue("400") int readBurst,
+        @DefaultValue("50") double writesPerSecond,
+        @DefaultValue("100") int writeBurst,
+        @DefaultValue("20") int maxPendingConnections,
+        @DefaultValue("100000") long maximumClients,
+        @DefaultValue("10m") Duration clientIdleTimeout
+) {
+}
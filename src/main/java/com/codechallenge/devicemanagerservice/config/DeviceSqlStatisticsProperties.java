@@ -0,0 +1,15 @@
+package com.codechallenge.devicemanagerservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Per-request SQL statistics. They are always recorded as metrics; {@code responseHeaders} also returns them on
+ * every response and counts the rows read from result sets, which is meant for development and tests.
+ */
+@ConfigurationProperties(prefix = "device.sql-statistics")
+public record DeviceSqlStatisticsProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("false") boolean responseHeaders
+) {
+}
@@ -0,0 +1,59 @@
+package com.codechallenge.devicemanagerservice.config;
+
+import com.codechallenge.devicemanagerservice.filter.RateLimitFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.function.IntSupplier;
+
+/**
+ * Puts the {@link RateLimitFilter} first in front of {@code /api/*}, ahead of the statement counting and the virtual
+ * thread guard, so a rejected request costs neither a guard slot nor a meter sample.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "device.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(DeviceRateLimitProperties properties,
+                                                                   DataSource dataSource, ObjectMapper objectMapper,
+                                                                   MeterRegistry meterRegistry) {
+        var registration = new FilterRegistrationBean<>(new RateLimitFilter(properties,
+                pendingConnections(dataSource), System::nanoTime, objectMapper, meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+
+    // HikariCP starts its pool on the first connection, so the MXBean is looked up on every call until it exists
+    private static IntSupplier pendingConnections(DataSource dataSource) {
+        HikariDataSource hikari = hikari(dataSource);
+        if (hikari == null) {
+            return () -> 0;
+        }
+        return () -> {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            return pool != null ? pool.getThreadsAwaitingConnection() : 0;
+        };
+    }
+
+    private static HikariDataSource hikari(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class);
+            }
+        } catch (SQLException e) {
+            // not a Hikari pool, nothing to watch
+        }
+        return null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.codechallenge.devicemanagerservice.config;
+
+import com.codechallenge.devicemanagerservice.filter.SqlStatisticsFilter;
+import com.codechallenge.devicemanagerservice.metrics.SqlStatisticsListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the data source in a datasource-proxy that counts statements for {@link SqlStatisticsFilter}. The proxy
+ * delegates {@code unwrap}, so the HikariCP pool stays reachable for its metrics and the virtual thread guard.
+ * Result sets are only proxied to count the rows read when the development response headers are on; otherwise rows
+ * are the update counts the statements report, and reads cost no extra call per row.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "device.sql-statistics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatisticsConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlStatisticsDataSourcePostProcessor(Environment environment) {
+        boolean countRowsRead = environment.getProperty("device.sql-statistics.response-headers", Boolean.class,
+                false);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    SqlStatisticsListener listener = new SqlStatisticsListener();
+                    ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(listener);
+                    if (countRowsRead) {
+                        builder.methodListener(listener).proxyResultSet();
+                    }
+                    return builder.build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatisticsFilter> sqlStatisticsFilter(
+            DeviceSqlStatisticsProperties properties, MeterRegistry meterRegistry) {
+        var registration = new FilterRegistrationBean<>(
+                new SqlStatisticsFilter(meterRegistry, properties.responseHeaders()));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
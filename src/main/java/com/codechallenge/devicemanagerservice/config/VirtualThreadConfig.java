@@ -0,0 +1,58 @@
+package com.codechallenge.devicemanagerservice.config;
+
+import com.codechallenge.devicemanagerservice.filter.ConnectionPoolGuardFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Active with {@code spring.threads.virtual.enabled=true}, which makes Tomcat run every request on its own virtual
+ * thread. Without the platform pool there is no natural cap on requests in flight, so the guard keeps the number of
+ * requests past the filter at the size of the connection pool.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    // the change feed waits without a connection and bounds its polls and streams itself
+    private static final List<String> UNGUARDED_PATHS = List.of("/api/devices/changes");
+
+    private final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    public FilterRegistrationBean<ConnectionPoolGuardFilter> connectionPoolGuardFilter(
+            DeviceExecutionProperties properties, DataSource dataSource, ObjectMapper objectMapper) {
+        int permits = properties.maxConcurrentRequests() > 0
+                ? properties.maxConcurrentRequests()
+                : poolSize(dataSource);
+        logger.info("Serving requests on virtual threads, at most {} at a time", permits);
+
+        var registration = new FilterRegistrationBean<>(
+                new ConnectionPoolGuardFilter(permits, properties.acquireTimeout(), UNGUARDED_PATHS, objectMapper));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            // not a Hikari pool, fall back to its default size
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+}
@@ -1,24 +1,56 @@
 package com.codechallenge.devicemanagerservice.controllers;
 
+import com.codechallenge.devicemanagerservice.changes.DeviceChangeStreams;
+import com.codechallenge.devicemanagerservice.dto.DeviceBatchRequestDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceBatchResponseDto;
+import com.codechallenge.devicemanagerservice.dto.CursorPagedResponseDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceChangesDto;
 import com.codechallenge.devicemanagerservice.dto.DeviceCreateDto;
 import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceStateTransitionDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceStateTransitionResponseDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceSuggestionsDto;
 import com.codechallenge.devicemanagerservice.dto.DeviceUpdateDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceFileFormat;
+import com.codechallenge.devicemanagerservice.dto.DeviceImportResponseDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceInventoryDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceMatchMode;
 import com.codechallenge.devicemanagerservice.dto.PagedResponseDto;
+import com.codechallenge.devicemanagerservice.dto.TotalMode;
+import com.codechallenge.devicemanagerservice.dto.VersionedDeviceDto;
 import com.codechallenge.devicemanagerservice.exception.DeviceNotFoundException;
+import com.codechallenge.devicemanagerservice.exception.DeviceVersionMismatchException;
+import com.codechallenge.devicemanagerservice.export.DeviceExportWriter;
+import com.codechallenge.devicemanagerservice.importer.DeviceImportService;
 import com.codechallenge.devicemanagerservice.model.DeviceState;
+import com.codechallenge.devicemanagerservice.exception.InvalidSearchException;
+import com.codechallenge.devicemanagerservice.service.DeviceCursor;
 import com.codechallenge.devicemanagerservice.service.DeviceService;
 import com.codechallenge.devicemanagerservice.swagger.DeviceManagerApi;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.LongFunction;
+
 @RestController
 @RequestMapping("/api/devices")
 @Validated
@@ -28,8 +60,18 @@ public class DeviceManagerControllers implements DeviceManagerApi {
 
     private final DeviceService deviceService;
 
-    public DeviceManagerControllers(DeviceService deviceService) {
+    private final DeviceImportService importService;
+
+    private final DeviceChangeStreams changeStreams;
+
+    private final ObjectMapper objectMapper;
+
+    public DeviceManagerControllers(DeviceService deviceService, DeviceImportService importService,
+                                    DeviceChangeStreams changeStreams, ObjectMapper objectMapper) {
         this.deviceService = deviceService;
+        this.importService = importService;
+        this.changeStreams = changeStreams;
+        this.objectMapper = objectMapper;
     }
 
     @Override
@@ -48,69 +90,268 @@ public class DeviceManagerControllers implements DeviceManagerApi {
                 .body(created);
     }
 
+    @Override
+    @PostMapping("/batch")
+    public ResponseEntity<DeviceBatchResponseDto> applyBatch(@RequestBody @Valid DeviceBatchRequestDto dto) {
+        logger.info("Received an inbound batch request");
+        return ResponseEntity.ok(deviceService.applyBatch(dto));
+    }
+
+    @Override
+    @PostMapping("/state-transition")
+    public ResponseEntity<DeviceStateTransitionResponseDto> transitionState(
+            @RequestBody @Valid DeviceStateTransitionDto dto) {
+        logger.info("Received an inbound state transition request");
+        return ResponseEntity.ok(new DeviceStateTransitionResponseDto(deviceService.transitionState(dto)));
+    }
+
+    @Override
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<DeviceImportResponseDto> importDevices(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+        logger.info("Received an inbound import request ({})", contentType);
+        return ResponseEntity.ok(importService.importDevices(DeviceFileFormat.of(contentType), body));
+    }
+
     @Override
     @PutMapping("/{id}")
     public ResponseEntity<DeviceResponseDto> updateDevice(
             @PathVariable Long id,
-            @RequestBody @Valid DeviceUpdateDto dto
+            @RequestBody @Valid DeviceUpdateDto dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
-        DeviceResponseDto updated = deviceService.updateDevice(id, dto);
-        return ResponseEntity.ok(updated);
+        VersionedDeviceDto updated = deviceService.updateDevice(id, dto, expectedVersion(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(deviceETag(updated.version()).formattedTag())
+                .body(updated.device());
     }
 
+    // a revalidation only needs the version, so it is answered without loading or serializing the device
     @Override
     @GetMapping("/{id}")
-    public ResponseEntity<DeviceResponseDto> getDevice(@PathVariable Long id) {
-        DeviceResponseDto device = deviceService.getById(id)
+    public ResponseEntity<DeviceResponseDto> getDevice(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            ETag current = deviceETag(deviceService.getVersion(id)
+                    .orElseThrow(() -> new DeviceNotFoundException(id)));
+            if (matches(ifNoneMatch, current)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current.formattedTag()).build();
+            }
+        }
+
+        VersionedDeviceDto device = deviceService.getVersionedById(id)
                 .orElseThrow(() -> new DeviceNotFoundException(id));
-        return ResponseEntity.ok(device);
+        return ResponseEntity.ok()
+                .eTag(deviceETag(device.version()).formattedTag())
+                .body(device.device());
     }
 
     @Override
     @GetMapping
-    public ResponseEntity<PagedResponseDto<DeviceResponseDto>> getAllDevices(Pageable pageable) {
+    public ResponseEntity<PagedResponseDto<DeviceResponseDto>> getAllDevices(
+            @RequestParam(defaultValue = "EXACT") TotalMode total,
+            Pageable pageable,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
-        logger.info("Received request to fetch all devices (page={}, size={})", pageable.getPageNumber(), pageable.getPageSize());
+        logger.info("Received request to fetch all devices (page={}, size={}, total={})", pageable.getPageNumber(),
+                pageable.getPageSize(), total);
 
-        Page<DeviceResponseDto> devicesPage = deviceService.getAllDevice(pageable);
+        return collection(ifNoneMatch, epoch -> switch (total) {
+            case EXACT -> PagedResponseDto.exact(deviceService.getAllDevice(pageable, epoch));
+            case ESTIMATED -> PagedResponseDto.estimated(deviceService.getAllDeviceSlice(pageable, epoch),
+                    () -> deviceService.estimateDevices(null, null));
+            case NONE -> PagedResponseDto.withoutTotal(deviceService.getAllDeviceSlice(pageable, epoch));
+        });
+    }
+
+    @Override
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPagedResponseDto<DeviceResponseDto>> getAllDevicesByCursor(
+            @RequestParam String cursor,
+            Pageable pageable,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
-        PagedResponseDto<DeviceResponseDto> response = new PagedResponseDto<>(
-                devicesPage.getContent(),
-                devicesPage.getNumber(),
-                devicesPage.getSize(),
-                devicesPage.getTotalElements(),
-                devicesPage.getTotalPages()
-        );
+        logger.info("Received request to fetch all devices by cursor (size={})", pageable.getPageSize());
 
-        return ResponseEntity.ok(response);
+        return collection(ifNoneMatch, epoch -> findByCursor(null, null, cursor, pageable));
     }
 
     @Override
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteDevice(@PathVariable Long id) {
-        deviceService.deleteDevice(id);
+    public ResponseEntity<Void> deleteDevice(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        deviceService.deleteDevice(id, expectedVersion(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
     @Override
     @GetMapping("/search")
     public ResponseEntity<PagedResponseDto<DeviceResponseDto>> searchDevices(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) DeviceState state,
+            @RequestParam(defaultValue = "EXACT") DeviceMatchMode match,
+            @RequestParam(defaultValue = "EXACT") TotalMode total,
+            Pageable pageable,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        logger.info("Received request to search devices with name='{}', brand='{}', state='{}', match={} , (page={}, "
+                + "size={}, total={})", name, brand, state, match, pageable.getPageNumber(), pageable.getPageSize(), total);
+
+        if (name != null || match != DeviceMatchMode.EXACT) {
+            return collection(ifNoneMatch, epoch -> switch (total) {
+                case EXACT, ESTIMATED -> PagedResponseDto.capped(
+                        deviceService.findMatchingDevices(name, brand, match, state, pageable),
+                        DeviceService.MAX_RANKED_MATCHES);
+                case NONE -> PagedResponseDto.withoutTotal(
+                        deviceService.findMatchingDevicesSlice(name, brand, match, state, pageable));
+            });
+        }
+        return collection(ifNoneMatch, epoch -> switch (total) {
+            case EXACT -> PagedResponseDto.exact(deviceService.findDevices(brand, state, pageable, epoch));
+            case ESTIMATED -> PagedResponseDto.estimated(deviceService.findDevicesSlice(brand, state, pageable, epoch),
+                    () -> deviceService.estimateDevices(brand, state));
+            case NONE -> PagedResponseDto.withoutTotal(deviceService.findDevicesSlice(brand, state, pageable, epoch));
+        });
+    }
+
+    @Override
+    @GetMapping(value = "/search", params = "cursor")
+    public ResponseEntity<CursorPagedResponseDto<DeviceResponseDto>> searchDevicesByCursor(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) DeviceState state,
+            @RequestParam(defaultValue = "EXACT") DeviceMatchMode match,
+            @RequestParam String cursor,
+            Pageable pageable,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        logger.info("Received request to search devices by cursor with brand='{}', state='{}' , (size={})", brand,
+                state, pageable.getPageSize());
+
+        if (name != null || match != DeviceMatchMode.EXACT) {
+            throw new InvalidSearchException("name and match are not supported with cursor pagination, "
+                    + "page fuzzy searches with page and size");
+        }
+
+        return collection(ifNoneMatch, epoch -> findByCursor(brand, state, cursor, pageable));
+    }
+
+    @Override
+    @GetMapping("/inventory")
+    public ResponseEntity<DeviceInventoryDto> getInventory(
+            @RequestParam(required = false) String brand,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return collection(ifNoneMatch, epoch -> deviceService.getInventory(brand));
+    }
+
+    @Override
+    @GetMapping("/suggest")
+    public ResponseEntity<DeviceSuggestionsDto> suggestDevices(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(deviceService.suggest(prefix, limit));
+    }
+
+    @Override
+    @GetMapping("/changes")
+    public DeferredResult<DeviceChangesDto> getChanges(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "0") int wait) {
+        return changeStreams.poll(after, limit, wait);
+    }
+
+    @Override
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) String after,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(defaultValue = "100") int limit) {
+        logger.info("Received request to stream device changes after '{}'", lastEventId != null ? lastEventId : after);
+        return changeStreams.stream(lastEventId != null ? lastEventId : after, limit);
+    }
+
+    @Override
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportDevices(
             @RequestParam(required = false) String brand,
             @RequestParam(required = false) DeviceState state,
-            Pageable pageable) {
+            @RequestParam(defaultValue = "NDJSON") DeviceFileFormat format) {
+
+        logger.info("Received request to export devices with brand='{}', state='{}' as {}", brand, state, format);
+
+        StreamingResponseBody body = out -> {
+            DeviceExportWriter writer = DeviceExportWriter.of(format, out, objectMapper);
+            writer.start();
+            deviceService.exportDevices(brand, state, writer::write);
+            writer.finish();
+        };
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("devices." + format.extension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    private CursorPagedResponseDto<DeviceResponseDto> findByCursor(String brand, DeviceState state, String cursor,
+                                                                   Pageable pageable) {
+        DeviceCursor position = cursor.isBlank()
+                ? DeviceCursor.first(pageable.getSort(), brand, state)
+                : DeviceCursor.decode(cursor, brand, state);
 
-        logger.info("Received request to search devices with brand='{}', state='{}' , (page={}, size={})", brand, state,
-                pageable.getPageNumber(), pageable.getPageSize());
+        Slice<DeviceResponseDto> devices = deviceService.findDevicesAfter(brand, state, position,
+                pageable.getPageSize());
 
+        String nextCursor = devices.hasNext()
+                ? position.next(devices.getContent().get(devices.getNumberOfElements() - 1)).encode()
+                : null;
+        return new CursorPagedResponseDto<>(devices.getContent(), devices.getSize(), nextCursor);
+    }
+
+    // the epoch is read before the page, so a change committed in between can only make the tag older than the
+    // content and never lets a stale page be revalidated; the page is handed the epoch so a coalesced read is only
+    // shared between requests that read the same one; weak because estimated totals may differ between reads
+    private <T> ResponseEntity<T> collection(String ifNoneMatch, LongFunction<T> page) {
+        long epoch = deviceService.getChangeEpoch();
+        ETag current = new ETag(String.valueOf(epoch), true);
+        if (ifNoneMatch != null && matches(ifNoneMatch, current)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current.formattedTag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(current.formattedTag())
+                .body(page.apply(epoch));
+    }
+
+    private static ETag deviceETag(long version) {
+        return new ETag(String.valueOf(version), false);
+    }
+
+    private static boolean matches(String ifNoneMatch, ETag current) {
+        return ETag.parse(ifNoneMatch).stream().anyMatch(tag -> tag.isWildcard() || tag.compare(current, false));
+    }
 
-        Page<DeviceResponseDto> devicesPage = deviceService.findDevices(brand, state, pageable);
-        PagedResponseDto<DeviceResponseDto> response = new PagedResponseDto<>(
-                devicesPage.getContent(),
-                devicesPage.getNumber(),
-                devicesPage.getSize(),
-                devicesPage.getTotalElements(),
-                devicesPage.getTotalPages()
-        );
-        return ResponseEntity.ok(response);
+    // If-Match takes "*" or the single strong ETag of a previous read; anything else can never match
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        List<ETag> tags = ETag.parse(ifMatch);
+        if (tags.stream().anyMatch(ETag::isWildcard)) {
+            return null;
+        }
+        if (tags.size() == 1 && !tags.getFirst().weak()) {
+            try {
+                return Long.valueOf(tags.getFirst().tag());
+            } catch (NumberFormatException ignored) {
+                // falls through to the mismatch below
+            }
+        }
+        throw new DeviceVersionMismatchException("If-Match does not match a device version: " + ifMatch);
     }
 }
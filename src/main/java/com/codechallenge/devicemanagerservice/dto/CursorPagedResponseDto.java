@@ -0,0 +1,10 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+import java.util.List;
+
+public record CursorPagedResponseDto<T>(
+        List<T> content,
+        int size,
+        String nextCursor
+) {
+}
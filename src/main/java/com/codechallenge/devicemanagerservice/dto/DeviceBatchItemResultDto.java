@@ -0,0 +1,25 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+public record DeviceBatchItemResultDto(
+        Operation operation,
+        int index,
+        Long id,
+        boolean success,
+        String code,
+        String message,
+        DeviceResponseDto device
+) {
+    public enum Operation {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    public static DeviceBatchItemResultDto succeeded(Operation operation, int index, Long id, DeviceResponseDto device) {
+        return new DeviceBatchItemResultDto(operation, index, id, true, null, null, device);
+    }
+
+    public static DeviceBatchItemResultDto failed(Operation operation, int index, Long id, String code, String message) {
+        return new DeviceBatchItemResultDto(operation, index, id, false, code, message, null);
+    }
+}
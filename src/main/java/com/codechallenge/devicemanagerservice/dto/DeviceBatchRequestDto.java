@@ -0,0 +1,35 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeviceBatchRequestDto {
+
+    public static final int MAX_ITEMS = 1000;
+
+    @Valid
+    @Builder.Default
+    @Size(max = MAX_ITEMS, message = "At most " + MAX_ITEMS + " creates per batch")
+    private List<DeviceCreateDto> create = new ArrayList<>();
+
+    @Valid
+    @Builder.Default
+    @Size(max = MAX_ITEMS, message = "At most " + MAX_ITEMS + " updates per batch")
+    private List<DeviceBatchUpdateDto> update = new ArrayList<>();
+
+    @Builder.Default
+    @Size(max = MAX_ITEMS, message = "At most " + MAX_ITEMS + " deletes per batch")
+    private List<@NotNull(message = "Id is required") Long> delete = new ArrayList<>();
+}
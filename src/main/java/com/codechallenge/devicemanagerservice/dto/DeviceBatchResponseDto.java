@@ -0,0 +1,14 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+import java.util.List;
+
+public record DeviceBatchResponseDto(
+        int succeeded,
+        int failed,
+        List<DeviceBatchItemResultDto> results
+) {
+    public static DeviceBatchResponseDto of(List<DeviceBatchItemResultDto> results) {
+        int succeeded = (int) results.stream().filter(DeviceBatchItemResultDto::success).count();
+        return new DeviceBatchResponseDto(succeeded, results.size() - succeeded, results);
+    }
+}
@@ -0,0 +1,17 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class DeviceBatchUpdateDto extends DeviceUpdateDto {
+
+    @NotNull(message = "Id is required")
+    private Long id;
+}
@@ -0,0 +1,20 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+import com.codechallenge.devicemanagerservice.event.DeviceChangeType;
+
+import java.time.Instant;
+
+/**
+ * One committed change of a device as recorded in the outbox. Deletes carry the last state of the device.
+ */
+public record DeviceChangeDto(
+        String offset,
+        Long deviceId,
+        DeviceChangeType type,
+        long version,
+        String name,
+        String brand,
+        String state,
+        Instant changedAt
+) {
+}
@@ -0,0 +1,10 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+import java.util.List;
+
+/**
+ * A batch of changes in commit order and the offset to ask for the next batch with, which stays the requested one
+ * when nothing new was committed.
+ */
+public record DeviceChangesDto(List<DeviceChangeDto> changes, String next) {
+}
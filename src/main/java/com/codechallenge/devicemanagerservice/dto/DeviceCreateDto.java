@@ -3,6 +3,7 @@ package com.codechallenge.devicemanagerservice.dto;
 import com.codechallenge.devicemanagerservice.model.DeviceState;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,9 +16,11 @@ import lombok.NoArgsConstructor;
 public class DeviceCreateDto {
 
     @NotBlank(message = "Name is required")
+    @Size(max = 100, message = "Name must be at most 100 characters")
     private String name;
 
     @NotBlank(message = "Brand is required")
+    @Size(max = 100, message = "Brand must be at most 100 characters")
     private String brand;
 
     @NotNull(message = "State is required")
@@ -0,0 +1,16 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+import java.util.List;
+
+public record DeviceImportResponseDto(
+        long accepted,
+        long rejected,
+        long durationMillis,
+        double rowsPerSecond,
+        List<Rejection> rejections
+) {
+    public record Rejection(
+            long line,
+            String message
+    ) {}
+}
@@ -0,0 +1,8 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+public record DeviceInventoryCountDto(
+        String brand,
+        String state,
+        long devices
+) {
+}
@@ -0,0 +1,12 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+import java.util.List;
+
+public record DeviceInventoryDto(
+        long total,
+        List<DeviceInventoryCountDto> counts
+) {
+    public static DeviceInventoryDto of(List<DeviceInventoryCountDto> counts) {
+        return new DeviceInventoryDto(counts.stream().mapToLong(DeviceInventoryCountDto::devices).sum(), counts);
+    }
+}
@@ -0,0 +1,8 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+public enum DeviceMatchMode {
+    EXACT,
+    PREFIX,
+    CONTAINS,
+    SIMILAR
+}
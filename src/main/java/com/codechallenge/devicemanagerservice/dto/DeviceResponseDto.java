@@ -1,5 +1,6 @@
 package com.codechallenge.devicemanagerservice.dto;
 
+import com.codechallenge.devicemanagerservice.model.DeviceState;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,4 +19,10 @@ public class DeviceResponseDto {
     private String state;
     private Instant createdAt;
     private Instant updatedAt;
+
+    // constructor expression target for the projection queries
+    public DeviceResponseDto(Long id, String name, String brand, DeviceState state, Instant createdAt,
+                             Instant updatedAt) {
+        this(id, name, brand, String.valueOf(state), createdAt, updatedAt);
+    }
 }
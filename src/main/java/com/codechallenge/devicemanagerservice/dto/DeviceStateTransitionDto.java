@@ -0,0 +1,22 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+import com.codechallenge.devicemanagerservice.model.DeviceState;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeviceStateTransitionDto {
+
+    private String brand;
+
+    private DeviceState state;
+
+    @NotNull(message = "Target state is required")
+    private DeviceState targetState;
+}
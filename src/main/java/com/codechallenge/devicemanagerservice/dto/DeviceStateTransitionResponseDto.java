@@ -0,0 +1,6 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+public record DeviceStateTransitionResponseDto(
+        long affected
+) {
+}
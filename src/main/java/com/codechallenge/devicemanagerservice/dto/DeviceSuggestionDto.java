@@ -0,0 +1,7 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+public record DeviceSuggestionDto(
+        String value,
+        long devices
+) {
+}
@@ -0,0 +1,12 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+import java.util.List;
+
+public record DeviceSuggestionsDto(
+        List<DeviceSuggestionDto> names,
+        List<DeviceSuggestionDto> brands
+) {
+    public static DeviceSuggestionsDto empty() {
+        return new DeviceSuggestionsDto(List.of(), List.of());
+    }
+}
@@ -1,12 +1,65 @@
 package com.codechallenge.devicemanagerservice.dto;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
 import java.util.List;
+import java.util.function.LongSupplier;
 
 public record PagedResponseDto<T>(
         List<T> content,
         int page,
         int size,
-        long totalElements,
-        int totalPages
+        Long totalElements,
+        Integer totalPages,
+        boolean hasNext,
+        TotalMode totalMode
 ) {
-}
\ No newline at end of file
+    public static <T> PagedResponseDto<T> exact(Page<T> page) {
+        return new PagedResponseDto<>(
+                page.getContent(),
+                page.getNumber(),
+                page.getSize(),
+                page.getTotalElements(),
+                page.getTotalPages(),
+                page.hasNext(),
+                TotalMode.EXACT
+        );
+    }
+
+    public static <T> PagedResponseDto<T> withoutTotal(Slice<T> slice) {
+        return new PagedResponseDto<>(
+                slice.getContent(),
+                slice.getNumber(),
+                slice.getSize(),
+                null,
+                null,
+                slice.hasNext(),
+                TotalMode.NONE
+        );
+    }
+
+    // a total that reached the cap only says there are at least that many
+    public static <T> PagedResponseDto<T> capped(Page<T> page, long cap) {
+        if (page.getTotalElements() < cap) {
+            return exact(page);
+        }
+        return new PagedResponseDto<>(page.getContent(), page.getNumber(), page.getSize(), cap,
+                totalPages(cap, page.getSize()), page.hasNext(), TotalMode.ESTIMATED);
+    }
+
+    public static <T> PagedResponseDto<T> estimated(Slice<T> slice, LongSupplier estimatedTotal) {
+        long seen = (long) slice.getNumber() * slice.getSize() + slice.getNumberOfElements();
+        if (!slice.hasNext()) {
+            return new PagedResponseDto<>(slice.getContent(), slice.getNumber(), slice.getSize(), seen,
+                    totalPages(seen, slice.getSize()), false, TotalMode.EXACT);
+        }
+        long total = Math.max(estimatedTotal.getAsLong(), seen + 1);
+        return new PagedResponseDto<>(slice.getContent(), slice.getNumber(), slice.getSize(), total,
+                totalPages(total, slice.getSize()), true, TotalMode.ESTIMATED);
+    }
+
+    private static int totalPages(long total, int size) {
+        return size == 0 ? 1 : (int) Math.ceil((double) total / size);
+    }
+}
@@ -0,0 +1,7 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+public enum TotalMode {
+    EXACT,
+    ESTIMATED,
+    NONE
+}
@@ -0,0 +1,7 @@
+package com.codechallenge.devicemanagerservice.dto;
+
+public record VersionedDeviceDto(
+        DeviceResponseDto device,
+        long version
+) {
+}
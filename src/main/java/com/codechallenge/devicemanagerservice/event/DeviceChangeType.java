@@ -0,0 +1,7 @@
+package com.codechallenge.devicemanagerservice.event;
+
+public enum DeviceChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,59 @@
+package com.codechallenge.devicemanagerservice.event;
+
+import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.dto.VersionedDeviceDto;
+import com.codechallenge.devicemanagerservice.mapper.DeviceMapper;
+import com.codechallenge.devicemanagerservice.model.DeviceEntity;
+import com.codechallenge.devicemanagerservice.model.DeviceLabels;
+import com.codechallenge.devicemanagerservice.repository.DeletedDevice;
+import com.codechallenge.devicemanagerservice.repository.UpdatedDevice;
+
+/**
+ * Published inside the writing transaction once the row is flushed, so {@code version} is the committed one.
+ * Listeners that touch shared state should use {@code @TransactionalEventListener(phase = AFTER_COMMIT)}.
+ * {@code previous} holds the name and brand before an update or delete, and is null for creates and for state
+ * transitions, which cannot change them.
+ */
+public record DeviceChangedEvent(
+        Long id,
+        long version,
+        DeviceChangeType type,
+        DeviceResponseDto device,
+        DeviceLabels previous
+) {
+    public static DeviceChangedEvent created(DeviceEntity entity) {
+        return of(entity, DeviceChangeType.CREATED, null);
+    }
+
+    public static DeviceChangedEvent updated(DeviceEntity entity, DeviceLabels previous) {
+        return of(entity, DeviceChangeType.UPDATED, previous);
+    }
+
+    public static DeviceChangedEvent updated(UpdatedDevice updated) {
+        VersionedDeviceDto device = updated.device();
+        return new DeviceChangedEvent(device.device().getId(), device.version(), DeviceChangeType.UPDATED,
+                device.device(), updated.previous());
+    }
+
+    public static DeviceChangedEvent transitioned(VersionedDeviceDto device) {
+        return new DeviceChangedEvent(device.device().getId(), device.version(), DeviceChangeType.UPDATED,
+                device.device(), null);
+    }
+
+    public static DeviceChangedEvent deleted(DeviceEntity entity, DeviceLabels labels) {
+        return new DeviceChangedEvent(entity.getId(), versionOf(entity), DeviceChangeType.DELETED, null, labels);
+    }
+
+    public static DeviceChangedEvent deleted(Long id, DeletedDevice deleted) {
+        return new DeviceChangedEvent(id, deleted.version(), DeviceChangeType.DELETED, null, deleted.labels());
+    }
+
+    private static DeviceChangedEvent of(DeviceEntity entity, DeviceChangeType type, DeviceLabels previous) {
+        return new DeviceChangedEvent(entity.getId(), versionOf(entity), type, DeviceMapper.createDeviceDto(entity),
+                previous);
+    }
+
+    private static long versionOf(DeviceEntity entity) {
+        return entity.getVersion() != null ? entity.getVersion() : 0L;
+    }
+}
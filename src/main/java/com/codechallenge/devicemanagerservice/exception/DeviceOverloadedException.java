@@ -0,0 +1,7 @@
+package com.codechallenge.devicemanagerservice.exception;
+
+public class DeviceOverloadedException extends RuntimeException {
+    public DeviceOverloadedException(String message) {
+        super(message);
+    }
+}
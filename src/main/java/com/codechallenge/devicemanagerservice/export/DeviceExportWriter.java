@@ -0,0 +1,120 @@
+package com.codechallenge.devicemanagerservice.export;
+
+import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceFileFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes exported devices one row at a time. The response is flushed as soon as the export starts and then every
+ * {@link #FLUSH_EVERY} rows, so clients see the first bytes at once and nothing accumulates in memory.
+ */
+public abstract class DeviceExportWriter {
+
+    static final int FLUSH_EVERY = 1000;
+
+    protected final Writer out;
+    private long rows;
+
+    protected DeviceExportWriter(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    public static DeviceExportWriter of(DeviceFileFormat format, OutputStream out, ObjectMapper objectMapper) {
+        return switch (format) {
+            case NDJSON -> new NdjsonWriter(out, objectMapper);
+            case CSV -> new CsvWriter(out);
+        };
+    }
+
+    public void start() throws IOException {
+        writeHeader();
+        out.flush();
+    }
+
+    public void write(DeviceResponseDto device) {
+        try {
+            writeRow(device);
+            if (++rows % FLUSH_EVERY == 0) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finish() throws IOException {
+        out.flush();
+    }
+
+    protected void writeHeader() throws IOException {
+    }
+
+    protected abstract void writeRow(DeviceResponseDto device) throws IOException;
+
+    private static final class NdjsonWriter extends DeviceExportWriter {
+
+        private final ObjectWriter objectWriter;
+
+        private NdjsonWriter(OutputStream out, ObjectMapper objectMapper) {
+            super(out);
+            this.objectWriter = objectMapper.writerFor(DeviceResponseDto.class)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .without(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        }
+
+        @Override
+        protected void writeRow(DeviceResponseDto device) throws IOException {
+            objectWriter.writeValue(out, device);
+            out.write('\n');
+        }
+    }
+
+    private static final class CsvWriter extends DeviceExportWriter {
+
+        private CsvWriter(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        protected void writeHeader() throws IOException {
+            out.write("id,name,brand,state,createdAt,updatedAt\n");
+        }
+
+        @Override
+        protected void writeRow(DeviceResponseDto device) throws IOException {
+            out.write(String.valueOf(device.getId()));
+            out.write(',');
+            out.write(escape(device.getName()));
+            out.write(',');
+            out.write(escape(device.getBrand()));
+            out.write(',');
+            out.write(escape(device.getState()));
+            out.write(',');
+            out.write(device.getCreatedAt() != null ? device.getCreatedAt().toString() : "");
+            out.write(',');
+            out.write(device.getUpdatedAt() != null ? device.getUpdatedAt().toString() : "");
+            out.write('\n');
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                    && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
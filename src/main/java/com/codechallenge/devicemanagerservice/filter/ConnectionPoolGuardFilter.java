@@ -0,0 +1,136 @@
+package com.codechallenge.devicemanagerservice.filter;
+
+import com.codechallenge.devicemanagerservice.dto.ErrorResponseDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lets at most as many requests through as there are pooled connections. The rest wait in a fair queue on the
+ * semaphore, where a parked virtual thread costs next to nothing, and get a 503 once the acquire timeout expires
+ * instead of piling up inside HikariCP until its connection timeout turns them into 500s.
+ * <p>
+ * A request that goes async, like a streamed export, keeps its slot until the async processing completes, since that
+ * is where it holds a connection. Paths that wait without a connection and bound themselves, like the change feed, are
+ * passed through unguarded.
+ */
+public class ConnectionPoolGuardFilter extends OncePerRequestFilter {
+
+    private final Logger logger = LoggerFactory.getLogger(ConnectionPoolGuardFilter.class);
+
+    private final Semaphore permits;
+
+    private final long acquireTimeoutNanos;
+
+    private final List<String> unguardedPaths;
+
+    private final ObjectMapper objectMapper;
+
+    public ConnectionPoolGuardFilter(int permits, Duration acquireTimeout, List<String> unguardedPaths,
+                                     ObjectMapper objectMapper) {
+        this.permits = new Semaphore(permits, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.unguardedPaths = unguardedPaths;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return unguardedPaths.stream().anyMatch(path::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            logger.warn("Rejected {} {}: no free slot within the acquire timeout", request.getMethod(),
+                    request.getRequestURI());
+            reject(response);
+            return;
+        }
+
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                permits.release();
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponseDto(
+                "SERVICE_UNAVAILABLE",
+                "Too many concurrent requests, retry later.",
+                Instant.now(),
+                null
+        ));
+    }
+
+    // the container may report both a timeout or an error and the completion that follows it
+    private final class ReleasingListener implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // the same request going async again keeps its slot
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
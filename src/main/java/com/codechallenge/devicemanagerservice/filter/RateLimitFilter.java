@@ -0,0 +1,135 @@
+package com.codechallenge.devicemanagerservice.filter;
+
+import com.codechallenge.devicemanagerservice.config.DeviceRateLimitProperties;
+import com.codechallenge.devicemanagerservice.dto.ErrorResponseDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Rejects requests before they reach a controller, so one noisy client cannot take the connection pool from everyone
+ * else. Each client gets a read and a write token bucket and is answered with a 429 once the matching bucket is empty.
+ * Independently, while more threads than allowed wait for a pooled connection, every new request is shed with a 503
+ * instead of joining that queue. Both carry a {@code Retry-After}.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final DeviceRateLimitProperties properties;
+
+    // Caffeine reads are lock-free and its writes are striped, and idle clients are evicted
+    private final Cache<String, ClientBudget> clients;
+
+    private final IntSupplier pendingConnections;
+
+    private final LongSupplier nanoTime;
+
+    private final ObjectMapper objectMapper;
+
+    private final Counter throttledReads;
+    private final Counter throttledWrites;
+    private final Counter shed;
+
+    public RateLimitFilter(DeviceRateLimitProperties properties, IntSupplier pendingConnections, LongSupplier nanoTime,
+                           ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.clients = Caffeine.newBuilder()
+                .maximumSize(properties.maximumClients())
+                .expireAfterAccess(properties.clientIdleTimeout())
+                .build();
+        this.pendingConnections = pendingConnections;
+        this.nanoTime = nanoTime;
+        this.objectMapper = objectMapper;
+        this.throttledReads = rejected(meterRegistry, "rate_limited", "read");
+        this.throttledWrites = rejected(meterRegistry, "rate_limited", "write");
+        this.shed = rejected(meterRegistry, "overloaded", "any");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        int pending = pendingConnections.getAsInt();
+        if (pending > properties.maxPendingConnections()) {
+            shed.increment();
+            logger.warn("Shed {} {}: {} threads waiting for a connection", request.getMethod(),
+                    request.getRequestURI(), pending);
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1, "SERVICE_UNAVAILABLE",
+                    "The service is overloaded, retry later.");
+            return;
+        }
+
+        String client = client(request);
+        boolean read = isRead(request);
+        ClientBudget budget = clients.get(client, key -> new ClientBudget(
+                new TokenBucket(properties.readsPerSecond(), properties.readBurst()),
+                new TokenBucket(properties.writesPerSecond(), properties.writeBurst())));
+        long waitNanos = (read ? budget.reads() : budget.writes()).tryAcquire(nanoTime.getAsLong());
+        if (waitNanos > 0) {
+            (read ? throttledReads : throttledWrites).increment();
+            logger.debug("Throttled {} {} for client {}", request.getMethod(), request.getRequestURI(), client);
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds(waitNanos), "TOO_MANY_REQUESTS",
+                    "Request rate limit exceeded, retry later.");
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    // an unknown key falls back to the address, so minting keys does not mint budgets
+    private String client(HttpServletRequest request) {
+        String apiKey = request.getHeader(properties.clientHeader());
+        return apiKey != null && properties.apiKeys().contains(apiKey) ? "key:" + apiKey
+                : "ip:" + request.getRemoteAddr();
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+    }
+
+    private static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1L, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String code,
+                        String message) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponseDto(
+                code,
+                message,
+                Instant.now(),
+                null
+        ));
+    }
+
+    private static Counter rejected(MeterRegistry meterRegistry, String reason, String kind) {
+        return Counter.builder("device.requests.rejected")
+                .tag("reason", reason)
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    private record ClientBudget(TokenBucket reads, TokenBucket writes) {
+    }
+}
@@ -0,0 +1,140 @@
+package com.codechallenge.devicemanagerservice.filter;
+
+import com.codechallenge.devicemanagerservice.metrics.DeviceServerRequestObservationConvention;
+import com.codechallenge.devicemanagerservice.metrics.SqlStatistics;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Records the SQL statements, rows and database time of every request as {@code device.request.sql.*} meters tagged
+ * with the handler method, and optionally returns them as {@code X-SQL-*} response headers written when the response
+ * is committed.
+ * <p>
+ * Only statements run on the request thread are counted. Requests that go async, such as exports streaming their
+ * body and change feed polls, are tagged {@code async=true} and record only what ran before the handler returned;
+ * they get no headers. Creates flushed by the group commit batcher and searches shared from a coalesced read that
+ * another request ran are not counted for the request at all.
+ */
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+
+    public static final String ROWS_HEADER = "X-SQL-Rows";
+
+    public static final String TIME_HEADER = "X-SQL-Time-Ms";
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean responseHeaders;
+
+    public SqlStatisticsFilter(MeterRegistry meterRegistry, boolean responseHeaders) {
+        this.meterRegistry = meterRegistry;
+        this.responseHeaders = responseHeaders;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatistics.start();
+        HeaderWritingResponse headerWriting = responseHeaders ? new HeaderWritingResponse(response, statistics) : null;
+        try {
+            chain.doFilter(request, headerWriting != null ? headerWriting : response);
+        } finally {
+            SqlStatistics.stop();
+            boolean async = request.isAsyncStarted();
+            if (headerWriting != null && !async) {
+                headerWriting.writeHeaders();
+            }
+            record(request, async, statistics);
+        }
+    }
+
+    private void record(HttpServletRequest request, boolean async, SqlStatistics statistics) {
+        String operation = DeviceServerRequestObservationConvention.operation(request);
+        String asyncTag = Boolean.toString(async);
+        DistributionSummary.builder("device.request.sql.statements")
+                .tag("operation", operation)
+                .tag("async", asyncTag)
+                .register(meterRegistry)
+                .record(statistics.statements());
+        DistributionSummary.builder("device.request.sql.rows")
+                .tag("operation", operation)
+                .tag("async", asyncTag)
+                .register(meterRegistry)
+                .record(statistics.rows());
+        Timer.builder("device.request.sql.time")
+                .tag("operation", operation)
+                .tag("async", asyncTag)
+                .register(meterRegistry)
+                .record(statistics.time());
+    }
+
+    private static final class HeaderWritingResponse extends HttpServletResponseWrapper {
+
+        private final SqlStatistics statistics;
+
+        private boolean written;
+
+        HeaderWritingResponse(HttpServletResponse response, SqlStatistics statistics) {
+            super(response);
+            this.statistics = statistics;
+        }
+
+        void writeHeaders() {
+            if (written || isCommitted()) {
+                return;
+            }
+            written = true;
+            setHeader(STATEMENTS_HEADER, Integer.toString(statistics.statements()));
+            setHeader(ROWS_HEADER, Long.toString(statistics.rows()));
+            setHeader(TIME_HEADER, Long.toString(statistics.time().toMillis()));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeaders();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.codechallenge.devicemanagerservice.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket in its GCRA form: the whole state is the time at which the bucket would be full again, advanced by one
+ * emission interval per token with a compare-and-set, so taking a token never locks.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+    TokenBucket(double tokensPerSecond, int burst) {
+        this.intervalNanos = Math.max(1L, (long) (1_000_000_000L / tokensPerSecond));
+        this.toleranceNanos = intervalNanos * (Math.max(burst, 1) - 1L);
+    }
+
+    /**
+     * Takes a token and returns 0, or returns how many nanoseconds to wait until the next token without taking one.
+     */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long start = Math.max(current, nowNanos);
+            long wait = start - nowNanos - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.codechallenge.devicemanagerservice.importer;
+
+import com.codechallenge.devicemanagerservice.dto.DeviceCreateDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceFileFormat;
+import com.codechallenge.devicemanagerservice.exception.InvalidImportException;
+import com.codechallenge.devicemanagerservice.model.DeviceState;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads import rows one at a time. Rows that cannot be parsed are returned with an error instead of failing the
+ * whole import. Both formats accept the files written by the export endpoint; extra fields and columns are ignored.
+ */
+abstract class DeviceImportReader {
+
+    protected final BufferedReader in;
+    protected long line;
+
+    protected DeviceImportReader(InputStream in) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    static DeviceImportReader of(DeviceFileFormat format, InputStream in, ObjectMapper objectMapper) {
+        return switch (format) {
+            case NDJSON -> new NdjsonReader(in, objectMapper);
+            case CSV -> new CsvReader(in);
+        };
+    }
+
+    // null once the input is exhausted
+    abstract DeviceImportRow next() throws IOException;
+
+    private static final class NdjsonReader extends DeviceImportReader {
+
+        private final ObjectReader objectReader;
+
+        private NdjsonReader(InputStream in, ObjectMapper objectMapper) {
+            super(in);
+            this.objectReader = objectMapper.readerFor(DeviceCreateDto.class);
+        }
+
+        @Override
+        DeviceImportRow next() throws IOException {
+            String text;
+            do {
+                text = in.readLine();
+                if (text == null) {
+                    return null;
+                }
+                line++;
+            } while (text.isBlank());
+
+            try {
+                return DeviceImportRow.parsed(line, objectReader.readValue(text));
+            } catch (JsonProcessingException e) {
+                return DeviceImportRow.malformed(line, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private static final class CsvReader extends DeviceImportReader {
+
+        private int nameColumn = -1;
+        private int brandColumn = -1;
+        private int stateColumn = -1;
+        private int requiredColumns;
+        private boolean unterminated;
+
+        private CsvReader(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        DeviceImportRow next() throws IOException {
+            if (nameColumn < 0) {
+                readHeader();
+            }
+            List<String> fields;
+            long start;
+            do {
+                start = line + 1;
+                fields = readRecord();
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.getFirst().isBlank());
+
+            if (unterminated) {
+                return DeviceImportRow.malformed(start, "Unterminated quoted field");
+            }
+            if (fields.size() < requiredColumns) {
+                return DeviceImportRow.malformed(start,
+                        "Expected at least " + requiredColumns + " columns but found " + fields.size());
+            }
+
+            String state = fields.get(stateColumn).trim();
+            try {
+                return DeviceImportRow.parsed(start, new DeviceCreateDto(fields.get(nameColumn),
+                        fields.get(brandColumn), state.isEmpty() ? null : DeviceState.valueOf(state)));
+            } catch (IllegalArgumentException e) {
+                return DeviceImportRow.malformed(start, "Invalid state value: " + state);
+            }
+        }
+
+        private void readHeader() throws IOException {
+            List<String> header = readRecord();
+            if (header != null) {
+                for (int i = 0; i < header.size(); i++) {
+                    switch (header.get(i).trim().toLowerCase(Locale.ROOT)) {
+                        case "name" -> nameColumn = i;
+                        case "brand" -> brandColumn = i;
+                        case "state" -> stateColumn = i;
+                        default -> {
+                        }
+                    }
+                }
+            }
+            if (nameColumn < 0 || brandColumn < 0 || stateColumn < 0) {
+                throw new InvalidImportException("CSV header must contain name, brand and state columns");
+            }
+            requiredColumns = Math.max(nameColumn, Math.max(brandColumn, stateColumn)) + 1;
+        }
+
+        // RFC 4180: quoted fields may contain commas, doubled quotes and line breaks
+        private List<String> readRecord() throws IOException {
+            String text = in.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == text.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    text = in.readLine();
+                    if (text == null) {
+                        unterminated = true;
+                        break;
+                    }
+                    line++;
+                    field.append('\n');
+                    i = 0;
+                    continue;
+                }
+                char c = text.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < text.length() && text.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.codechallenge.devicemanagerservice.importer;
+
+import com.codechallenge.devicemanagerservice.dto.DeviceCreateDto;
+
+// error != null marks a row that could not be parsed; device is then null
+record DeviceImportRow(long line, DeviceCreateDto device, String error) {
+
+    static DeviceImportRow parsed(long line, DeviceCreateDto device) {
+        return new DeviceImportRow(line, device, null);
+    }
+
+    static DeviceImportRow malformed(long line, String error) {
+        return new DeviceImportRow(line, null, error);
+    }
+}
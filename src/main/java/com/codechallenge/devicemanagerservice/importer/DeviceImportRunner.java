@@ -0,0 +1,61 @@
+package com.codechallenge.devicemanagerservice.importer;
+
+import com.codechallenge.devicemanagerservice.config.DeviceImportProperties;
+import com.codechallenge.devicemanagerservice.dto.DeviceFileFormat;
+import com.codechallenge.devicemanagerservice.dto.DeviceImportResponseDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command line import: {@code java -jar app.jar --device.import.file=devices.csv --spring.main.web-application-type=none}.
+ * The format follows the file extension ({@code .csv}, anything else is read as NDJSON); the application exits
+ * once the file is loaded.
+ */
+@Component
+@ConditionalOnProperty(prefix = "device.import", name = "file")
+public class DeviceImportRunner implements ApplicationRunner {
+
+    private final Logger logger = LoggerFactory.getLogger(DeviceImportRunner.class);
+
+    private final DeviceImportService importService;
+
+    private final DeviceImportProperties properties;
+
+    private final ConfigurableApplicationContext context;
+
+    public DeviceImportRunner(DeviceImportService importService, DeviceImportProperties properties,
+                              ConfigurableApplicationContext context) {
+        this.importService = importService;
+        this.properties = properties;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Path file = properties.file();
+        DeviceFileFormat format = file.getFileName().toString().toLowerCase().endsWith(".csv")
+                ? DeviceFileFormat.CSV
+                : DeviceFileFormat.NDJSON;
+
+        DeviceImportResponseDto report;
+        try (InputStream input = Files.newInputStream(file)) {
+            report = importService.importDevices(format, input);
+        }
+        report.rejections().forEach(rejection ->
+                logger.warn("Rejected line {}: {}", rejection.line(), rejection.message()));
+        logger.info("Imported {}: {} accepted, {} rejected, {} rows/s", file, report.accepted(), report.rejected(),
+                Math.round(report.rowsPerSecond()));
+
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
@@ -0,0 +1,206 @@
+package com.codechallenge.devicemanagerservice.importer;
+
+import com.codechallenge.devicemanagerservice.config.DeviceImportProperties;
+import com.codechallenge.devicemanagerservice.dto.DeviceCreateDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceFileFormat;
+import com.codechallenge.devicemanagerservice.dto.DeviceImportResponseDto;
+import com.codechallenge.devicemanagerservice.model.DeviceEntity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.util.PSQLException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Loads devices with {@code COPY ... FROM STDIN}, one auto-committed COPY per chunk. Ids are reserved from
+ * {@code device_table_id_seq} in blocks that follow the pooled allocation Hibernate uses, so imported rows never
+ * collide with ids handed out by running nodes. A chunk the database rejects is split in halves until the failing
+ * rows are isolated and rejected; the remaining rows are still loaded.
+ */
+@Service
+public class DeviceImportService {
+
+    private static final String COPY_SQL = "COPY device_table (id, name, brand, state, created_at, updated_at, version)"
+            + " FROM STDIN WITH (FORMAT csv)";
+
+    private static final String RESERVE_IDS_SQL = "SELECT nextval('device_table_id_seq') FROM generate_series(1, ?)";
+
+    private final Logger logger = LoggerFactory.getLogger(DeviceImportService.class);
+
+    private final DataSource dataSource;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final DeviceImportProperties properties;
+
+    public DeviceImportService(DataSource dataSource, Validator validator, ObjectMapper objectMapper,
+                               DeviceImportProperties properties) {
+        this.dataSource = dataSource;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    public DeviceImportResponseDto importDevices(DeviceFileFormat format, InputStream input) {
+        logger.info("Importing devices from {} input", format);
+        ImportReport report = new ImportReport(properties.maxReportedRejections());
+
+        try (Connection connection = dataSource.getConnection()) {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            DeviceImportReader reader = DeviceImportReader.of(format, input, objectMapper);
+            List<DeviceImportRow> chunk = new ArrayList<>(properties.chunkSize());
+
+            for (DeviceImportRow row = reader.next(); row != null; row = reader.next()) {
+                String error = row.error() != null ? row.error() : validate(row.device());
+                if (error != null) {
+                    report.reject(row.line(), error);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == properties.chunkSize()) {
+                    load(connection, copyManager, chunk, report);
+                    chunk.clear();
+                }
+            }
+            load(connection, copyManager, chunk, report);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Device import failed", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        DeviceImportResponseDto response = report.toResponse();
+        logger.info("Device import finished: {} accepted, {} rejected in {} ms ({} rows/s)", response.accepted(),
+                response.rejected(), response.durationMillis(), Math.round(response.rowsPerSecond()));
+        return response;
+    }
+
+    private String validate(DeviceCreateDto device) {
+        var violations = validator.validate(device);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.joining("; "));
+    }
+
+    private void load(Connection connection, CopyManager copyManager, List<DeviceImportRow> rows,
+                      ImportReport report) throws SQLException, IOException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        copy(copyManager, rows, reserveIds(connection, rows.size()), Instant.now().toString(), report);
+        logger.debug("Imported {} devices so far, {} rejected", report.accepted, report.rejected);
+    }
+
+    private void copy(CopyManager copyManager, List<DeviceImportRow> rows, List<Long> ids, String now,
+                      ImportReport report) throws IOException {
+        try {
+            copyManager.copyIn(COPY_SQL, new StringReader(toCsv(rows, ids, now)));
+            report.accepted += rows.size();
+        } catch (SQLException e) {
+            if (rows.size() == 1) {
+                report.reject(rows.getFirst().line(), databaseMessage(e));
+                return;
+            }
+            int half = rows.size() / 2;
+            copy(copyManager, rows.subList(0, half), ids.subList(0, half), now, report);
+            copy(copyManager, rows.subList(half, rows.size()), ids.subList(half, ids.size()), now, report);
+        }
+    }
+
+    // every nextval v stands for the block max(1, v - ID_ALLOCATION_SIZE + 1)..v, as with Hibernate's pooled optimizer
+    private static List<Long> reserveIds(Connection connection, int count) throws SQLException {
+        List<Long> ids = new ArrayList<>(count + DeviceEntity.ID_ALLOCATION_SIZE);
+        try (PreparedStatement statement = connection.prepareStatement(RESERVE_IDS_SQL)) {
+            while (ids.size() < count) {
+                int missing = count - ids.size();
+                statement.setInt(1, (missing + DeviceEntity.ID_ALLOCATION_SIZE - 1) / DeviceEntity.ID_ALLOCATION_SIZE);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        long hi = resultSet.getLong(1);
+                        for (long id = Math.max(1, hi - DeviceEntity.ID_ALLOCATION_SIZE + 1); id <= hi; id++) {
+                            ids.add(id);
+                        }
+                    }
+                }
+            }
+        }
+        return ids.subList(0, count);
+    }
+
+    private static String toCsv(List<DeviceImportRow> rows, List<Long> ids, String now) {
+        StringBuilder csv = new StringBuilder(rows.size() * 96);
+        for (int i = 0; i < rows.size(); i++) {
+            DeviceCreateDto device = rows.get(i).device();
+            csv.append(ids.get(i)).append(',')
+                    .append(quote(device.getName())).append(',')
+                    .append(quote(device.getBrand())).append(',')
+                    .append(device.getState().name()).append(',')
+                    .append(now).append(',')
+                    .append(now).append(",0\n");
+        }
+        return csv.toString();
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String databaseMessage(SQLException e) {
+        if (e instanceof PSQLException psql && psql.getServerErrorMessage() != null) {
+            return psql.getServerErrorMessage().getMessage();
+        }
+        return e.getMessage();
+    }
+
+    private static final class ImportReport {
+
+        private final long startedAt = System.nanoTime();
+        private final int maxRejections;
+        private final List<DeviceImportResponseDto.Rejection> rejections = new ArrayList<>();
+        private long accepted;
+        private long rejected;
+
+        private ImportReport(int maxRejections) {
+            this.maxRejections = maxRejections;
+        }
+
+        private void reject(long line, String message) {
+            rejected++;
+            if (rejections.size() < maxRejections) {
+                rejections.add(new DeviceImportResponseDto.Rejection(line, message));
+            }
+        }
+
+        private DeviceImportResponseDto toResponse() {
+            long elapsedNanos = Math.max(1, System.nanoTime() - startedAt);
+            double rowsPerSecond = accepted * 1_000_000_000d / elapsedNanos;
+            return new DeviceImportResponseDto(accepted, rejected, elapsedNanos / 1_000_000, rowsPerSecond,
+                    List.copyOf(rejections));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.codechallenge.devicemanagerservice.inventory;
+
+import com.codechallenge.devicemanagerservice.config.DeviceInventoryProperties;
+import com.codechallenge.devicemanagerservice.dto.DeviceInventoryCountDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Device counts per brand and state, read from {@code device_inventory_count}. The triggers on {@code device_table}
+ * keep that table current inside every writing transaction; a periodic reconciliation compares it with a full count
+ * of {@code device_table} in one snapshot and books any difference, so drift from writes that bypassed the triggers
+ * is repaired without blocking writers.
+ */
+@Slf4j
+@Component
+public class DeviceInventory implements SmartLifecycle {
+
+    private static final String COUNTS_SQL = """
+            SELECT brand, state, CAST(SUM(devices) AS bigint) AS devices
+            FROM device_inventory_count
+            WHERE CAST(? AS varchar) IS NULL OR brand = ?
+            GROUP BY brand, state
+            HAVING SUM(devices) <> 0
+            ORDER BY brand, state
+            """;
+
+    private static final String DRIFT_SQL = """
+            SELECT brand, state, COALESCE(actual.devices, 0) - COALESCE(counted.devices, 0) AS devices
+            FROM (SELECT brand, state, count(*) AS devices FROM device_table GROUP BY brand, state) actual
+            FULL JOIN (SELECT brand, state, SUM(devices) AS devices FROM device_inventory_count GROUP BY brand, state)
+                counted USING (brand, state)
+            WHERE COALESCE(actual.devices, 0) <> COALESCE(counted.devices, 0)
+            ORDER BY brand, state
+            """;
+
+    private static final String ADJUST_SQL = """
+            INSERT INTO device_inventory_count AS c (brand, state, slot, devices) VALUES (?, ?, -1, ?)
+            ON CONFLICT (brand, state, slot) DO UPDATE SET devices = c.devices + excluded.devices
+            """;
+
+    // only one node reconciles at a time; the others skip the round
+    private static final String LOCK_SQL = "SELECT pg_try_advisory_xact_lock(hashtext('device_inventory_count'))";
+
+    private static final RowMapper<DeviceInventoryCountDto> COUNT_MAPPER = (row, rowNum) ->
+            new DeviceInventoryCountDto(row.getString("brand"), row.getString("state"), row.getLong("devices"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final DeviceInventoryProperties properties;
+    private final Counter drift;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public DeviceInventory(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           DeviceInventoryProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.properties = properties;
+        this.drift = Counter.builder("device.inventory.drift")
+                .description("Devices the reconciliation had to add to or remove from the inventory counts")
+                .register(meterRegistry);
+    }
+
+    public List<DeviceInventoryCountDto> counts(String brand) {
+        return jdbcTemplate.query(COUNTS_SQL, COUNT_MAPPER, brand, brand);
+    }
+
+    /**
+     * Books the difference between the counters and {@code device_table} and returns it per brand and state. Both
+     * are read in the same snapshot, so writes committing meanwhile are counted by their triggers, not twice.
+     */
+    public List<DeviceInventoryCountDto> reconcile() {
+        List<DeviceInventoryCountDto> corrections = snapshotTransaction.execute(status -> {
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(LOCK_SQL, Boolean.class))) {
+                return List.of();
+            }
+            List<DeviceInventoryCountDto> differences = jdbcTemplate.query(DRIFT_SQL, COUNT_MAPPER);
+            jdbcTemplate.batchUpdate(ADJUST_SQL, differences, differences.size(), (statement, difference) -> {
+                statement.setString(1, difference.brand());
+                statement.setString(2, difference.state());
+                statement.setLong(3, difference.devices());
+            });
+            return differences;
+        });
+        if (corrections != null && !corrections.isEmpty()) {
+            corrections.forEach(correction -> drift.increment(Math.abs(correction.devices())));
+            log.warn("Inventory counts drifted from device_table, corrected {}", corrections);
+        }
+        return corrections;
+    }
+
+    @Override
+    public void start() {
+        if (!properties.reconcile()) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofPlatform().daemon().name("device-inventory-reconcile").start(this::reconcilePeriodically);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void reconcilePeriodically() {
+        while (running) {
+            try {
+                Thread.sleep(properties.reconcileInterval());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                return;
+            }
+            try {
+                reconcile();
+            } catch (DataAccessException e) {
+                log.warn("Could not reconcile the inventory counts, retrying in {}", properties.reconcileInterval(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.codechallenge.devicemanagerservice.metrics;
+
+import com.codechallenge.devicemanagerservice.exception.DeviceNotFoundException;
+import com.codechallenge.devicemanagerservice.exception.DeviceOperationException;
+import com.codechallenge.devicemanagerservice.exception.DeviceUpdateException;
+import com.codechallenge.devicemanagerservice.exception.DeviceVersionMismatchException;
+import com.codechallenge.devicemanagerservice.exception.InvalidCursorException;
+import com.codechallenge.devicemanagerservice.exception.InvalidImportException;
+import com.codechallenge.devicemanagerservice.exception.InvalidSearchException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Times every {@code DeviceService} call as {@code device.service}, tagged with the method as {@code operation} and
+ * with what came of it as {@code outcome}. Next to {@code http.server.requests} and the Hibernate and HikariCP
+ * meters this separates time spent in the service from time spent serializing or waiting for a connection.
+ */
+@Aspect
+@Component
+public class DeviceServiceMetrics {
+
+    public static final String TIMER = "device.service";
+
+    private final MeterRegistry meterRegistry;
+
+    public DeviceServiceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* com.codechallenge.devicemanagerservice.service.DeviceService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = outcome(result);
+            return result;
+        } catch (RuntimeException e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(TIMER)
+                    .tag("operation", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    static String outcome(Object result) {
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? "found" : "not_found";
+        }
+        return "success";
+    }
+
+    static String outcome(RuntimeException e) {
+        return switch (e) {
+            case DeviceNotFoundException ignored -> "not_found";
+            case DeviceOperationException ignored -> "conflict";
+            case DeviceVersionMismatchException ignored -> "conflict";
+            case DeviceUpdateException ignored -> "rejected";
+            case InvalidCursorException ignored -> "rejected";
+            case InvalidImportException ignored -> "rejected";
+            case InvalidSearchException ignored -> "rejected";
+            default -> "error";
+        };
+    }
+}
@@ -0,0 +1,76 @@
+package com.codechallenge.devicemanagerservice.metrics;
+
+import java.time.Duration;
+
+/**
+ * JDBC statements, rows and database time spent by the current thread between {@link #start()} and {@link #stop()}.
+ * Only the calling thread is tracked: statements another thread runs on its behalf are not. Statements are counted
+ * per round trip, so a JDBC batch counts once. Rows are the rows reported by updates, plus the rows read from result
+ * sets when those are proxied.
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+
+    private long rows;
+
+    private long nanos;
+
+    private long statementStartedAt;
+
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs {@code action} on the calling thread and returns what it executed against the database.
+     */
+    public static SqlStatistics capture(Runnable action) {
+        SqlStatistics previous = CURRENT.get();
+        SqlStatistics statistics = start();
+        try {
+            action.run();
+            return statistics;
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    public Duration time() {
+        return Duration.ofNanos(nanos);
+    }
+
+    void beforeStatement() {
+        statementStartedAt = System.nanoTime();
+    }
+
+    void afterStatement(long affectedRows) {
+        statements++;
+        rows += affectedRows;
+        nanos += System.nanoTime() - statementStartedAt;
+    }
+
+    void rowRead() {
+        rows++;
+    }
+}
@@ -17,17 +17,17 @@ import java.time.Instant;
 @NoArgsConstructor
 @Entity
 @EntityListeners(AuditingEntityListener.class)
-@Table(
-        name = "device_table",
-        indexes = {
-                @Index(name = "idx_device_brand", columnList = "brand"),
-                @Index(name = "idx_device_state", columnList = "state")
-        }
-)
+// schema and indexes are managed by the Flyway migrations in db/migration
+@Table(name = "device_table")
 public class DeviceEntity {
 
+    // must match the INCREMENT BY of device_table_id_seq
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "device_id_generator")
+    @SequenceGenerator(name = "device_id_generator", sequenceName = "device_table_id_seq",
+            allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Size(max = 100)
@@ -0,0 +1,13 @@
+package com.codechallenge.devicemanagerservice.model;
+
+/**
+ * The searchable text of a device, kept apart so writes can report what a device was called before they changed it.
+ */
+public record DeviceLabels(
+        String name,
+        String brand
+) {
+    public static DeviceLabels of(DeviceEntity entity) {
+        return new DeviceLabels(entity.getName(), entity.getBrand());
+    }
+}
@@ -0,0 +1,9 @@
+package com.codechallenge.devicemanagerservice.repository;
+
+import com.codechallenge.devicemanagerservice.model.DeviceLabels;
+
+public record DeletedDevice(
+        long version,
+        DeviceLabels labels
+) {
+}
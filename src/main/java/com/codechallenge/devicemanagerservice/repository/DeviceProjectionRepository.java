@@ -0,0 +1,32 @@
+package com.codechallenge.devicemanagerservice.repository;
+
+import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.dto.VersionedDeviceDto;
+import com.codechallenge.devicemanagerservice.model.DeviceEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Read-only queries that select the response columns straight into DTOs, so no entity is hydrated or attached to
+ * the persistence context.
+ */
+public interface DeviceProjectionRepository {
+
+    Optional<VersionedDeviceDto> findDtoById(Long id);
+
+    Page<DeviceResponseDto> findDtos(Specification<DeviceEntity> spec, Pageable pageable);
+
+    Slice<DeviceResponseDto> findDtoSlice(Specification<DeviceEntity> spec, Pageable pageable);
+
+    List<DeviceResponseDto> findDtos(Specification<DeviceEntity> spec, Sort sort, int limit);
+
+    // forward-only server-side cursor ordered by id; must be consumed and closed inside a transaction
+    Stream<DeviceResponseDto> streamDtos(Specification<DeviceEntity> spec, int fetchSize);
+}
@@ -0,0 +1,125 @@
+package com.codechallenge.devicemanagerservice.repository;
+
+import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.dto.VersionedDeviceDto;
+import com.codechallenge.devicemanagerservice.model.DeviceEntity;
+import com.codechallenge.devicemanagerservice.model.DeviceState;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class DeviceProjectionRepositoryImpl implements DeviceProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<VersionedDeviceDto> findDtoById(Long id) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<DeviceEntity> root = query.from(DeviceEntity.class);
+        query.multiselect(root.get("id"), root.get("name"), root.get("brand"), root.get("state"),
+                        root.get("createdAt"), root.get("updatedAt"), root.get("version"))
+                .where(builder.equal(root.get("id"), id));
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .findFirst()
+                .map(row -> {
+                    Long version = row.get(6, Long.class);
+                    DeviceResponseDto device = new DeviceResponseDto(row.get(0, Long.class), row.get(1, String.class),
+                            row.get(2, String.class), row.get(3, DeviceState.class), row.get(4, Instant.class),
+                            row.get(5, Instant.class));
+                    return new VersionedDeviceDto(device, version != null ? version : 0L);
+                });
+    }
+
+    @Override
+    public Page<DeviceResponseDto> findDtos(Specification<DeviceEntity> spec, Pageable pageable) {
+        List<DeviceResponseDto> content = pagedQuery(spec, pageable, pageable.getPageSize()).getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public Slice<DeviceResponseDto> findDtoSlice(Specification<DeviceEntity> spec, Pageable pageable) {
+        List<DeviceResponseDto> rows = pagedQuery(spec, pageable, pageable.getPageSize() + 1).getResultList();
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(rows, pageable, false);
+        }
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    @Override
+    public List<DeviceResponseDto> findDtos(Specification<DeviceEntity> spec, Sort sort, int limit) {
+        return entityManager.createQuery(select(spec, sort))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<DeviceResponseDto> streamDtos(Specification<DeviceEntity> spec, int fetchSize) {
+        return entityManager.createQuery(select(spec, Sort.by("id")))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    private TypedQuery<DeviceResponseDto> pagedQuery(Specification<DeviceEntity> spec, Pageable pageable,
+                                                     int maxResults) {
+        TypedQuery<DeviceResponseDto> query = entityManager.createQuery(select(spec, pageable.getSort()));
+        if (pageable.isPaged()) {
+            query.setFirstResult(Math.toIntExact(pageable.getOffset()));
+            query.setMaxResults(maxResults);
+        }
+        return query;
+    }
+
+    private CriteriaQuery<DeviceResponseDto> select(Specification<DeviceEntity> spec, Sort sort) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DeviceResponseDto> query = builder.createQuery(DeviceResponseDto.class);
+        Root<DeviceEntity> root = query.from(DeviceEntity.class);
+        query.select(builder.construct(DeviceResponseDto.class, root.get("id"), root.get("name"), root.get("brand"),
+                root.get("state"), root.get("createdAt"), root.get("updatedAt")));
+        where(query, root, builder, spec);
+        if (sort.isSorted()) {
+            query.orderBy(toOrders(sort, root, builder));
+        }
+        return query;
+    }
+
+    private long count(Specification<DeviceEntity> spec) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<DeviceEntity> root = query.from(DeviceEntity.class);
+        query.select(builder.count(root));
+        where(query, root, builder, spec);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static void where(CriteriaQuery<?> query, Root<DeviceEntity> root, CriteriaBuilder builder,
+                              Specification<DeviceEntity> spec) {
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, builder) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+}
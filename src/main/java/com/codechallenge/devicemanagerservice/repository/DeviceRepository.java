@@ -3,7 +3,31 @@ package com.codechallenge.devicemanagerservice.repository;
 import com.codechallenge.devicemanagerservice.model.DeviceEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface DeviceRepository extends JpaRepository<DeviceEntity, Long> , JpaSpecificationExecutor<DeviceEntity> {}
+public interface DeviceRepository extends JpaRepository<DeviceEntity, Long> , JpaSpecificationExecutor<DeviceEntity>,
+        DeviceProjectionRepository, DeviceWriteRepository {
+
+    @Query(value = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = to_regclass('device_table')",
+            nativeQuery = true)
+    Long estimateCount();
+
+    @Query("SELECT coalesce(d.version, 0) FROM DeviceEntity d WHERE d.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query(value = "SELECT CAST(COALESCE(SUM(epoch), 0) AS bigint) FROM device_change_epoch", nativeQuery = true)
+    long changeEpoch();
+
+    @Query(value = """
+            EXPLAIN SELECT 1 FROM device_table
+            WHERE (CAST(:brand AS varchar) IS NULL OR brand = :brand)
+              AND (CAST(:state AS varchar) IS NULL OR state = :state)
+            """, nativeQuery = true)
+    List<String> explainSearch(@Param("brand") String brand, @Param("state") String state);
+}
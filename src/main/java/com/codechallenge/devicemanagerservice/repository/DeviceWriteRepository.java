@@ -0,0 +1,36 @@
+package com.codechallenge.devicemanagerservice.repository;
+
+import com.codechallenge.devicemanagerservice.dto.VersionedDeviceDto;
+import com.codechallenge.devicemanagerservice.model.DeviceState;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Single-statement writes that enforce the in-use rules inside the SQL, so no entity has to be read first.
+ */
+public interface DeviceWriteRepository {
+
+    /**
+     * Moves up to {@code limit} devices with an id above {@code afterId} that match the filter to {@code target} in
+     * one statement, bumping version and updated_at. Devices in use and devices already in the target state are left
+     * untouched. Returns the changed rows ordered by id.
+     */
+    List<VersionedDeviceDto> transitionState(String brand, DeviceState state, DeviceState target, long afterId,
+                                             int limit);
+
+    /**
+     * Applies the non-null fields unless the device is in use and name or brand would change, or
+     * {@code expectedVersion} is given and differs from the stored one. Empty when no row matched, either because the
+     * device does not exist or because one of those rules rejected the change. The result carries the name and brand
+     * the row had before the update.
+     */
+    Optional<UpdatedDevice> updateUnlessInUse(Long id, String name, String brand, DeviceState state,
+                                              Long expectedVersion);
+
+    /**
+     * Deletes the device unless it is in use or {@code expectedVersion} is given and differs from the stored one, and
+     * returns the version, name and brand it had. Empty when no row matched.
+     */
+    Optional<DeletedDevice> deleteUnlessInUse(Long id, Long expectedVersion);
+}
@@ -0,0 +1,143 @@
+package com.codechallenge.devicemanagerservice.repository;
+
+import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.dto.VersionedDeviceDto;
+import com.codechallenge.devicemanagerservice.model.DeviceLabels;
+import com.codechallenge.devicemanagerservice.model.DeviceState;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+public class DeviceWriteRepositoryImpl implements DeviceWriteRepository {
+
+    // the chunk is locked in id order, so concurrent transitions cannot deadlock; = ANY(ARRAY(...)) keeps the update
+    // on primary key lookups instead of letting a stale row estimate turn it into a join over the whole table
+    private static final String TRANSITION_STATE_SQL = """
+            UPDATE device_table d
+            SET state = :target, version = d.version + 1, updated_at = now()
+            WHERE d.id = ANY(ARRAY(
+                SELECT id FROM device_table
+                WHERE id > :afterId
+                  AND state <> 'IN_USE'
+                  AND state <> :target
+                  AND (CAST(:brand AS varchar) IS NULL OR brand = :brand)
+                  AND (CAST(:state AS varchar) IS NULL OR state = :state)
+                ORDER BY id
+                LIMIT :limit
+                FOR UPDATE))
+            RETURNING d.id, d.name, d.brand, d.state, d.created_at, d.updated_at, d.version
+            """;
+
+    // the locked sub-select reads the row as it is before the update, so the previous name and brand come back in
+    // the same statement
+    private static final String UPDATE_UNLESS_IN_USE_SQL = """
+            UPDATE device_table d
+            SET name = COALESCE(CAST(:name AS varchar), d.name),
+                brand = COALESCE(CAST(:brand AS varchar), d.brand),
+                state = COALESCE(CAST(:state AS varchar), d.state),
+                version = d.version + 1,
+                updated_at = now()
+            FROM (SELECT id, name, brand FROM device_table WHERE id = :id FOR UPDATE) previous
+            WHERE d.id = previous.id
+              AND (CAST(:expectedVersion AS bigint) IS NULL OR COALESCE(d.version, 0) = CAST(:expectedVersion AS bigint))
+              AND (d.state <> 'IN_USE'
+                   OR (d.name = COALESCE(CAST(:name AS varchar), d.name)
+                       AND d.brand = COALESCE(CAST(:brand AS varchar), d.brand)))
+            RETURNING d.id, d.name, d.brand, d.state, d.created_at, d.updated_at, d.version,
+                      previous.name AS previous_name, previous.brand AS previous_brand
+            """;
+
+    private static final String DELETE_UNLESS_IN_USE_SQL = """
+            DELETE FROM device_table
+            WHERE id = :id
+              AND (CAST(:expectedVersion AS bigint) IS NULL OR COALESCE(version, 0) = CAST(:expectedVersion AS bigint))
+              AND state <> 'IN_USE'
+            RETURNING version, name, brand
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<VersionedDeviceDto> transitionState(String brand, DeviceState state, DeviceState target, long afterId,
+                                                    int limit) {
+        return versionedDevices(entityManager.createNativeQuery(TRANSITION_STATE_SQL)
+                .setParameter("afterId", afterId)
+                .setParameter("target", target.name())
+                .setParameter("brand", brand)
+                .setParameter("state", state != null ? state.name() : null)
+                .setParameter("limit", limit))
+                .stream()
+                .sorted(Comparator.comparingLong(device -> device.device().getId()))
+                .toList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<UpdatedDevice> updateUnlessInUse(Long id, String name, String brand, DeviceState state,
+                                                     Long expectedVersion) {
+        List<Object[]> rows = withDeviceScalars(entityManager.createNativeQuery(UPDATE_UNLESS_IN_USE_SQL)
+                .setParameter("id", id)
+                .setParameter("name", name)
+                .setParameter("brand", brand)
+                .setParameter("state", state != null ? state.name() : null)
+                .setParameter("expectedVersion", expectedVersion))
+                .addScalar("previous_name", StandardBasicTypes.STRING)
+                .addScalar("previous_brand", StandardBasicTypes.STRING)
+                .getResultList();
+        return rows.stream()
+                .findFirst()
+                .map(row -> new UpdatedDevice(versionedDevice(row),
+                        new DeviceLabels((String) row[7], (String) row[8])));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<DeletedDevice> deleteUnlessInUse(Long id, Long expectedVersion) {
+        List<Object[]> rows = entityManager.createNativeQuery(DELETE_UNLESS_IN_USE_SQL)
+                .setParameter("id", id)
+                .setParameter("expectedVersion", expectedVersion)
+                .unwrap(NativeQuery.class)
+                .addScalar("version", StandardBasicTypes.LONG)
+                .addScalar("name", StandardBasicTypes.STRING)
+                .addScalar("brand", StandardBasicTypes.STRING)
+                .getResultList();
+        return rows.stream()
+                .findFirst()
+                .map(row -> new DeletedDevice(row[0] != null ? (Long) row[0] : 0L,
+                        new DeviceLabels((String) row[1], (String) row[2])));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<VersionedDeviceDto> versionedDevices(Query query) {
+        List<Object[]> rows = withDeviceScalars(query).getResultList();
+        return rows.stream()
+                .map(DeviceWriteRepositoryImpl::versionedDevice)
+                .toList();
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static NativeQuery withDeviceScalars(Query query) {
+        return query.unwrap(NativeQuery.class)
+                .addScalar("id", StandardBasicTypes.LONG)
+                .addScalar("name", StandardBasicTypes.STRING)
+                .addScalar("brand", StandardBasicTypes.STRING)
+                .addScalar("state", StandardBasicTypes.STRING)
+                .addScalar("created_at", StandardBasicTypes.INSTANT)
+                .addScalar("updated_at", StandardBasicTypes.INSTANT)
+                .addScalar("version", StandardBasicTypes.LONG);
+    }
+
+    private static VersionedDeviceDto versionedDevice(Object[] row) {
+        return new VersionedDeviceDto(new DeviceResponseDto((Long) row[0], (String) row[1], (String) row[2],
+                (String) row[3], (Instant) row[4], (Instant) row[5]),
+                row[6] != null ? (Long) row[6] : 0L);
+    }
+}
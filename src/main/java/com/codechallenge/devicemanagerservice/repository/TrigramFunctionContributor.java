@@ -0,0 +1,22 @@
+package com.codechallenge.devicemanagerservice.repository;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Makes the pg_trgm word similarity operator available to criteria queries as {@code trgm_word_similar(column,
+ * term)}. The operator, unlike the {@code word_similarity} function, can be answered from a {@code gin_trgm_ops}
+ * index.
+ */
+public class TrigramFunctionContributor implements FunctionContributor {
+
+    public static final String WORD_SIMILAR = "trgm_word_similar";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(WORD_SIMILAR, "(?2 <% ?1)",
+                functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                        .resolve(StandardBasicTypes.BOOLEAN));
+    }
+}
@@ -0,0 +1,10 @@
+package com.codechallenge.devicemanagerservice.repository;
+
+import com.codechallenge.devicemanagerservice.dto.VersionedDeviceDto;
+import com.codechallenge.devicemanagerservice.model.DeviceLabels;
+
+public record UpdatedDevice(
+        VersionedDeviceDto device,
+        DeviceLabels previous
+) {
+}
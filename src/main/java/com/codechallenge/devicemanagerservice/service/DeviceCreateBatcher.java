@@ -0,0 +1,209 @@
+package com.codechallenge.devicemanagerservice.service;
+
+import com.codechallenge.devicemanagerservice.config.DeviceGroupCommitProperties;
+import com.codechallenge.devicemanagerservice.dto.DeviceCreateDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.event.DeviceChangedEvent;
+import com.codechallenge.devicemanagerservice.exception.DeviceOverloadedException;
+import com.codechallenge.devicemanagerservice.mapper.DeviceMapper;
+import com.codechallenge.devicemanagerservice.model.DeviceEntity;
+import com.codechallenge.devicemanagerservice.repository.DeviceRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit for {@link DeviceService#save}: concurrent creates are queued and a single flusher thread writes them
+ * in one transaction, so they share one multi-row insert and one commit instead of paying for a commit each. The
+ * flusher takes whatever is queued, waits up to {@code maxLinger} for more and writes at most {@code maxBatchSize}
+ * rows at a time. A batch the database rejects for a constraint is split in halves until the failing rows are
+ * isolated; those callers get the error they would have got alone, the rest are still created.
+ */
+@Component
+public class DeviceCreateBatcher implements SmartLifecycle {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(DeviceCreateBatcher.class);
+
+    private final DeviceRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final DeviceGroupCommitProperties properties;
+    private final BlockingQueue<PendingCreate> queue;
+    private final DistributionSummary batchSize;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public DeviceCreateBatcher(DeviceRepository repository, ApplicationEventPublisher eventPublisher,
+                               TransactionTemplate transactionTemplate, DeviceGroupCommitProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.batchSize = DistributionSummary.builder("device.group_commit.batch.size")
+                .description("Devices written per group-commit transaction")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the create and waits until the batch holding it is committed. A full queue, or a batcher that is
+     * stopping, is rejected straight away. A create still queued after {@code maxWait} is withdrawn and rejected; one
+     * that is already being written by then is rejected as well, but may still be committed.
+     */
+    public DeviceResponseDto create(DeviceCreateDto dto) {
+        PendingCreate pending = new PendingCreate(dto, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            throw new DeviceOverloadedException("Too many devices waiting to be created, retry later.");
+        }
+        try {
+            return pending.result().get(properties.maxWait().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw timedOut(pending);
+        } catch (TimeoutException e) {
+            throw timedOut(pending);
+        }
+    }
+
+    private DeviceOverloadedException timedOut(PendingCreate pending) {
+        if (queue.remove(pending)) {
+            return new DeviceOverloadedException("Too many devices waiting to be created, retry later.");
+        }
+        logger.warn("Gave up waiting for a create that is already being written");
+        return new DeviceOverloadedException("Device creation is taking too long, check before retrying.");
+    }
+
+    @Override
+    public void start() {
+        if (!properties.enabled()) {
+            return;
+        }
+        running = true;
+        flusher = Thread.ofPlatform().daemon().name("device-create-flusher").start(this::flushContinuously);
+    }
+
+    // the flusher notices within one idle poll or linger and writes what is still queued before it exits; it is not
+    // interrupted, which would break the JDBC connection of a batch being written
+    @Override
+    public void stop() {
+        running = false;
+        if (flusher != null) {
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // starts before and stops after the web server, so no request can queue a create once the flusher has finished
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void flushContinuously() {
+        while (running || !queue.isEmpty()) {
+            try {
+                List<PendingCreate> batch = nextBatch();
+                if (!batch.isEmpty()) {
+                    batchSize.record(batch.size());
+                    write(batch);
+                }
+            } catch (InterruptedException e) {
+                // nothing of ours interrupts the flusher; keep draining so no caller is left waiting
+                Thread.interrupted();
+            } catch (RuntimeException e) {
+                logger.error("Group commit flusher failed", e);
+            }
+        }
+    }
+
+    private List<PendingCreate> nextBatch() throws InterruptedException {
+        List<PendingCreate> batch = new ArrayList<>(properties.maxBatchSize());
+        PendingCreate first = running ? queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS) : queue.poll();
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + properties.maxLinger().toNanos();
+        while (batch.size() < properties.maxBatchSize()) {
+            queue.drainTo(batch, properties.maxBatchSize() - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= properties.maxBatchSize() || remaining <= 0 || !running) {
+                break;
+            }
+            PendingCreate next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void write(List<PendingCreate> batch) {
+        List<DeviceResponseDto> created;
+        try {
+            created = transactionTemplate.execute(status -> {
+                List<DeviceEntity> entities = repository.saveAll(batch.stream()
+                        .map(pending -> DeviceMapper.createDeviceEntity(pending.device()))
+                        .toList());
+                repository.flush();
+                entities.forEach(entity -> eventPublisher.publishEvent(DeviceChangedEvent.created(entity)));
+                return entities.stream().map(DeviceMapper::createDeviceDto).toList();
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() == 1) {
+                batch.getFirst().result().completeExceptionally(e);
+                return;
+            }
+            // a constraint failure belongs to some rows; anything else would fail the halves just the same
+            int half = batch.size() / 2;
+            write(batch.subList(0, half));
+            write(batch.subList(half, batch.size()));
+            return;
+        } catch (RuntimeException e) {
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+            return;
+        }
+
+        logger.info("Group commit created {} devices", created.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(created.get(i));
+        }
+    }
+
+    private record PendingCreate(DeviceCreateDto device, CompletableFuture<DeviceResponseDto> result) {
+    }
+}
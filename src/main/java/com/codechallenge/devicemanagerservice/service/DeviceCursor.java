@@ -0,0 +1,82 @@
+package com.codechallenge.devicemanagerservice.service;
+
+import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.exception.InvalidCursorException;
+import com.codechallenge.devicemanagerservice.model.DeviceState;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Position of a keyset page: the sort key and direction plus the (sort value, id) of the last row returned, bound to
+ * a hash of the brand/state filter it was issued for, since the same position means something else under another
+ * filter. Clients only ever see the opaque {@link #encode() encoded} form.
+ */
+public record DeviceCursor(DeviceSortKey key, Sort.Direction direction, String filter, String value, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static DeviceCursor first(Sort sort, String brand, DeviceState state) {
+        Sort.Order order = sort.stream()
+                .findFirst()
+                .orElse(Sort.Order.asc(DeviceSortKey.ID.property()));
+        return new DeviceCursor(DeviceSortKey.fromProperty(order.getProperty()), order.getDirection(),
+                filter(brand, state), null, null);
+    }
+
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    public DeviceCursor next(DeviceResponseDto last) {
+        return new DeviceCursor(key, direction, filter, key.valueOf(last), last.getId());
+    }
+
+    public Sort sort() {
+        Sort sort = Sort.by(direction, key.property());
+        return key == DeviceSortKey.ID ? sort : sort.and(Sort.by(direction, DeviceSortKey.ID.property()));
+    }
+
+    public String encode() {
+        String raw = key.name() + SEPARATOR + direction.name() + SEPARATOR + filter + SEPARATOR + id + SEPARATOR
+                + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor and checks that it was issued for the same brand/state filter.
+     */
+    public static DeviceCursor decode(String token, String brand, DeviceState state) {
+        DeviceCursor cursor = decode(token);
+        if (!cursor.filter.equals(filter(brand, state))) {
+            throw new InvalidCursorException("Cursor belongs to a different brand/state filter");
+        }
+        return cursor;
+    }
+
+    static DeviceCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 5);
+            if (parts.length != 5) {
+                throw new InvalidCursorException("Malformed cursor");
+            }
+            DeviceSortKey key = DeviceSortKey.valueOf(parts[0]);
+            if (key == DeviceSortKey.CREATED_AT) {
+                Instant.parse(parts[4]);
+            }
+            return new DeviceCursor(key, Sort.Direction.valueOf(parts[1]), parts[2], parts[4], Long.valueOf(parts[3]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+
+    // String hash codes are specified, so the hash is the same on every node and after a restart
+    private static String filter(String brand, DeviceState state) {
+        return Integer.toHexString(Objects.hash(brand, state != null ? state.name() : null));
+    }
+}
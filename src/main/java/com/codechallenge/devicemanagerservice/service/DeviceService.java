@@ -1,25 +1,71 @@
 package com.codechallenge.devicemanagerservice.service;
 
+import com.codechallenge.devicemanagerservice.dto.DeviceBatchRequestDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceBatchResponseDto;
 import com.codechallenge.devicemanagerservice.dto.DeviceCreateDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceInventoryDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceMatchMode;
 import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceStateTransitionDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceSuggestionsDto;
 import com.codechallenge.devicemanagerservice.dto.DeviceUpdateDto;
+import com.codechallenge.devicemanagerservice.dto.VersionedDeviceDto;
 import com.codechallenge.devicemanagerservice.model.DeviceState;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface DeviceService {
 
+    // PREFIX, CONTAINS and SIMILAR searches rank, page and count at most this many matches
+    int MAX_RANKED_MATCHES = 1000;
+
     DeviceResponseDto save(DeviceCreateDto dto);
 
     DeviceResponseDto updateDevice(Long id, DeviceUpdateDto dto);
 
-    Page<DeviceResponseDto> getAllDevice(Pageable pageable);
+    VersionedDeviceDto updateDevice(Long id, DeviceUpdateDto dto, Long expectedVersion);
+
+    Page<DeviceResponseDto> getAllDevice(Pageable pageable, long epoch);
+
+    Slice<DeviceResponseDto> getAllDeviceSlice(Pageable pageable, long epoch);
 
     Optional<DeviceResponseDto> getById(Long id);
 
+    Optional<VersionedDeviceDto> getVersionedById(Long id);
+
+    Optional<Long> getVersion(Long id);
+
+    long getChangeEpoch();
+
     void deleteDevice(Long id);
 
-    Page<DeviceResponseDto> findDevices(String brand, DeviceState state, Pageable pageable);
+    void deleteDevice(Long id, Long expectedVersion);
+
+    Page<DeviceResponseDto> findDevices(String brand, DeviceState state, Pageable pageable, long epoch);
+
+    Slice<DeviceResponseDto> findDevicesSlice(String brand, DeviceState state, Pageable pageable, long epoch);
+
+    Page<DeviceResponseDto> findMatchingDevices(String name, String brand, DeviceMatchMode match, DeviceState state,
+                                                Pageable pageable);
+
+    Slice<DeviceResponseDto> findMatchingDevicesSlice(String name, String brand, DeviceMatchMode match,
+                                                      DeviceState state, Pageable pageable);
+
+    long estimateDevices(String brand, DeviceState state);
+
+    DeviceSuggestionsDto suggest(String prefix, int limit);
+
+    DeviceInventoryDto getInventory(String brand);
+
+    Slice<DeviceResponseDto> findDevicesAfter(String brand, DeviceState state, DeviceCursor cursor, int size);
+
+    long exportDevices(String brand, DeviceState state, Consumer<DeviceResponseDto> consumer);
+
+    DeviceBatchResponseDto applyBatch(DeviceBatchRequestDto request);
+
+    long transitionState(DeviceStateTransitionDto request);
 }
@@ -1,118 +1,509 @@
 package com.codechallenge.devicemanagerservice.service;
 
+import com.codechallenge.devicemanagerservice.cache.CachedDevice;
+import com.codechallenge.devicemanagerservice.cache.DeviceCache;
+import com.codechallenge.devicemanagerservice.concurrency.DeviceReadCoalescer;
+import com.codechallenge.devicemanagerservice.dto.DeviceBatchItemResultDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceBatchItemResultDto.Operation;
+import com.codechallenge.devicemanagerservice.dto.DeviceBatchRequestDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceBatchResponseDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceBatchUpdateDto;
 import com.codechallenge.devicemanagerservice.dto.DeviceCreateDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceInventoryDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceMatchMode;
 import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceStateTransitionDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceSuggestionsDto;
 import com.codechallenge.devicemanagerservice.dto.DeviceUpdateDto;
+import com.codechallenge.devicemanagerservice.dto.VersionedDeviceDto;
+import com.codechallenge.devicemanagerservice.event.DeviceChangedEvent;
 import com.codechallenge.devicemanagerservice.exception.DeviceNotFoundException;
 import com.codechallenge.devicemanagerservice.exception.DeviceOperationException;
 import com.codechallenge.devicemanagerservice.exception.DeviceUpdateException;
+import com.codechallenge.devicemanagerservice.exception.DeviceVersionMismatchException;
+import com.codechallenge.devicemanagerservice.exception.InvalidSearchException;
+import com.codechallenge.devicemanagerservice.inventory.DeviceInventory;
 import com.codechallenge.devicemanagerservice.mapper.DeviceMapper;
 import com.codechallenge.devicemanagerservice.model.DeviceEntity;
+import com.codechallenge.devicemanagerservice.model.DeviceLabels;
 import com.codechallenge.devicemanagerservice.model.DeviceState;
+import com.codechallenge.devicemanagerservice.repository.DeletedDevice;
 import com.codechallenge.devicemanagerservice.repository.DeviceRepository;
+import com.codechallenge.devicemanagerservice.repository.UpdatedDevice;
+import com.codechallenge.devicemanagerservice.suggest.DeviceSuggestionIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class DeviceServiceImpl implements DeviceService {
 
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    static final int EXPORT_FETCH_SIZE = 500;
+
+    // shorter terms have too few trigrams for the GIN indexes to narrow the search down
+    static final int MIN_MATCH_TERM_LENGTH = 3;
+
+    static final int STATE_TRANSITION_CHUNK_SIZE = 5000;
+
+    static final int MAX_SUGGESTIONS = 50;
+
     private final Logger logger = LoggerFactory.getLogger(DeviceServiceImpl.class);
 
     private final DeviceRepository repository;
 
-    public DeviceServiceImpl(DeviceRepository repository) {
+    private final DeviceCache deviceCache;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final DeviceSuggestionIndex suggestionIndex;
+
+    private final DeviceInventory inventory;
+
+    private final DeviceReadCoalescer coalescer;
+
+    private final DeviceCreateBatcher createBatcher;
+
+    public DeviceServiceImpl(DeviceRepository repository, DeviceCache deviceCache,
+                             ApplicationEventPublisher eventPublisher, TransactionTemplate transactionTemplate,
+                             DeviceSuggestionIndex suggestionIndex, DeviceInventory inventory,
+                             DeviceReadCoalescer coalescer, DeviceCreateBatcher createBatcher) {
         this.repository = repository;
+        this.deviceCache = deviceCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.suggestionIndex = suggestionIndex;
+        this.inventory = inventory;
+        this.coalescer = coalescer;
+        this.createBatcher = createBatcher;
     }
 
+    // with group commit the caller waits for the batch without holding a connection, so the transaction is opened
+    // here rather than around the method
     @Override
     public DeviceResponseDto save(DeviceCreateDto dto) {
-        var entity = repository.save(DeviceMapper.createDeviceEntity(dto));
-        logger.info("Device created with ID: {}", entity.getId());
-        return DeviceMapper.createDeviceDto(entity);
+        if (createBatcher.isRunning()) {
+            return createBatcher.create(dto);
+        }
+        return transactionTemplate.execute(status -> {
+            var entity = repository.save(DeviceMapper.createDeviceEntity(dto));
+            logger.info("Device created with ID: {}", entity.getId());
+            eventPublisher.publishEvent(DeviceChangedEvent.created(entity));
+            return DeviceMapper.createDeviceDto(entity);
+        });
     }
 
     @Transactional
     @Override
     public DeviceResponseDto updateDevice(Long id, DeviceUpdateDto dto) {
-        var existing = repository.findById(id)
-                .orElseThrow(() -> new DeviceNotFoundException(id));
+        return updateDevice(id, dto, null).device();
+    }
 
-        if (existing.getState() == DeviceState.IN_USE) {
-            if ((dto.getName() != null && !dto.getName().equals(existing.getName())) ||
-                    (dto.getBrand() != null && !dto.getBrand().equals(existing.getBrand()))) {
-                throw new DeviceUpdateException(
-                        "Cannot update name or brand when device is in use."
-                );
-            }
-        }
+    // the in-use and version rules are part of the UPDATE; the reason is looked up only when no row matched
+    @Transactional
+    @Override
+    public VersionedDeviceDto updateDevice(Long id, DeviceUpdateDto dto, Long expectedVersion) {
+        UpdatedDevice updated = repository.updateUnlessInUse(id, dto.getName(), dto.getBrand(), dto.getState(),
+                        expectedVersion)
+                .orElseThrow(() -> rejection(id, expectedVersion,
+                        () -> new DeviceUpdateException("Cannot update name or brand when device is in use.")));
+        eventPublisher.publishEvent(DeviceChangedEvent.updated(updated));
 
-        if (dto.getName() != null) existing.setName(dto.getName());
-        if (dto.getBrand() != null) existing.setBrand(dto.getBrand());
-        if (dto.getState() != null) {
-            try {
-                existing.setState(dto.getState());
-            } catch (IllegalArgumentException e) {
-                throw new DeviceUpdateException("Invalid state value: " + dto.getState());
-            }
+        return updated.device();
+    }
+
+    @Override
+    public Optional<DeviceResponseDto> getById(Long id) {
+        return getVersionedById(id).map(VersionedDeviceDto::device);
+    }
+
+    @Override
+    public Optional<VersionedDeviceDto> getVersionedById(Long id) {
+        CachedDevice cached = deviceCache.get(id);
+        if (cached != null) {
+            return cached.asOptional().map(device -> new VersionedDeviceDto(device, cached.version()));
         }
 
-        existing.setUpdatedAt(Instant.now());
-        DeviceEntity saved = repository.save(existing);
+        return coalescer.getById(id, () -> {
+            Optional<VersionedDeviceDto> found = repository.findDtoById(id);
+            found.ifPresent(device -> deviceCache.put(device.device(), device.version()));
+            return found;
+        });
+    }
+
+    @Override
+    public Optional<Long> getVersion(Long id) {
+        CachedDevice cached = deviceCache.get(id);
+        if (cached != null) {
+            return cached.asOptional().map(device -> cached.version());
+        }
+        return repository.findVersionById(id);
+    }
 
-        return DeviceMapper.createDeviceDto(saved);
+    @Override
+    public long getChangeEpoch() {
+        return repository.changeEpoch();
     }
 
     @Override
-    public Optional<DeviceResponseDto> getById(Long id) {
-        return repository.findById(id)
-                .map(DeviceMapper::createDeviceDto);
+    public Page<DeviceResponseDto> getAllDevice(Pageable pageable, long epoch) {
+        return coalescer.findDevices(null, null, pageable, epoch, () -> repository.findDtos(null, pageable));
     }
 
-    @Transactional(readOnly = true)
     @Override
-    public Page<DeviceResponseDto> getAllDevice(Pageable pageable) {
-        return repository.findAll(pageable)
-                .map(DeviceMapper::createDeviceDto);
+    public Slice<DeviceResponseDto> getAllDeviceSlice(Pageable pageable, long epoch) {
+        return coalescer.findDevicesSlice(null, null, pageable, epoch, () -> repository.findDtoSlice(null, pageable));
     }
 
     @Transactional
     @Override
     public void deleteDevice(Long id) {
-        logger.info("Attempting to delete device with ID: {}", id);
-        DeviceEntity device = repository.findById(id)
-                .orElseThrow(() -> {
-                    logger.error("Device with ID {} not found", id);
-                    return new DeviceNotFoundException(id);
-                });
+        deleteDevice(id, null);
+    }
 
-        if (device.getState() == DeviceState.IN_USE) {
-            logger.warn("Cannot delete device with ID {}: device is in use", id);
-            throw new DeviceOperationException("Cannot delete device in use");
-        }
+    @Transactional
+    @Override
+    public void deleteDevice(Long id, Long expectedVersion) {
+        logger.info("Attempting to delete device with ID: {}", id);
+        DeletedDevice deleted = repository.deleteUnlessInUse(id, expectedVersion)
+                .orElseThrow(() -> rejection(id, expectedVersion, () -> {
+                    logger.warn("Cannot delete device with ID {}: device is in use", id);
+                    return new DeviceOperationException("Cannot delete device in use");
+                }));
 
-        repository.delete(device);
+        eventPublisher.publishEvent(DeviceChangedEvent.deleted(id, deleted));
         logger.info("Device with ID {} deleted successfully", id);
     }
 
-    @Transactional(readOnly = true)
+    // identical searches running at the same time share one query; the coalescer opens the read-only transaction and
+    // only shares it between callers that read the same change epoch
     @Override
-    public Page<DeviceResponseDto> findDevices(String brand, DeviceState state, Pageable pageable) {
+    public Page<DeviceResponseDto> findDevices(String brand, DeviceState state, Pageable pageable, long epoch) {
         logger.info("Searching devices with brand='{}' and state='{}'", brand, state);
 
         String stateName = state != null ? state.name() : null;
         Specification<DeviceEntity> spec = DeviceSpecification.searchBy(brand, stateName);
 
-        Page<DeviceEntity> page = repository.findAll(spec, pageable);
-        return page.map(DeviceMapper::createDeviceDto);
+        return coalescer.findDevices(brand, state, pageable, epoch, () -> repository.findDtos(spec, pageable));
     }
 
+    @Override
+    public Slice<DeviceResponseDto> findDevicesSlice(String brand, DeviceState state, Pageable pageable, long epoch) {
+        logger.info("Searching devices without count with brand='{}' and state='{}'", brand, state);
 
+        String stateName = state != null ? state.name() : null;
+        Specification<DeviceEntity> spec = DeviceSpecification.searchBy(brand, stateName);
+
+        return coalescer.findDevicesSlice(brand, state, pageable, epoch, () -> repository.findDtoSlice(spec, pageable));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Page<DeviceResponseDto> findMatchingDevices(String name, String brand, DeviceMatchMode match,
+                                                       DeviceState state, Pageable pageable) {
+        logger.info("Searching devices matching name='{}' and brand='{}' ({}) with state='{}'", name, brand, match,
+                state);
+
+        return repository.findDtos(matchingSpec(name, brand, match, state), pageable);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Slice<DeviceResponseDto> findMatchingDevicesSlice(String name, String brand, DeviceMatchMode match,
+                                                             DeviceState state, Pageable pageable) {
+        logger.info("Searching devices without count matching name='{}' and brand='{}' ({}) with state='{}'", name,
+                brand, match, state);
+
+        return repository.findDtoSlice(matchingSpec(name, brand, match, state), pageable);
+    }
+
+    // answered from memory, so it never opens a transaction or touches the pool
+    @Override
+    public DeviceSuggestionsDto suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new InvalidSearchException("prefix must not be blank");
+        }
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new InvalidSearchException("limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        return suggestionIndex.suggest(prefix.strip(), limit);
+    }
+
+    // the triggers on device_table keep these counters, so this reads a few rows instead of counting the table
+    @Override
+    public DeviceInventoryDto getInventory(String brand) {
+        String brandFilter = brand != null && !brand.isBlank() ? brand : null;
+        return DeviceInventoryDto.of(inventory.counts(brandFilter));
+    }
+
+    private static Specification<DeviceEntity> matchingSpec(String name, String brand, DeviceMatchMode match,
+                                                            DeviceState state) {
+        String nameTerm = name != null && !name.isBlank() ? name.strip() : null;
+        String brandTerm = brand != null && !brand.isBlank() ? brand.strip() : null;
+        if (match != DeviceMatchMode.EXACT) {
+            if (nameTerm == null && brandTerm == null) {
+                throw new InvalidSearchException(match + " search needs a name or brand");
+            }
+            if ((nameTerm != null && nameTerm.length() < MIN_MATCH_TERM_LENGTH)
+                    || (brandTerm != null && brandTerm.length() < MIN_MATCH_TERM_LENGTH)) {
+                throw new InvalidSearchException(match + " search terms need at least " + MIN_MATCH_TERM_LENGTH
+                        + " characters");
+            }
+        }
+
+        Specification<DeviceEntity> spec = DeviceSpecification.searchBy(null, state != null ? state.name() : null)
+                .and(DeviceSpecification.matching(nameTerm, brandTerm, match));
+        return match == DeviceMatchMode.EXACT
+                ? spec
+                : DeviceSpecification.amongFirstMatches(spec, MAX_RANKED_MATCHES)
+                        .and(DeviceSpecification.rankedBySimilarity(nameTerm, brandTerm, match));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public long estimateDevices(String brand, DeviceState state) {
+        String brandFilter = brand != null && !brand.isBlank() ? brand : null;
+        String stateName = state != null ? state.name() : null;
+
+        if (brandFilter == null && stateName == null) {
+            Long estimate = repository.estimateCount();
+            if (estimate != null && estimate >= 0) {
+                return estimate;
+            }
+            return repository.count();
+        }
+
+        List<String> plan = repository.explainSearch(brandFilter, stateName);
+        Matcher rows = PLAN_ROWS.matcher(plan.isEmpty() ? "" : plan.get(0));
+        if (rows.find()) {
+            return Long.parseLong(rows.group(1));
+        }
+        return repository.count(DeviceSpecification.searchBy(brandFilter, stateName));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Slice<DeviceResponseDto> findDevicesAfter(String brand, DeviceState state, DeviceCursor cursor, int size) {
+        logger.info("Searching devices with brand='{}' and state='{}' after cursor {}", brand, state, cursor);
+
+        String stateName = state != null ? state.name() : null;
+        Specification<DeviceEntity> spec = DeviceSpecification.searchBy(brand, stateName)
+                .and(DeviceSpecification.after(cursor));
+
+        List<DeviceResponseDto> rows = repository.findDtos(spec, cursor.sort(), size + 1);
+        boolean hasNext = rows.size() > size;
+        List<DeviceResponseDto> content = hasNext ? rows.subList(0, size) : rows;
+        return new SliceImpl<>(content, PageRequest.of(0, size, cursor.sort()), hasNext);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public long exportDevices(String brand, DeviceState state, Consumer<DeviceResponseDto> consumer) {
+        logger.info("Exporting devices with brand='{}' and state='{}'", brand, state);
+
+        String stateName = state != null ? state.name() : null;
+        long exported = 0;
+        try (Stream<DeviceResponseDto> devices = repository.streamDtos(DeviceSpecification.searchBy(brand, stateName),
+                EXPORT_FETCH_SIZE)) {
+            Iterator<DeviceResponseDto> iterator = devices.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                exported++;
+            }
+        }
+        logger.info("Exported {} devices", exported);
+        return exported;
+    }
+
+    @Transactional
+    @Override
+    public DeviceBatchResponseDto applyBatch(DeviceBatchRequestDto request) {
+        List<DeviceCreateDto> creates = emptyIfNull(request.getCreate());
+        List<DeviceBatchUpdateDto> updates = emptyIfNull(request.getUpdate());
+        List<Long> deletes = emptyIfNull(request.getDelete());
+        logger.info("Applying device batch: {} creates, {} updates, {} deletes",
+                creates.size(), updates.size(), deletes.size());
+
+        List<DeviceBatchItemResultDto> results = new ArrayList<>(creates.size() + updates.size() + deletes.size());
+
+        List<DeviceEntity> created = repository.saveAll(creates.stream()
+                .map(DeviceMapper::createDeviceEntity)
+                .toList());
+        for (int i = 0; i < created.size(); i++) {
+            DeviceEntity entity = created.get(i);
+            results.add(DeviceBatchItemResultDto.succeeded(Operation.CREATE, i, entity.getId(),
+                    DeviceMapper.createDeviceDto(entity)));
+        }
+
+        List<Long> ids = Stream.concat(updates.stream().map(DeviceBatchUpdateDto::getId), deletes.stream())
+                .distinct()
+                .toList();
+        Map<Long, DeviceEntity> existing = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(DeviceEntity::getId, Function.identity()));
+
+        Map<Long, DeviceEntity> updated = new LinkedHashMap<>();
+        Map<Long, DeviceLabels> previous = new HashMap<>();
+        for (int i = 0; i < updates.size(); i++) {
+            DeviceBatchUpdateDto dto = updates.get(i);
+            DeviceEntity entity = existing.get(dto.getId());
+            if (entity == null) {
+                results.add(DeviceBatchItemResultDto.failed(Operation.UPDATE, i, dto.getId(),
+                        "DEVICE_NOT_FOUND", new DeviceNotFoundException(dto.getId()).getMessage()));
+                continue;
+            }
+            try {
+                previous.putIfAbsent(entity.getId(), DeviceLabels.of(entity));
+                applyUpdate(entity, dto);
+                updated.put(entity.getId(), entity);
+                results.add(DeviceBatchItemResultDto.succeeded(Operation.UPDATE, i, entity.getId(),
+                        DeviceMapper.createDeviceDto(entity)));
+            } catch (DeviceUpdateException e) {
+                results.add(DeviceBatchItemResultDto.failed(Operation.UPDATE, i, dto.getId(),
+                        "DEVICE_UPDATE_ERROR", e.getMessage()));
+            }
+        }
+
+        List<DeviceEntity> toDelete = new ArrayList<>();
+        Set<Long> deleted = new HashSet<>();
+        for (int i = 0; i < deletes.size(); i++) {
+            Long id = deletes.get(i);
+            DeviceEntity entity = existing.get(id);
+            if (entity == null || deleted.contains(id)) {
+                results.add(DeviceBatchItemResultDto.failed(Operation.DELETE, i, id,
+                        "DEVICE_NOT_FOUND", new DeviceNotFoundException(id).getMessage()));
+                continue;
+            }
+            try {
+                ensureDeletable(entity);
+                toDelete.add(entity);
+                deleted.add(id);
+                results.add(DeviceBatchItemResultDto.succeeded(Operation.DELETE, i, id, null));
+            } catch (DeviceOperationException e) {
+                results.add(DeviceBatchItemResultDto.failed(Operation.DELETE, i, id,
+                        "DEVICE_OPERATION_ERROR", e.getMessage()));
+            }
+        }
+        repository.deleteAll(toDelete);
+        repository.flush();
+        toDelete.forEach(entity -> updated.remove(entity.getId()));
+
+        created.forEach(entity -> eventPublisher.publishEvent(DeviceChangedEvent.created(entity)));
+        updated.values().forEach(entity -> eventPublisher.publishEvent(
+                DeviceChangedEvent.updated(entity, previous.get(entity.getId()))));
+        toDelete.forEach(entity -> eventPublisher.publishEvent(
+                DeviceChangedEvent.deleted(entity, previous.getOrDefault(entity.getId(), DeviceLabels.of(entity)))));
+
+        DeviceBatchResponseDto response = DeviceBatchResponseDto.of(results);
+        logger.info("Device batch applied: {} succeeded, {} failed", response.succeeded(), response.failed());
+        return response;
+    }
+
+    // each chunk commits on its own so row locks are held briefly; a failure keeps the chunks already committed
+    @Override
+    public long transitionState(DeviceStateTransitionDto request) {
+        if (request.getState() == DeviceState.IN_USE) {
+            throw new DeviceOperationException("Cannot change the state of devices in use in bulk");
+        }
+        String brand = request.getBrand() != null && !request.getBrand().isBlank() ? request.getBrand() : null;
+        logger.info("Moving devices with brand='{}' and state='{}' to {}", brand, request.getState(),
+                request.getTargetState());
+
+        long affected = 0;
+        long afterId = 0;
+        List<VersionedDeviceDto> chunk;
+        do {
+            long from = afterId;
+            chunk = transactionTemplate.execute(status -> {
+                List<VersionedDeviceDto> changed = repository.transitionState(brand, request.getState(),
+                        request.getTargetState(), from, STATE_TRANSITION_CHUNK_SIZE);
+                changed.forEach(device -> eventPublisher.publishEvent(DeviceChangedEvent.transitioned(device)));
+                return changed;
+            });
+            affected += chunk.size();
+            if (!chunk.isEmpty()) {
+                afterId = chunk.getLast().device().getId();
+            }
+        } while (chunk.size() == STATE_TRANSITION_CHUNK_SIZE);
+
+        logger.info("Moved {} devices to {}", affected, request.getTargetState());
+        return affected;
+    }
+
+    private RuntimeException rejection(Long id, Long expectedVersion, Supplier<RuntimeException> inUse) {
+        Optional<Long> version = repository.findVersionById(id);
+        if (version.isEmpty()) {
+            logger.error("Device with ID {} not found", id);
+            return new DeviceNotFoundException(id);
+        }
+        if (expectedVersion != null && !expectedVersion.equals(version.get())) {
+            logger.warn("Device with ID {} is at version {}, expected {}", id, version.get(), expectedVersion);
+            return new DeviceVersionMismatchException(
+                    "Device " + id + " is at version " + version.get() + ", expected " + expectedVersion);
+        }
+        return inUse.get();
+    }
+
+    private static void applyUpdate(DeviceEntity existing, DeviceUpdateDto dto) {
+        if (existing.getState() == DeviceState.IN_USE) {
+            if ((dto.getName() != null && !dto.getName().equals(existing.getName())) ||
+                    (dto.getBrand() != null && !dto.getBrand().equals(existing.getBrand()))) {
+                throw new DeviceUpdateException(
+                        "Cannot update name or brand when device is in use."
+                );
+            }
+        }
+
+        if (dto.getName() != null) existing.setName(dto.getName());
+        if (dto.getBrand() != null) existing.setBrand(dto.getBrand());
+        if (dto.getState() != null) {
+            try {
+                existing.setState(dto.getState());
+            } catch (IllegalArgumentException e) {
+                throw new DeviceUpdateException("Invalid state value: " + dto.getState());
+            }
+        }
+
+        existing.setUpdatedAt(Instant.now());
+    }
+
+    private void ensureDeletable(DeviceEntity device) {
+        if (device.getState() == DeviceState.IN_USE) {
+            logger.warn("Cannot delete device with ID {}: device is in use", device.getId());
+            throw new DeviceOperationException("Cannot delete device in use");
+        }
+    }
+
+    private static <T> List<T> emptyIfNull(List<T> items) {
+        return items != null ? items : List.of();
+    }
 }
@@ -0,0 +1,38 @@
+package com.codechallenge.devicemanagerservice.service;
+
+import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.exception.InvalidCursorException;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+public enum DeviceSortKey {
+    ID("id", dto -> String.valueOf(dto.getId())),
+    NAME("name", DeviceResponseDto::getName),
+    BRAND("brand", DeviceResponseDto::getBrand),
+    CREATED_AT("createdAt", dto -> dto.getCreatedAt().toString());
+
+    private final String property;
+    private final Function<DeviceResponseDto, String> extractor;
+
+    DeviceSortKey(String property, Function<DeviceResponseDto, String> extractor) {
+        this.property = property;
+        this.extractor = extractor;
+    }
+
+    public String property() {
+        return property;
+    }
+
+    public String valueOf(DeviceResponseDto device) {
+        return extractor.apply(device);
+    }
+
+    public static DeviceSortKey fromProperty(String property) {
+        return Arrays.stream(values())
+                .filter(key -> key.property.equals(property))
+                .findFirst()
+                .orElseThrow(() -> new InvalidCursorException(
+                        "Unsupported sort property for cursor pagination: " + property));
+    }
+}
@@ -1,14 +1,25 @@
 package com.codechallenge.devicemanagerservice.service;
 
+import com.codechallenge.devicemanagerservice.dto.DeviceMatchMode;
 import com.codechallenge.devicemanagerservice.model.DeviceEntity;
+import com.codechallenge.devicemanagerservice.repository.TrigramFunctionContributor;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaSubQuery;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 public class DeviceSpecification {
 
+    private static final char LIKE_ESCAPE = '\\';
+
     public static Specification<DeviceEntity> searchBy(String brand, String state) {
         return (root, query, builder) -> {
             List<Predicate> predicates = new ArrayList<>();
@@ -21,4 +32,109 @@ public class DeviceSpecification {
             return builder.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    public static Specification<DeviceEntity> matching(String name, String brand, DeviceMatchMode mode) {
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (name != null) {
+                predicates.add(match((HibernateCriteriaBuilder) builder, root.get("name"), name, mode));
+            }
+            if (brand != null) {
+                predicates.add(match((HibernateCriteriaBuilder) builder, root.get("brand"), brand, mode));
+            }
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    // ranks, pages and counts at most maxMatches of the rows matching spec, taken in index order, so a broad term
+    // costs a bounded sort and count instead of scoring every match
+    public static Specification<DeviceEntity> amongFirstMatches(Specification<DeviceEntity> spec, int maxMatches) {
+        return (root, query, builder) -> {
+            JpaSubQuery<Long> matches = (JpaSubQuery<Long>) query.subquery(Long.class);
+            Root<DeviceEntity> match = matches.from(DeviceEntity.class);
+            matches.select(match.get("id"))
+                    .where(spec.toPredicate(match, query, builder))
+                    .fetch(maxMatches);
+            return root.get("id").in(matches);
+        };
+    }
+
+    // best match first, ties in id order; an explicit sort on the request replaces the ranking. Count queries are
+    // left alone, they cannot be ordered by a row expression
+    public static Specification<DeviceEntity> rankedBySimilarity(String name, String brand, DeviceMatchMode mode) {
+        return (root, query, builder) -> {
+            if (!Long.class.equals(query.getResultType())) {
+                var hibernateBuilder = (HibernateCriteriaBuilder) builder;
+                Expression<Double> rank = name != null
+                        ? similarity(hibernateBuilder, root.get("name"), name, mode)
+                        : null;
+                if (brand != null) {
+                    Expression<Double> brandRank = similarity(hibernateBuilder, root.get("brand"), brand, mode);
+                    rank = rank != null ? builder.sum(rank, brandRank) : brandRank;
+                }
+                if (rank != null) {
+                    query.orderBy(builder.desc(rank), builder.asc(root.get("id")));
+                }
+            }
+            return null;
+        };
+    }
+
+    // PREFIX and CONTAINS use ILIKE rather than lower(column) LIKE, which the trigram indexes on the plain columns
+    // could not serve. Terms are bound as parameters so every search shares one statement
+    private static Predicate match(HibernateCriteriaBuilder builder, Path<String> column, String term,
+                                  DeviceMatchMode mode) {
+        return switch (mode) {
+            case EXACT -> builder.equal(column, term);
+            case PREFIX -> builder.ilike(column, escapeLike(term) + "%", LIKE_ESCAPE);
+            case CONTAINS -> builder.ilike(column, "%" + escapeLike(term) + "%", LIKE_ESCAPE);
+            case SIMILAR -> builder.isTrue(builder.function(TrigramFunctionContributor.WORD_SIMILAR, Boolean.class,
+                    column, builder.value(term)));
+        };
+    }
+
+    private static Expression<Double> similarity(HibernateCriteriaBuilder builder, Path<String> column, String term,
+                                                 DeviceMatchMode mode) {
+        return mode == DeviceMatchMode.SIMILAR
+                ? builder.function("word_similarity", Double.class, builder.value(term), column)
+                : builder.function("similarity", Double.class, column, builder.value(term));
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // (key, id) > (value, lastId), written as key >= value AND (key > value OR id > lastId) so that the
+    // leading key bound can be used as an index range condition on (key, id).
+    public static Specification<DeviceEntity> after(DeviceCursor cursor) {
+        return (root, query, builder) -> {
+            if (cursor.isFirst()) {
+                return builder.conjunction();
+            }
+            boolean ascending = cursor.direction().isAscending();
+            Path<Long> id = root.get("id");
+            Predicate idAfter = ascending
+                    ? builder.greaterThan(id, cursor.id())
+                    : builder.lessThan(id, cursor.id());
+
+            return switch (cursor.key()) {
+                case ID -> idAfter;
+                case NAME, BRAND -> keysetAfter(builder, root.get(cursor.key().property()), cursor.value(),
+                        idAfter, ascending);
+                case CREATED_AT -> keysetAfter(builder, root.get(cursor.key().property()),
+                        Instant.parse(cursor.value()), idAfter, ascending);
+            };
+        };
+    }
+
+    private static <Y extends Comparable<? super Y>> Predicate keysetAfter(CriteriaBuilder builder, Path<Y> key,
+                                                                          Y value, Predicate idAfter,
+                                                                          boolean ascending) {
+        if (ascending) {
+            return builder.and(builder.greaterThanOrEqualTo(key, value),
+                    builder.or(builder.greaterThan(key, value), idAfter));
+        }
+        return builder.and(builder.lessThanOrEqualTo(key, value),
+                builder.or(builder.lessThan(key, value), idAfter));
+    }
 }
@@ -0,0 +1,173 @@
+package com.codechallenge.devicemanagerservice.suggest;
+
+import com.codechallenge.devicemanagerservice.config.DeviceSuggestProperties;
+import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceSuggestionsDto;
+import com.codechallenge.devicemanagerservice.event.DeviceChangeType;
+import com.codechallenge.devicemanagerservice.event.DeviceChangedEvent;
+import com.codechallenge.devicemanagerservice.model.DeviceLabels;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Autocomplete over the distinct device names and brands, answered from memory. The index is read from
+ * {@code device_table} when the application starts and again every refresh interval; in between, changes committed on
+ * this node are applied as they happen. Rows loaded by the import or written by other nodes show up with the next
+ * refresh.
+ * <p>
+ * A rebuild reads both counts from one snapshot and only starts collecting changes for the new index once that
+ * snapshot is taken, so every change is either in the counts or in the collected delta. Only a change whose commit
+ * and after-commit callback fall on either side of that moment can be counted twice or missed, until the next rebuild.
+ */
+@Slf4j
+@Component
+public class DeviceSuggestionIndex implements SmartLifecycle {
+
+    private static final String NAME_COUNTS_SQL = "SELECT name, count(*) FROM device_table GROUP BY name";
+
+    private static final String BRAND_COUNTS_SQL = "SELECT brand, count(*) FROM device_table GROUP BY brand";
+
+    private static final String SNAPSHOT_SQL = "SELECT CAST(pg_current_snapshot() AS text)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final DeviceSuggestProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final PrefixIndex names = new PrefixIndex();
+    private final PrefixIndex brands = new PrefixIndex();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public DeviceSuggestionIndex(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 DeviceSuggestProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public DeviceSuggestionsDto suggest(String prefix, int limit) {
+        if (!properties.enabled()) {
+            return DeviceSuggestionsDto.empty();
+        }
+        return new DeviceSuggestionsDto(names.top(prefix, limit), brands.top(prefix, limit));
+    }
+
+    public long memoryBytes() {
+        return names.memoryBytes() + brands.memoryBytes();
+    }
+
+    public synchronized void refresh() {
+        long started = System.nanoTime();
+        Snapshot snapshot = snapshotTransaction.execute(status -> {
+            // the first statement fixes the snapshot both scans read
+            jdbcTemplate.queryForObject(SNAPSHOT_SQL, String.class);
+            names.startRebuild();
+            brands.startRebuild();
+            return new Snapshot(counts(NAME_COUNTS_SQL), counts(BRAND_COUNTS_SQL));
+        });
+        names.replace(snapshot.names());
+        brands.replace(snapshot.brands());
+        log.info("Suggestion index rebuilt with {} names and {} brands in {} ms, using {} bytes", names.size(),
+                brands.size(), (System.nanoTime() - started) / 1_000_000, memoryBytes());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        if (!properties.enabled()) {
+            return;
+        }
+        // a change without previous labels is a state transition and leaves names and brands as they are
+        if (event.type() != DeviceChangeType.CREATED && event.previous() == null) {
+            return;
+        }
+        if (event.previous() != null) {
+            count(event.previous(), -1);
+        }
+        DeviceResponseDto device = event.device();
+        if (device != null) {
+            count(new DeviceLabels(device.getName(), device.getBrand()), 1);
+        }
+    }
+
+    // the gauges hold on to this index, so they are only registered once it is fully constructed
+    @Override
+    public void start() {
+        Gauge.builder("device.suggest.entries", names, PrefixIndex::size)
+                .tag("field", "name")
+                .register(meterRegistry);
+        Gauge.builder("device.suggest.entries", brands, PrefixIndex::size)
+                .tag("field", "brand")
+                .register(meterRegistry);
+        Gauge.builder("device.suggest.memory", this, DeviceSuggestionIndex::memoryBytes)
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+        if (!properties.enabled()) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofPlatform().daemon().name("device-suggest-refresh").start(this::refreshPeriodically);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void refreshPeriodically() {
+        while (running) {
+            try {
+                refresh();
+            } catch (DataAccessException e) {
+                log.warn("Could not rebuild the suggestion index, retrying in {}", properties.refreshInterval(), e);
+            }
+            try {
+                Thread.sleep(properties.refreshInterval());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+
+    private void count(DeviceLabels labels, long devices) {
+        names.add(labels.name(), devices);
+        brands.add(labels.brand(), devices);
+    }
+
+    private Map<String, Long> counts(String sql) {
+        Map<String, Long> counts = new HashMap<>();
+        jdbcTemplate.query(sql, row -> {
+            counts.put(row.getString(1), row.getLong(2));
+        });
+        return counts;
+    }
+
+    private record Snapshot(Map<String, Long> names, Map<String, Long> brands) {
+    }
+}
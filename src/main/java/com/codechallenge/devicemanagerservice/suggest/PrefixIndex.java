@@ -0,0 +1,261 @@
+package com.codechallenge.devicemanagerservice.suggest;
+
+import com.codechallenge.devicemanagerservice.dto.DeviceSuggestionDto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Distinct values with the number of devices carrying them, ordered case-insensitively. The bulk lives in one UTF-8
+ * byte array with offset and count arrays next to it, so a value costs its encoded length plus eight bytes instead of
+ * a {@code String} and a map entry. A max segment tree over the counts, another eight bytes per value, lets a lookup
+ * pick the largest counts of a prefix range without walking it. Changes since the last {@link #replace} are kept in a
+ * small sorted delta that is merged into every lookup and folded into the arrays on the next rebuild.
+ */
+final class PrefixIndex {
+
+    // a rough per-entry cost of a skip list node, its key and the counter
+    private static final int DELTA_ENTRY_OVERHEAD = 96;
+
+    private static final char KEY_SEPARATOR = '\0';
+
+    private static final char MAX_CHAR = '\uffff';
+
+    // the arrays and the delta collected on top of them are swapped together, so a lookup never sees one without
+    // the other
+    private volatile State state = new State(Values.EMPTY, new ConcurrentSkipListMap<>());
+    private ConcurrentSkipListMap<String, AtomicLong> pending;
+
+    /**
+     * Starts collecting changes for the rebuild that is about to read the table, so they survive {@link #replace}.
+     */
+    synchronized void startRebuild() {
+        pending = new ConcurrentSkipListMap<>();
+    }
+
+    synchronized void replace(Map<String, Long> counts) {
+        state = new State(Values.of(counts), pending != null ? pending : new ConcurrentSkipListMap<>());
+        pending = null;
+    }
+
+    synchronized void add(String value, long count) {
+        if (value == null) {
+            return;
+        }
+        String key = key(value);
+        state.delta().computeIfAbsent(key, k -> new AtomicLong()).addAndGet(count);
+        if (pending != null) {
+            pending.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(count);
+        }
+    }
+
+    /**
+     * The {@code limit} values starting with {@code prefix}, ignoring case, with the most devices first.
+     */
+    List<DeviceSuggestionDto> top(String prefix, int limit) {
+        State snapshot = state;
+        Values current = snapshot.values();
+        NavigableMap<String, AtomicLong> changes = snapshot.delta();
+
+        String from = prefix.toLowerCase(Locale.ROOT);
+        String to = from + MAX_CHAR;
+        int first = current.lowerBound(from);
+        int last = current.lowerBound(to);
+
+        Map<Integer, Long> adjustments = new HashMap<>();
+        List<Candidate> added = new ArrayList<>();
+        for (Map.Entry<String, AtomicLong> change : changes.subMap(from, to).entrySet()) {
+            int position = current.lowerBound(change.getKey());
+            if (position < last && current.key(position).equals(change.getKey())) {
+                adjustments.merge(position, change.getValue().get(), Long::sum);
+            } else {
+                added.add(new Candidate(position, change.getKey(), change.getValue().get()));
+            }
+        }
+
+        PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1, Candidate.ORDER.reversed());
+        adjustments.forEach((position, adjustment) -> offer(best, limit,
+                new Candidate(position, null, current.counts[position] + adjustment)));
+        added.forEach(candidate -> offer(best, limit, candidate));
+
+        // the range is split around its largest count until limit unchanged entries came out, so a lookup costs
+        // about limit tree queries however many values share the prefix
+        PriorityQueue<Range> ranges = new PriorityQueue<>(Comparator.comparing(Range::max, Candidate.ORDER));
+        current.range(first, last, ranges);
+        int taken = 0;
+        while (taken < limit && !ranges.isEmpty()) {
+            Range range = ranges.poll();
+            int position = range.max().position();
+            current.range(range.from(), position, ranges);
+            current.range(position + 1, range.to(), ranges);
+            if (!adjustments.containsKey(position)) {
+                offer(best, limit, range.max());
+                taken++;
+            }
+        }
+
+        List<Candidate> ranked = new ArrayList<>(best);
+        ranked.sort(Candidate.ORDER);
+        return ranked.stream()
+                .map(candidate -> new DeviceSuggestionDto(candidate.key != null
+                        ? value(candidate.key)
+                        : current.value(candidate.position), candidate.count))
+                .toList();
+    }
+
+    int size() {
+        return state.values().counts.length;
+    }
+
+    long memoryBytes() {
+        State snapshot = state;
+        Values current = snapshot.values();
+        long deltaBytes = 0;
+        for (String key : snapshot.delta().keySet()) {
+            deltaBytes += DELTA_ENTRY_OVERHEAD + 2L * key.length();
+        }
+        return current.text.length + 4L * current.offsets.length + 4L * current.counts.length
+                + 4L * current.maxima.length + deltaBytes;
+    }
+
+    private static void offer(PriorityQueue<Candidate> best, int limit, Candidate candidate) {
+        if (candidate.count <= 0) {
+            return;
+        }
+        best.offer(candidate);
+        if (best.size() > limit) {
+            best.poll();
+        }
+    }
+
+    // lower-cased value first so the order ignores case, the value itself keeps spellings that differ in case apart
+    static String key(String value) {
+        return value.toLowerCase(Locale.ROOT) + KEY_SEPARATOR + value;
+    }
+
+    private static String value(String key) {
+        return key.substring(key.indexOf(KEY_SEPARATOR) + 1);
+    }
+
+    private record Candidate(int position, String key, long count) {
+
+        // more devices first; equal counts keep the index order, a value missing from the arrays sorts before the
+        // value it would be inserted in front of
+        static final Comparator<Candidate> ORDER = Comparator.comparingLong(Candidate::count).reversed()
+                .thenComparingInt(Candidate::position)
+                .thenComparing(candidate -> candidate.key == null ? 1 : 0)
+                .thenComparing(candidate -> candidate.key == null ? "" : candidate.key);
+    }
+
+    private record State(Values values, ConcurrentSkipListMap<String, AtomicLong> delta) {
+    }
+
+    // a slice of the arrays and its largest count
+    private record Range(int from, int to, Candidate max) {
+    }
+
+    private record Values(byte[] text, int[] offsets, int[] counts, int[] maxima) {
+
+        static final Values EMPTY = new Values(new byte[0], new int[]{0}, new int[0], new int[0]);
+
+        static Values of(Map<String, Long> counts) {
+            List<String> keys = counts.keySet().stream()
+                    .filter(value -> value != null && counts.get(value) > 0)
+                    .map(PrefixIndex::key)
+                    .sorted()
+                    .toList();
+
+            byte[][] encoded = new byte[keys.size()][];
+            int length = 0;
+            for (int i = 0; i < keys.size(); i++) {
+                encoded[i] = PrefixIndex.value(keys.get(i)).getBytes(StandardCharsets.UTF_8);
+                length += encoded[i].length;
+            }
+
+            byte[] text = new byte[length];
+            int[] offsets = new int[keys.size() + 1];
+            int[] sizes = new int[keys.size()];
+            for (int i = 0; i < keys.size(); i++) {
+                System.arraycopy(encoded[i], 0, text, offsets[i], encoded[i].length);
+                offsets[i + 1] = offsets[i] + encoded[i].length;
+                sizes[i] = Math.toIntExact(counts.get(PrefixIndex.value(keys.get(i))));
+            }
+            return new Values(text, offsets, sizes, maxima(sizes));
+        }
+
+        // leaves at n + i hold position i, every inner node the position of the larger count of its two children
+        private static int[] maxima(int[] counts) {
+            int n = counts.length;
+            int[] maxima = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                maxima[n + i] = i;
+            }
+            for (int node = n - 1; node > 0; node--) {
+                maxima[node] = larger(counts, maxima[2 * node], maxima[2 * node + 1]);
+            }
+            return maxima;
+        }
+
+        // the larger count wins, the earlier position on a tie, which is the order of Candidate.ORDER
+        private static int larger(int[] counts, int a, int b) {
+            if (a < 0) {
+                return b;
+            }
+            if (b < 0) {
+                return a;
+            }
+            return counts[a] > counts[b] || (counts[a] == counts[b] && a < b) ? a : b;
+        }
+
+        // adds [from, to) with its largest count to ranges, unless it is empty
+        void range(int from, int to, PriorityQueue<Range> ranges) {
+            if (from >= to) {
+                return;
+            }
+            int n = counts.length;
+            int max = -1;
+            for (int low = from + n, high = to + n; low < high; low >>= 1, high >>= 1) {
+                if ((low & 1) == 1) {
+                    max = larger(counts, max, maxima[low++]);
+                }
+                if ((high & 1) == 1) {
+                    max = larger(counts, max, maxima[--high]);
+                }
+            }
+            ranges.offer(new Range(from, to, new Candidate(max, null, counts[max])));
+        }
+
+        String value(int position) {
+            return new String(text, offsets[position], offsets[position + 1] - offsets[position],
+                    StandardCharsets.UTF_8);
+        }
+
+        String key(int position) {
+            return PrefixIndex.key(value(position));
+        }
+
+        // first position whose key is not below {@code key}
+        int lowerBound(String key) {
+            int low = 0;
+            int high = counts.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (key(middle).compareTo(key) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
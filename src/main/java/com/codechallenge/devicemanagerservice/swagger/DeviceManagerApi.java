@@ -3,16 +3,24 @@ package com.codechallenge.devicemanagerservice.swagger;
 import com.codechallenge.devicemanagerservice.dto.*;
 import com.codechallenge.devicemanagerservice.model.DeviceState;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
 
 public interface DeviceManagerApi {
     @Operation(
@@ -26,51 +34,232 @@ public interface DeviceManagerApi {
     })
     ResponseEntity<DeviceResponseDto> createDevice(@Valid @RequestBody DeviceCreateDto dto);
 
+    @Operation(
+            summary = "Create, update and delete devices in bulk",
+            description = "Applies all creates, then updates, then deletes in one transaction using JDBC batching. "
+                    + "Each item is reported individually; the in-use rules of single updates and deletes apply per item."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch applied, see per-item results"),
+            @ApiResponse(responseCode = "400", description = "Validation failed",
+                    content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+    })
+    ResponseEntity<DeviceBatchResponseDto> applyBatch(@Valid @RequestBody DeviceBatchRequestDto dto);
+
+    @Operation(
+            summary = "Change the state of all matching devices",
+            description = "Moves every device matching the brand and state filter to the target state with set-based "
+                    + "updates, committed in chunks of consecutive ids. Devices in use are never changed in bulk."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Number of devices changed"),
+            @ApiResponse(responseCode = "400", description = "Validation failed",
+                    content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+            @ApiResponse(responseCode = "409", description = "The filter selects devices in use",
+                    content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+    })
+    ResponseEntity<DeviceStateTransitionResponseDto> transitionState(@Valid @RequestBody DeviceStateTransitionDto dto);
+
+    @Operation(
+            summary = "Bulk import devices",
+            description = "Loads an NDJSON or CSV body (header with name, brand and state) through PostgreSQL COPY in "
+                    + "chunks. Rows are validated like a single create; invalid rows are reported and skipped without "
+                    + "aborting the load."
+    )
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+            @Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")})
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Import finished, see accepted and rejected counts"),
+            @ApiResponse(responseCode = "400", description = "CSV header is missing required columns",
+                    content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+    })
+    ResponseEntity<DeviceImportResponseDto> importDevices(@Parameter(hidden = true) MediaType contentType,
+                                                          @Parameter(hidden = true) InputStream body);
+
     @Operation(
             summary = "Update existing device",
-            description = "Updates device fields, restricted if device is in use."
+            description = "Updates device fields, restricted if device is in use. The response carries the new ETag; "
+                    + "with If-Match the update only applies while the device is still at that version."
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Device updated successfully"),
             @ApiResponse(responseCode = "404", description = "Device not found"),
             @ApiResponse(responseCode = "400", description = "Validation failed",
+                    content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+            @ApiResponse(responseCode = "412", description = "Device changed since the If-Match ETag",
                     content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
     })
     ResponseEntity<DeviceResponseDto> updateDevice(@PathVariable Long id,
-                                                   @Valid @RequestBody DeviceUpdateDto dto);
+                                                   @Valid @RequestBody DeviceUpdateDto dto,
+            @Parameter(in = ParameterIn.HEADER, name = "If-Match",
+                    description = "* or the ETag of a previous read; 412 once the device changed") String ifMatch);
 
-    @Operation(summary = "get device", description = "get a device by id.")
+    @Operation(summary = "get device", description = "get a device by id. The ETag is the device version; "
+            + "If-None-Match is checked against the version alone without loading the device.")
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "get deleted"),
+            @ApiResponse(responseCode = "304", description = "Device unchanged since the If-None-Match ETag"),
             @ApiResponse(responseCode = "404", description = "get not found"),
             @ApiResponse(responseCode = "400", description = "Validation failed",
                     content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
     })
-    ResponseEntity<DeviceResponseDto> getDevice(@PathVariable Long id);
+    ResponseEntity<DeviceResponseDto> getDevice(@PathVariable Long id,
+            @Parameter(in = ParameterIn.HEADER, name = "If-None-Match",
+                    description = "ETag of a previous response; answered with 304 while it is current") String ifNoneMatch);
+
+    @Operation(summary = "get all device",
+            description = "get all device. total=EXACT runs a count query, ESTIMATED uses the planner row "
+                    + "estimate and NONE skips the total; totalMode in the response says which one was used. "
+                    + "The weak ETag changes whenever any device changes.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "get all device"),
+            @ApiResponse(responseCode = "304", description = "No device changed since the If-None-Match ETag")
+    })
+    ResponseEntity<PagedResponseDto<DeviceResponseDto>> getAllDevices(
+            @RequestParam(defaultValue = "EXACT") TotalMode total,
+            Pageable pageable,
+            @Parameter(in = ParameterIn.HEADER, name = "If-None-Match",
+                    description = "ETag of a previous response; answered with 304 while it is current") String ifNoneMatch);
 
-    @Operation(summary = "get all device", description = "get all device.")
+    @Operation(summary = "get all device by cursor",
+            description = "get all device using keyset pagination. Send an empty cursor for the first page and the "
+                    + "returned nextCursor for the following ones. Sortable by id, name, brand or createdAt.")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "get all device")
+            @ApiResponse(responseCode = "200", description = "get all device"),
+            @ApiResponse(responseCode = "304", description = "No device changed since the If-None-Match ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or sort",
+                    content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
     })
-    ResponseEntity<PagedResponseDto<DeviceResponseDto>> getAllDevices(Pageable pageable);
+    ResponseEntity<CursorPagedResponseDto<DeviceResponseDto>> getAllDevicesByCursor(
+            @RequestParam String cursor,
+            Pageable pageable,
+            @Parameter(in = ParameterIn.HEADER, name = "If-None-Match",
+                    description = "ETag of a previous response; answered with 304 while it is current") String ifNoneMatch);
 
     @Operation(summary = "Delete device", description = "Deletes a device unless it’s in use.")
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Device deleted"),
             @ApiResponse(responseCode = "404", description = "Device not found"),
             @ApiResponse(responseCode = "400", description = "Validation failed",
+                    content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+            @ApiResponse(responseCode = "412", description = "Device changed since the If-Match ETag",
                     content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
     })
-    ResponseEntity<Void> deleteDevice(@PathVariable Long id);
+    ResponseEntity<Void> deleteDevice(@PathVariable Long id,
+            @Parameter(in = ParameterIn.HEADER, name = "If-Match",
+                    description = "* or the ETag of a previous read; 412 once the device changed") String ifMatch);
 
-    @Operation(summary = "search device", description = "search all device base on brand or state.")
+    @Operation(summary = "search device",
+            description = "search all device base on name, brand or state. Supports the same total modes as get all "
+                    + "device. With match=PREFIX, CONTAINS or SIMILAR, name and brand are matched case-insensitively "
+                    + "by prefix, by substring or by trigram word similarity (tolerates typos), and results are ranked "
+                    + "by similarity unless a sort is given. These modes need terms of at least 3 characters and "
+                    + "only consider the first 1000 matches; a total of 1000 comes back as ESTIMATED.")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "get all device base on brand or state.")
+            @ApiResponse(responseCode = "200", description = "get all device base on name, brand or state."),
+            @ApiResponse(responseCode = "304", description = "No device changed since the If-None-Match ETag"),
+            @ApiResponse(responseCode = "400", description = "Search term too short or missing",
+                    content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
     })
     ResponseEntity<PagedResponseDto<DeviceResponseDto>> searchDevices(
+            @RequestParam(required = false) String name,
             @RequestParam(required = false) String brand,
             @RequestParam(required = false) DeviceState state,
-            Pageable pageable);
-}
+            @RequestParam(defaultValue = "EXACT") DeviceMatchMode match,
+            @RequestParam(defaultValue = "EXACT") TotalMode total,
+            Pageable pageable,
+            @Parameter(in = ParameterIn.HEADER, name = "If-None-Match",
+                    description = "ETag of a previous response; answered with 304 while it is current") String ifNoneMatch);
 
+    @Operation(summary = "search device by cursor",
+            description = "search all device base on brand or state using keyset pagination. A cursor only continues "
+                    + "the brand/state filter it was issued for; name and match are not supported.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "get all device base on brand or state."),
+            @ApiResponse(responseCode = "304", description = "No device changed since the If-None-Match ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or sort, a cursor of another filter, or "
+                    + "name/match given",
+                    content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+    })
+    ResponseEntity<CursorPagedResponseDto<DeviceResponseDto>> searchDevicesByCursor(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) DeviceState state,
+            @RequestParam(defaultValue = "EXACT") DeviceMatchMode match,
+            @RequestParam String cursor,
+            Pageable pageable,
+            @Parameter(in = ParameterIn.HEADER, name = "If-None-Match",
+                    description = "ETag of a previous response; answered with 304 while it is current") String ifNoneMatch);
+
+    @Operation(summary = "count devices by brand and state",
+            description = "Returns the number of devices per brand and state, optionally for one brand, and their total. "
+                    + "The counts are kept by the database inside every write, so no device rows are counted.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Device counts per brand and state"),
+            @ApiResponse(responseCode = "304", description = "No device changed since the If-None-Match ETag")
+    })
+    ResponseEntity<DeviceInventoryDto> getInventory(
+            @RequestParam(required = false) String brand,
+            @Parameter(in = ParameterIn.HEADER, name = "If-None-Match",
+                    description = "ETag of a previous response; answered with 304 while it is current") String ifNoneMatch);
+
+    @Operation(summary = "suggest device names and brands",
+            description = "Returns the names and brands starting with the prefix, ignoring case, with the most devices "
+                    + "first. Answered from an in-memory index that is rebuilt from the table periodically and kept "
+                    + "current with the changes made through this instance.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Top names and brands for the prefix"),
+            @ApiResponse(responseCode = "400", description = "Blank prefix or limit outside 1 to 50",
+                    content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+    })
+    ResponseEntity<DeviceSuggestionsDto> suggestDevices(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(defaultValue = "10") int limit);
 
+    @Operation(summary = "read the device change feed",
+            description = "Returns up to limit device changes committed after the offset, in commit order, and the "
+                    + "offset to continue from. Without an offset the feed starts at the oldest retained change; "
+                    + "'latest' starts after the newest one. With wait > 0 the request is held until a change "
+                    + "commits or the wait is over, which makes it a long poll.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The next batch of changes, possibly empty"),
+            @ApiResponse(responseCode = "400", description = "Malformed offset, or limit or wait out of range",
+                    content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+            @ApiResponse(responseCode = "410", description = "Changes after the offset were purged; resynchronize",
+                    content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+    })
+    DeferredResult<DeviceChangesDto> getChanges(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int limit,
+            @Parameter(description = "Seconds to wait for a change when none is pending") @RequestParam(defaultValue = "0") int wait);
+
+    @Operation(summary = "stream the device change feed",
+            description = "Server-Sent Events stream of the change feed. Every batch of changes is sent as a "
+                    + "'changes' event whose id is the offset to resume from, so a reconnecting EventSource picks "
+                    + "up where it stopped through Last-Event-ID. Idle streams receive a heartbeat comment.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Change event stream",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)),
+            @ApiResponse(responseCode = "410", description = "Changes after the offset were purged; resynchronize",
+                    content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+            @ApiResponse(responseCode = "503", description = "Too many streams are open",
+                    content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+    })
+    SseEmitter streamChanges(
+            @RequestParam(required = false) String after,
+            @Parameter(in = ParameterIn.HEADER, name = "Last-Event-ID",
+                    description = "Offset of the last event received; takes precedence over after") String lastEventId,
+            @RequestParam(defaultValue = "100") int limit);
+
+    @Operation(summary = "export devices",
+            description = "Streams every device matching the brand or state filter as NDJSON or CSV, ordered by id. "
+                    + "Rows are read through a database cursor and written as they arrive.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Device export stream",
+                    content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")})
+    })
+    ResponseEntity<StreamingResponseBody> exportDevices(
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) DeviceState state,
+            @RequestParam(defaultValue = "NDJSON") DeviceFileFormat format);
+}
\ No newline at end of file
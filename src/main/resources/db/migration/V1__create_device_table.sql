@@ -0,0 +1,83 @@
+-- Databases created before migrations were introduced already have these objects (from ddl-auto and schema.sql)
+-- and are baselined at version 0, so this script creates what is missing and then brings the existing table to the
+-- shape the entity expects. On a new database the upgrade steps find nothing to do.
+
+CREATE SEQUENCE IF NOT EXISTS device_table_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS device_table (
+    id         BIGINT PRIMARY KEY,
+    name       VARCHAR(100) NOT NULL,
+    brand      VARCHAR(100) NOT NULL,
+    state      VARCHAR(50)  NOT NULL CHECK (state IN ('AVAILABLE', 'IN_USE', 'INACTIVE')),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    version    BIGINT
+);
+
+-- ids come from the pooled device_table_id_seq (increment 50); a legacy sequence steps by 1 and backs a serial
+-- default or an identity column
+DO $$
+DECLARE
+    identity_column boolean;
+    last_id bigint;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_sequences
+               WHERE schemaname = '${flyway:defaultSchema}' AND sequencename = 'device_table_id_seq'
+                 AND increment_by = 50) THEN
+        RETURN;
+    END IF;
+
+    SELECT attidentity <> '' INTO identity_column
+    FROM pg_attribute
+    WHERE attrelid = '${flyway:defaultSchema}.device_table'::regclass AND attname = 'id';
+    SELECT max(id) INTO last_id FROM ${flyway:defaultSchema}.device_table;
+
+    IF identity_column THEN
+        -- takes the identity sequence with it
+        ALTER TABLE ${flyway:defaultSchema}.device_table ALTER COLUMN id DROP IDENTITY;
+    ELSE
+        ALTER TABLE ${flyway:defaultSchema}.device_table ALTER COLUMN id DROP DEFAULT;
+    END IF;
+    CREATE SEQUENCE IF NOT EXISTS ${flyway:defaultSchema}.device_table_id_seq;
+    ALTER SEQUENCE ${flyway:defaultSchema}.device_table_id_seq INCREMENT BY 50 OWNED BY NONE;
+    -- the pooled optimizer hands out the 50 ids up to each value it fetches, so the next fetch must end 50 past max(id)
+    PERFORM setval('${flyway:defaultSchema}.device_table_id_seq', greatest(coalesce(last_id, 0), 1));
+END
+$$;
+
+-- schema.sql had neither column
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = '${flyway:defaultSchema}' AND table_name = 'device_table'
+                     AND column_name = 'updated_at') THEN
+        ALTER TABLE ${flyway:defaultSchema}.device_table ADD COLUMN updated_at TIMESTAMP WITH TIME ZONE;
+        UPDATE ${flyway:defaultSchema}.device_table SET updated_at = created_at;
+        ALTER TABLE ${flyway:defaultSchema}.device_table ALTER COLUMN updated_at SET NOT NULL;
+    END IF;
+END
+$$;
+
+-- a constant default fills existing rows without rewriting the table
+ALTER TABLE device_table ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0;
+ALTER TABLE device_table ALTER COLUMN version DROP DEFAULT;
+
+-- schema.sql declared VARCHAR(255) while the entity has always validated 100 characters; narrowing rewrites the
+-- table, so it only runs where the columns are wider
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = '${flyway:defaultSchema}' AND table_name = 'device_table'
+                 AND column_name IN ('name', 'brand') AND character_maximum_length <> 100) THEN
+        ALTER TABLE ${flyway:defaultSchema}.device_table
+            ALTER COLUMN name TYPE VARCHAR(100),
+            ALTER COLUMN brand TYPE VARCHAR(100);
+    END IF;
+END
+$$;
+
+CREATE INDEX IF NOT EXISTS idx_device_brand ON device_table (brand);
+CREATE INDEX IF NOT EXISTS idx_device_state ON device_table (state);
+CREATE INDEX IF NOT EXISTS idx_device_name_id ON device_table (name, id);
+CREATE INDEX IF NOT EXISTS idx_device_brand_id ON device_table (brand, id);
+CREATE INDEX IF NOT EXISTS idx_device_created_at_id ON device_table (created_at, id);
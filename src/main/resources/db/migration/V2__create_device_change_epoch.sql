@@ -0,0 +1,20 @@
+-- change epoch for collection ETags: every write statement on device_table bumps one of 64 counter slots inside
+-- its own transaction, so the sum only moves when a change commits; the slot is picked by backend pid to keep
+-- concurrent writers off each other's row lock
+CREATE TABLE IF NOT EXISTS device_change_epoch (
+    slot SMALLINT PRIMARY KEY,
+    epoch BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO device_change_epoch (slot) SELECT generate_series(0, 63) ON CONFLICT DO NOTHING;
+
+CREATE OR REPLACE FUNCTION bump_device_change_epoch() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    UPDATE ${flyway:defaultSchema}.device_change_epoch SET epoch = epoch + 1 WHERE slot = pg_backend_pid() % 64;
+    RETURN NULL;
+END
+$$;
+
+CREATE OR REPLACE TRIGGER device_change_epoch
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON device_table
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_device_change_epoch();
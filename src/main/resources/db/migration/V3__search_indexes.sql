@@ -0,0 +1,19 @@
+-- Indexes for the search paths, built without blocking writes. CONCURRENTLY cannot run inside a transaction, so
+-- Flyway runs this script statement by statement. If a build fails it leaves an INVALID index behind, which has to
+-- be dropped by hand before the migration is repaired and rerun.
+
+-- searchBy(brand, state): equality on both columns and id for the tie-break and keyset order; the listing columns
+-- are included so pages and counts can be answered from the index alone
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_device_brand_state_id
+    ON device_table (brand, state, id) INCLUDE (name, created_at, updated_at);
+
+-- state-only searches in id order
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_device_state_id ON device_table (state, id);
+
+-- searches for AVAILABLE devices, the common case, only need this smaller part of the table
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_device_available_id
+    ON device_table (id) INCLUDE (name, brand, state, created_at, updated_at) WHERE state = 'AVAILABLE';
+
+-- prefixes of the indexes above
+DROP INDEX CONCURRENTLY IF EXISTS idx_device_brand;
+DROP INDEX CONCURRENTLY IF EXISTS idx_device_state;
@@ -0,0 +1,2 @@
+-- trigram operators and GIN operator classes for the PREFIX, CONTAINS and SIMILAR search modes
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
@@ -0,0 +1,4 @@
+-- Serve ILIKE '...%', ILIKE '%...%' and the word similarity operator on name and brand. Built CONCURRENTLY like
+-- V3, so this script also runs outside a transaction.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_device_name_trgm ON device_table USING gin (name gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_device_brand_trgm ON device_table USING gin (brand gin_trgm_ops);
@@ -0,0 +1,63 @@
+-- device counts per brand and state, kept by statement triggers inside the writing transaction so every write path,
+-- including COPY imports and bulk transitions, stays covered; like the change epoch, each backend adds to one of 8
+-- slots so concurrent writers of the same brand do not queue on one row. Slot -1 is reserved for the reconciliation
+-- job, which adds the difference to a fresh count of device_table there.
+CREATE TABLE IF NOT EXISTS device_inventory_count (
+    brand   VARCHAR(100) NOT NULL,
+    state   VARCHAR(50)  NOT NULL,
+    slot    SMALLINT     NOT NULL,
+    devices BIGINT       NOT NULL,
+    PRIMARY KEY (brand, state, slot)
+);
+
+CREATE OR REPLACE FUNCTION count_device_inventory() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'TRUNCATE' THEN
+        DELETE FROM ${flyway:defaultSchema}.device_inventory_count;
+        RETURN NULL;
+    END IF;
+
+    -- rows are upserted in key order so two statements touching the same counters cannot deadlock
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO ${flyway:defaultSchema}.device_inventory_count AS c (brand, state, slot, devices)
+        SELECT brand, state, pg_backend_pid() % 8, count(*) FROM new_rows
+        GROUP BY brand, state ORDER BY brand, state
+        ON CONFLICT (brand, state, slot) DO UPDATE SET devices = c.devices + excluded.devices;
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO ${flyway:defaultSchema}.device_inventory_count AS c (brand, state, slot, devices)
+        SELECT brand, state, pg_backend_pid() % 8, -count(*) FROM old_rows
+        GROUP BY brand, state ORDER BY brand, state
+        ON CONFLICT (brand, state, slot) DO UPDATE SET devices = c.devices + excluded.devices;
+    ELSE
+        INSERT INTO ${flyway:defaultSchema}.device_inventory_count AS c (brand, state, slot, devices)
+        SELECT brand, state, pg_backend_pid() % 8, sum(devices)
+        FROM (SELECT brand, state, 1 AS devices FROM new_rows
+              UNION ALL
+              SELECT brand, state, -1 FROM old_rows) changes
+        GROUP BY brand, state HAVING sum(devices) <> 0 ORDER BY brand, state
+        ON CONFLICT (brand, state, slot) DO UPDATE SET devices = c.devices + excluded.devices;
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE OR REPLACE TRIGGER device_inventory_insert
+    AFTER INSERT ON device_table REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_device_inventory();
+
+CREATE OR REPLACE TRIGGER device_inventory_update
+    AFTER UPDATE ON device_table REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_device_inventory();
+
+CREATE OR REPLACE TRIGGER device_inventory_delete
+    AFTER DELETE ON device_table REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_device_inventory();
+
+CREATE OR REPLACE TRIGGER device_inventory_truncate
+    AFTER TRUNCATE ON device_table
+    FOR EACH STATEMENT EXECUTE FUNCTION count_device_inventory();
+
+-- creating the triggers locked out writers, so this count matches the table as the triggers first see it
+DELETE FROM device_inventory_count;
+INSERT INTO device_inventory_count (brand, state, slot, devices)
+SELECT brand, state, -1, count(*) FROM device_table GROUP BY brand, state;
@@ -0,0 +1,55 @@
+-- transactional outbox behind the change feed: statement triggers append one row per changed device inside the
+-- writing transaction, so creates, updates, deletes, bulk transitions and COPY imports are all recorded exactly when
+-- they commit. Rows are ordered by (txid, id); a reader only returns rows whose transaction is older than every
+-- transaction still running, so a row can never appear behind a position a consumer has already passed.
+CREATE TABLE IF NOT EXISTS device_change_outbox (
+    txid       XID8         NOT NULL DEFAULT pg_current_xact_id(),
+    id         BIGINT       GENERATED ALWAYS AS IDENTITY,
+    device_id  BIGINT       NOT NULL,
+    change     VARCHAR(16)  NOT NULL,
+    version    BIGINT       NOT NULL,
+    name       VARCHAR(100) NOT NULL,
+    brand      VARCHAR(100) NOT NULL,
+    state      VARCHAR(50)  NOT NULL,
+    changed_at TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    PRIMARY KEY (txid, id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_device_change_outbox_changed_at ON device_change_outbox (changed_at);
+
+CREATE OR REPLACE FUNCTION record_device_change() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO ${flyway:defaultSchema}.device_change_outbox (device_id, change, version, name, brand, state)
+        SELECT id, 'CREATED', COALESCE(version, 0), name, brand, state FROM new_rows ORDER BY id;
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO ${flyway:defaultSchema}.device_change_outbox (device_id, change, version, name, brand, state)
+        SELECT id, 'DELETED', COALESCE(version, 0), name, brand, state FROM old_rows ORDER BY id;
+    ELSE
+        INSERT INTO ${flyway:defaultSchema}.device_change_outbox (device_id, change, version, name, brand, state)
+        SELECT id, 'UPDATED', COALESCE(version, 0), name, brand, state FROM new_rows ORDER BY id;
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE OR REPLACE TRIGGER device_change_outbox_insert
+    AFTER INSERT ON device_table REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION record_device_change();
+
+CREATE OR REPLACE TRIGGER device_change_outbox_update
+    AFTER UPDATE ON device_table REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION record_device_change();
+
+CREATE OR REPLACE TRIGGER device_change_outbox_delete
+    AFTER DELETE ON device_table REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION record_device_change();
+
+-- the newest position removed by the retention purge; a consumer resuming from before it has missed changes
+CREATE TABLE IF NOT EXISTS device_change_outbox_horizon (
+    singleton BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (singleton),
+    txid      XID8   NOT NULL,
+    id        BIGINT NOT NULL
+);
+
+INSERT INTO device_change_outbox_horizon (txid, id) VALUES ('0', 0) ON CONFLICT DO NOTHING;
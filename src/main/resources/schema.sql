@@ -1,7 +0,0 @@
-CREATE TABLE IF NOT EXISTS device_table (
-    id BIGSERIAL PRIMARY KEY,
-    name VARCHAR(255) NOT NULL,
-    brand VARCHAR(255) NOT NULL,
-    state VARCHAR(50) NOT NULL CHECK (state IN ('AVAILABLE', 'IN_USE', 'INACTIVE')),
-    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
-);
\ No newline at end of file
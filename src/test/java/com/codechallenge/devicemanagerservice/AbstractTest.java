@@ -8,7 +8,7 @@ import org.springframework.context.annotation.Import;
 
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 
-@SpringBootTest(webEnvironment = RANDOM_PORT)
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = "device.sql-statistics.response-headers=true")
 @Import(ContainersConfig.class)
 public abstract class AbstractTest {
     @LocalServerPort
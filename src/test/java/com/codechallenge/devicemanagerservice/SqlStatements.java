@@ -0,0 +1,45 @@
+package com.codechallenge.devicemanagerservice;
+
+import com.codechallenge.devicemanagerservice.filter.SqlStatisticsFilter;
+import io.restassured.builder.ResponseSpecBuilder;
+import io.restassured.specification.ResponseSpecification;
+import org.hamcrest.FeatureMatcher;
+import org.hamcrest.Matcher;
+
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Statement budgets for integration tests, checked against the {@code X-SQL-Statements} header the service returns
+ * when {@code device.sql-statistics.response-headers} is on:
+ * <pre>{@code .then().spec(SqlStatements.between(1, 2))}</pre>
+ * Only statements run on the request thread are counted, so a lower bound makes sure the request ran its own queries
+ * instead of sharing a coalesced read or handing its writes to another thread. Code running on the test thread can use {@link com.codechallenge.devicemanagerservice.metrics.SqlStatistics#capture}
+ * instead.
+ */
+public final class SqlStatements {
+
+    private SqlStatements() {
+    }
+
+    public static ResponseSpecification atMost(int statements) {
+        return matching(lessThanOrEqualTo(statements));
+    }
+
+    public static ResponseSpecification between(int min, int max) {
+        return matching(both(greaterThanOrEqualTo(min)).and(lessThanOrEqualTo(max)));
+    }
+
+    private static ResponseSpecification matching(Matcher<Integer> statements) {
+        return new ResponseSpecBuilder()
+                .expectHeader(SqlStatisticsFilter.STATEMENTS_HEADER,
+                        new FeatureMatcher<String, Integer>(statements, "a statement count of", "statement count") {
+                            @Override
+                            protected Integer featureValueOf(String actual) {
+                                return Integer.valueOf(actual);
+                            }
+                        })
+                .build();
+    }
+}
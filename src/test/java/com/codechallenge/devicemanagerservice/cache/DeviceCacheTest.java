@@ -0,0 +1,89 @@
+package com.codechallenge.devicemanagerservice.cache;
+
+import com.codechallenge.devicemanagerservice.config.DeviceCacheProperties;
+import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.event.DeviceChangeType;
+import com.codechallenge.devicemanagerservice.event.DeviceChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceCacheTest {
+
+    private DeviceCache systemUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        systemUnderTest = new DeviceCache(new DeviceCacheProperties(true, 100, Duration.ofMinutes(5)),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void givenNewerVersionCached_whenPutOlderVersion_thenKeepNewer() {
+        systemUnderTest.put(device(1L, "v2"), 2L);
+
+        systemUnderTest.put(device(1L, "v1"), 1L);
+
+        assertThat(systemUnderTest.get(1L).device().getName()).isEqualTo("v2");
+    }
+
+    @Test
+    void givenCommittedUpdate_whenEventArrives_thenRefreshEntry() {
+        systemUnderTest.put(device(1L, "v1"), 1L);
+
+        systemUnderTest.onDeviceChanged(
+                new DeviceChangedEvent(1L, 2L, DeviceChangeType.UPDATED, device(1L, "v2"), null));
+
+        assertThat(systemUnderTest.get(1L).version()).isEqualTo(2L);
+        assertThat(systemUnderTest.get(1L).device().getName()).isEqualTo("v2");
+    }
+
+    @Test
+    void givenDeletedDevice_whenStaleReadIsPut_thenStayDeleted() {
+        systemUnderTest.onDeviceChanged(new DeviceChangedEvent(1L, 4L, DeviceChangeType.DELETED, null, null));
+
+        systemUnderTest.put(device(1L, "stale"), 4L);
+
+        assertThat(systemUnderTest.get(1L).asOptional()).isEmpty();
+    }
+
+    @Test
+    void givenRemoteUpdate_whenInvalidated_thenMissUntilReadOfThatVersion() {
+        systemUnderTest.put(device(1L, "v1"), 1L);
+
+        systemUnderTest.invalidate(new DeviceInvalidation(1L, 2L, false));
+        assertThat(systemUnderTest.get(1L)).isNull();
+
+        systemUnderTest.put(device(1L, "v1"), 1L);
+        assertThat(systemUnderTest.get(1L)).isNull();
+
+        systemUnderTest.put(device(1L, "v2"), 2L);
+        assertThat(systemUnderTest.get(1L).device().getName()).isEqualTo("v2");
+    }
+
+    @Test
+    void givenOwnNotification_whenEntryAlreadyCurrent_thenKeepEntry() {
+        systemUnderTest.put(device(1L, "v2"), 2L);
+
+        systemUnderTest.invalidate(new DeviceInvalidation(1L, 2L, false));
+
+        assertThat(systemUnderTest.get(1L).device().getName()).isEqualTo("v2");
+    }
+
+    @Test
+    void givenRemoteDelete_whenInvalidated_thenStayDeleted() {
+        systemUnderTest.invalidate(new DeviceInvalidation(1L, 3L, true));
+
+        systemUnderTest.put(device(1L, "stale"), 3L);
+
+        assertThat(systemUnderTest.get(1L).asOptional()).isEmpty();
+    }
+
+    private static DeviceResponseDto device(Long id, String name) {
+        return DeviceResponseDto.builder().id(id).name(name).build();
+    }
+}
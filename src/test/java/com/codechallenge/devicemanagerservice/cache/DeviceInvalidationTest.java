@@ -0,0 +1,44 @@
+package com.codechallenge.devicemanagerservice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeviceInvalidationTest {
+
+    @Test
+    void givenInvalidations_whenEncodeAndDecode_thenRoundTrip() {
+        List<DeviceInvalidation> invalidations = List.of(
+                new DeviceInvalidation(1L, 2L, false),
+                new DeviceInvalidation(7L, 4L, true));
+
+        List<String> payloads = DeviceInvalidation.encode(invalidations);
+
+        assertThat(payloads).containsExactly("u1:2,d7:4");
+        assertThat(DeviceInvalidation.decode(payloads.getFirst())).isEqualTo(invalidations);
+    }
+
+    @Test
+    void givenManyInvalidations_whenEncode_thenSplitBelowNotifyLimit() {
+        List<DeviceInvalidation> invalidations = LongStream.rangeClosed(1, 2000)
+                .mapToObj(id -> new DeviceInvalidation(id * 1_000_000_000L, 12L, false))
+                .toList();
+
+        List<String> payloads = DeviceInvalidation.encode(invalidations);
+
+        assertThat(payloads).hasSizeGreaterThan(1)
+                .allSatisfy(payload -> assertThat(payload.length()).isLessThanOrEqualTo(DeviceInvalidation.MAX_PAYLOAD_BYTES));
+        assertThat(payloads.stream().flatMap(payload -> DeviceInvalidation.decode(payload).stream()))
+                .containsExactlyElementsOf(invalidations);
+    }
+
+    @Test
+    void givenMalformedPayload_whenDecode_thenReject() {
+        assertThatThrownBy(() -> DeviceInvalidation.decode("x1:2"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,85 @@
+package com.codechallenge.devicemanagerservice.changes;
+
+import com.codechallenge.devicemanagerservice.config.DeviceChangeFeedProperties;
+import com.codechallenge.devicemanagerservice.dto.DeviceChangesDto;
+import com.codechallenge.devicemanagerservice.exception.DeviceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeviceChangeStreamsTest {
+
+    private final DeviceChangeFeed feed = mock(DeviceChangeFeed.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CountDownLatch changed = new CountDownLatch(1);
+
+    private DeviceChangeStreams systemUnderTest;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(feed.resolve(any())).thenReturn(ChangePosition.START);
+        when(feed.checkBatchSize(anyInt())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(feed.checkWait(anyInt())).thenAnswer(invocation -> Duration.ofSeconds(invocation.<Integer>getArgument(0)));
+        when(feed.await(any(), anyInt(), any())).thenAnswer(invocation -> {
+            changed.await(10, TimeUnit.SECONDS);
+            return new DeviceChangesDto(List.of(), "1-1");
+        });
+        systemUnderTest = new DeviceChangeStreams(feed, new DeviceChangeFeedProperties(1000, Duration.ofSeconds(30),
+                Duration.ofSeconds(1), Duration.ofSeconds(15), Duration.ofMinutes(30), 100, 1, Duration.ofDays(7),
+                Duration.ofHours(1)), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        changed.countDown();
+    }
+
+    @Test
+    void givenAllPollsWaiting_whenPoll_thenRejectUntilOneAnswers() throws Exception {
+        DeferredResult<DeviceChangesDto> waiting = systemUnderTest.poll("", 100, 10);
+
+        assertThatThrownBy(() -> systemUnderTest.poll("", 100, 10))
+                .isInstanceOf(DeviceOverloadedException.class);
+        assertThat(waitingPolls()).isEqualTo(1);
+
+        changed.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (waitingPolls() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(waiting.getResult()).isEqualTo(new DeviceChangesDto(List.of(), "1-1"));
+        assertThat(waitingPolls()).isZero();
+        assertThat(systemUnderTest.poll("", 100, 10)).isNotNull();
+    }
+
+    @Test
+    void givenAllPollsWaiting_whenPollWithoutWait_thenAnswerRightAway() {
+        when(feed.read(any(), anyInt())).thenReturn(new DeviceChangesDto(List.of(), "0-0"));
+        systemUnderTest.poll("", 100, 10);
+
+        DeferredResult<DeviceChangesDto> result = systemUnderTest.poll("", 100, 0);
+
+        assertThat(result.getResult()).isEqualTo(new DeviceChangesDto(List.of(), "0-0"));
+    }
+
+    private double waitingPolls() {
+        return meterRegistry.get("device.changes.polls").gauge().value();
+    }
+}
@@ -0,0 +1,97 @@
+package com.codechallenge.devicemanagerservice.concurrency;
+
+import com.codechallenge.devicemanagerservice.config.DeviceConcurrencyProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void givenStableLatencyAtFullUse_whenWindowsClose_thenGrowLimit() throws Exception {
+        AdaptiveConcurrencyLimit systemUnderTest = limit(20, Duration.ofMillis(10));
+
+        for (int i = 0; i < 20; i++) {
+            runWindow(systemUnderTest, systemUnderTest.limit(), 10);
+        }
+
+        assertThat(systemUnderTest.limit()).isGreaterThan(30);
+    }
+
+    @Test
+    void givenRisingLatency_whenWindowsClose_thenShrinkLimit() throws Exception {
+        AdaptiveConcurrencyLimit systemUnderTest = limit(20, Duration.ofMillis(10));
+        for (int i = 0; i < 5; i++) {
+            runWindow(systemUnderTest, systemUnderTest.limit(), 10);
+        }
+        int before = systemUnderTest.limit();
+
+        runWindow(systemUnderTest, systemUnderTest.limit(), 40);
+        assertThat(systemUnderTest.limit()).isLessThan(before);
+
+        for (int i = 0; i < 30; i++) {
+            runWindow(systemUnderTest, systemUnderTest.limit(), 40 * (i + 2));
+        }
+        assertThat(systemUnderTest.limit()).isBetween(4, before / 2);
+    }
+
+    @Test
+    void givenLimitInUse_whenNoSlotFreesInTime_thenReject() throws Exception {
+        AdaptiveConcurrencyLimit systemUnderTest = limit(4, Duration.ofMillis(10));
+        for (int i = 0; i < 4; i++) {
+            assertThat(systemUnderTest.acquire()).isTrue();
+        }
+
+        assertThat(systemUnderTest.acquire()).isFalse();
+        assertThat(systemUnderTest.inFlight()).isEqualTo(4);
+        assertThat(systemUnderTest.waiting()).isZero();
+    }
+
+    @Test
+    void givenWaitingCaller_whenSlotIsReleased_thenHandItOver() throws Exception {
+        AdaptiveConcurrencyLimit systemUnderTest = limit(4, Duration.ofSeconds(10));
+        for (int i = 0; i < 4; i++) {
+            assertThat(systemUnderTest.acquire()).isTrue();
+        }
+
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return systemUnderTest.acquire();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (systemUnderTest.waiting() == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        systemUnderTest.release(TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(systemUnderTest.inFlight()).isEqualTo(4);
+    }
+
+    private AdaptiveConcurrencyLimit limit(int initialLimit, Duration maxWait) {
+        return new AdaptiveConcurrencyLimit(new DeviceConcurrencyProperties(true, initialLimit, 4, 200,
+                Duration.ofMillis(100), 100, maxWait), clock::get);
+    }
+
+    // takes {@code calls} slots at once and returns them with the given latency, the last one closing the window
+    private void runWindow(AdaptiveConcurrencyLimit limit, int calls, long latencyMillis) throws Exception {
+        for (int i = 0; i < calls; i++) {
+            assertThat(limit.acquire()).isTrue();
+        }
+        for (int i = 1; i < calls; i++) {
+            limit.release(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        }
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        limit.release(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+    }
+}
@@ -0,0 +1,50 @@
+package com.codechallenge.devicemanagerservice.concurrency;
+
+import com.codechallenge.devicemanagerservice.cache.DeviceCache;
+import com.codechallenge.devicemanagerservice.config.DeviceConcurrencyProperties;
+import com.codechallenge.devicemanagerservice.service.DeviceCreateBatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeviceServiceConcurrencyLimitTest {
+
+    private final DeviceCache deviceCache = mock(DeviceCache.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final DeviceServiceConcurrencyLimit systemUnderTest = new DeviceServiceConcurrencyLimit(
+            new DeviceConcurrencyProperties(true, 20, 4, 200, Duration.ofMillis(100), 100, Duration.ofMillis(50)),
+            mock(DeviceCreateBatcher.class), deviceCache, meterRegistry);
+
+    @Test
+    void givenCachedDevice_whenGetById_thenTakeNoSlot() throws Throwable {
+        when(deviceCache.contains(1L)).thenReturn(true);
+
+        assertThat(systemUnderTest.limit(call("getById", 1L))).isEqualTo(0.0);
+    }
+
+    @Test
+    void givenUncachedDevice_whenGetById_thenTakeASlot() throws Throwable {
+        assertThat(systemUnderTest.limit(call("getById", 1L))).isEqualTo(1.0);
+    }
+
+    // the call answers with the number of slots in use while it runs
+    private ProceedingJoinPoint call(String operation, Object... args) throws Throwable {
+        Signature signature = mock(Signature.class);
+        when(signature.getName()).thenReturn(operation);
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(args);
+        when(joinPoint.proceed()).thenAnswer(invocation ->
+                meterRegistry.get("device.concurrency.in_flight").gauge().value());
+        return joinPoint;
+    }
+}
@@ -0,0 +1,141 @@
+package com.codechallenge.devicemanagerservice.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final SingleFlight<Long, Object> systemUnderTest = new SingleFlight<>("getById", Duration.ofSeconds(5),
+            meterRegistry);
+
+    @Test
+    void givenConcurrentCallersForOneKey_whenExecute_thenRunLoaderOnceAndShareItsResult() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<CompletableFuture<Object>> calls = IntStream.range(0, 8)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> systemUnderTest.execute(1L, () -> {
+                        loads.incrementAndGet();
+                        await(release);
+                        return new Object();
+                    }), executor))
+                    .toList();
+            waitUntil(() -> shared() == 7);
+            release.countDown();
+
+            Object first = calls.getFirst().get(5, TimeUnit.SECONDS);
+            assertThat(calls).allSatisfy(call -> assertThat(call.get(5, TimeUnit.SECONDS)).isSameAs(first));
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(systemUnderTest.inFlight()).isZero();
+        assertThat(meterRegistry.get("device.coalescing.calls").tag("outcome", "executed").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void givenFailingLoader_whenExecute_thenWaitingCallersGetTheSameException() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database unavailable");
+
+        CompletableFuture<Object> leader = CompletableFuture.supplyAsync(() -> systemUnderTest.execute(1L, () -> {
+            await(release);
+            throw failure;
+        }));
+        waitUntil(() -> systemUnderTest.inFlight() == 1);
+        CompletableFuture<Object> follower = CompletableFuture.supplyAsync(() -> systemUnderTest.execute(1L,
+                Object::new));
+        waitUntil(() -> shared() == 1);
+        release.countDown();
+
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCause(failure);
+    }
+
+    @Test
+    void givenForgottenKey_whenExecute_thenStartANewCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Object stale = new Object();
+
+        CompletableFuture<Object> running = CompletableFuture.supplyAsync(() -> systemUnderTest.execute(1L, () -> {
+            await(release);
+            return stale;
+        }));
+        waitUntil(() -> systemUnderTest.inFlight() == 1);
+        systemUnderTest.forget(1L);
+
+        Object fresh = systemUnderTest.execute(1L, Object::new);
+        release.countDown();
+
+        assertThat(fresh).isNotSameAs(stale);
+        assertThat(running.get(5, TimeUnit.SECONDS)).isSameAs(stale);
+        assertThat(shared()).isZero();
+    }
+
+    @Test
+    void givenCompletedCall_whenExecuteAgain_thenLoadAgain() {
+        Object first = systemUnderTest.execute(1L, Object::new);
+        Object second = systemUnderTest.execute(1L, Object::new);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(systemUnderTest.inFlight()).isZero();
+    }
+
+    @Test
+    void givenStuckCall_whenWaitingLongerThanMaxWait_thenRunTheLoaderItself() throws Exception {
+        SingleFlight<Long, Object> impatient = new SingleFlight<>("getById", Duration.ofMillis(50), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        Object stuck = new Object();
+
+        CompletableFuture<Object> running = CompletableFuture.supplyAsync(() -> impatient.execute(1L, () -> {
+            await(release);
+            return stuck;
+        }));
+        waitUntil(() -> impatient.inFlight() == 1);
+
+        Object own = impatient.execute(1L, Object::new);
+        release.countDown();
+
+        assertThat(own).isNotSameAs(stuck);
+        assertThat(running.get(5, TimeUnit.SECONDS)).isSameAs(stuck);
+        assertThat(meterRegistry.get("device.coalescing.calls").tag("outcome", "timed_out").counter().count())
+                .isEqualTo(1);
+    }
+
+    private double shared() {
+        return meterRegistry.get("device.coalescing.calls").tag("outcome", "shared").counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package com.codechallenge.devicemanagerservice.controllers;
 
 import com.codechallenge.devicemanagerservice.AbstractTest;
+import com.codechallenge.devicemanagerservice.SqlStatements;
+import com.codechallenge.devicemanagerservice.dto.DeviceBatchRequestDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceBatchUpdateDto;
 import com.codechallenge.devicemanagerservice.dto.DeviceCreateDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceInventoryCountDto;
 import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceStateTransitionDto;
 import com.codechallenge.devicemanagerservice.dto.DeviceUpdateDto;
+import com.codechallenge.devicemanagerservice.inventory.DeviceInventory;
 import com.codechallenge.devicemanagerservice.model.DeviceEntity;
 import com.codechallenge.devicemanagerservice.model.DeviceState;
 import com.codechallenge.devicemanagerservice.repository.DeviceRepository;
+import com.codechallenge.devicemanagerservice.service.DeviceService;
+import com.codechallenge.devicemanagerservice.suggest.DeviceSuggestionIndex;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import jakarta.inject.Inject;
@@ -14,11 +22,22 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.hamcrest.Matchers.*;
 
 class DeviceManagerControllersTest extends AbstractTest {
@@ -26,6 +45,15 @@ class DeviceManagerControllersTest extends AbstractTest {
     @Inject
     DeviceRepository deviceRepository;
 
+    @Inject
+    DeviceSuggestionIndex suggestionIndex;
+
+    @Inject
+    DeviceInventory inventory;
+
+    @Inject
+    JdbcTemplate jdbcTemplate;
+
     @Nested
     class SaveTests {
 
@@ -67,6 +95,21 @@ class DeviceManagerControllersTest extends AbstractTest {
                     .log().all(true);
         }
 
+        @Test
+        void givenTooLongBrand_whenSaveOne_thenReturnBadRequest() {
+            var invalidDto = new DeviceCreateDto("Device A", "B".repeat(101), DeviceState.AVAILABLE);
+
+            RestAssured.given()
+                    .contentType(ContentType.JSON)
+                    .baseUri("http://localhost").port(port).basePath("/api/devices")
+                    .body(invalidDto)
+                    .when().post()
+                    .then()
+                    .statusCode(HttpStatus.BAD_REQUEST.value())
+                    .body("details.field", hasItem("brand"))
+                    .body("details.message", hasItem("Brand must be at most 100 characters"));
+        }
+
     }
 
     @Nested
@@ -320,6 +363,255 @@ class DeviceManagerControllersTest extends AbstractTest {
         }
     }
 
+    @Nested
+    class ConditionalRequestTests {
+        private DeviceEntity existingDevice;
+
+        @BeforeEach
+        void init() {
+            deviceRepository.deleteAll();
+
+            DeviceEntity entity = new DeviceEntity();
+            entity.setName("Tracked");
+            entity.setBrand("BrandA");
+            entity.setState(DeviceState.AVAILABLE);
+            existingDevice = deviceRepository.save(entity);
+        }
+
+        @Test
+        void givenCurrentETag_whenGetById_thenReturnNotModifiedUntilDeviceChanges() {
+            String etag = RestAssured.given()
+                    .port(port)
+                    .when().get("/api/devices/{id}", existingDevice.getId())
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .header("ETag", equalTo("\"" + existingDevice.getVersion() + "\""))
+                    .extract().header("ETag");
+
+            RestAssured.given()
+                    .port(port)
+                    .header("If-None-Match", etag)
+                    .when().get("/api/devices/{id}", existingDevice.getId())
+                    .then()
+                    .statusCode(HttpStatus.NOT_MODIFIED.value())
+                    .header("ETag", equalTo(etag));
+
+            var updateDto = new DeviceUpdateDto("Tracked Updated", "BrandA", DeviceState.AVAILABLE);
+            String updatedETag = RestAssured.given()
+                    .contentType(ContentType.JSON)
+                    .port(port)
+                    .body(updateDto)
+                    .when().put("/api/devices/{id}", existingDevice.getId())
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .extract().header("ETag");
+            assertThat(updatedETag).isNotEqualTo(etag);
+
+            RestAssured.given()
+                    .port(port)
+                    .header("If-None-Match", etag)
+                    .when().get("/api/devices/{id}", existingDevice.getId())
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .header("ETag", equalTo(updatedETag))
+                    .body("name", equalTo("Tracked Updated"));
+        }
+
+        @Test
+        void givenStaleETag_whenUpdateWithIfMatch_thenReturnPreconditionFailed() {
+            var updateDto = new DeviceUpdateDto("Lost Update", "BrandA", DeviceState.AVAILABLE);
+
+            RestAssured.given()
+                    .contentType(ContentType.JSON)
+                    .port(port)
+                    .header("If-Match", "\"" + (existingDevice.getVersion() + 1) + "\"")
+                    .body(updateDto)
+                    .when().put("/api/devices/{id}", existingDevice.getId())
+                    .then()
+                    .statusCode(HttpStatus.PRECONDITION_FAILED.value())
+                    .body("code", equalTo("PRECONDITION_FAILED"));
+
+            assertThat(deviceRepository.findById(existingDevice.getId()))
+                    .get().extracting(DeviceEntity::getName).isEqualTo("Tracked");
+
+            RestAssured.given()
+                    .contentType(ContentType.JSON)
+                    .port(port)
+                    .header("If-Match", "\"" + existingDevice.getVersion() + "\"")
+                    .body(updateDto)
+                    .when().put("/api/devices/{id}", existingDevice.getId())
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .header("ETag", equalTo("\"" + (existingDevice.getVersion() + 1) + "\""))
+                    .body("name", equalTo("Lost Update"));
+        }
+
+        @Test
+        void givenStaleETag_whenDeleteWithIfMatch_thenReturnPreconditionFailed() {
+            RestAssured.given()
+                    .port(port)
+                    .header("If-Match", "W/\"" + existingDevice.getVersion() + "\"")
+                    .when().delete("/api/devices/{id}", existingDevice.getId())
+                    .then()
+                    .statusCode(HttpStatus.PRECONDITION_FAILED.value());
+
+            assertThat(deviceRepository.findById(existingDevice.getId())).isPresent();
+
+            RestAssured.given()
+                    .port(port)
+                    .header("If-Match", "\"" + existingDevice.getVersion() + "\"")
+                    .when().delete("/api/devices/{id}", existingDevice.getId())
+                    .then()
+                    .statusCode(HttpStatus.NO_CONTENT.value());
+
+            assertThat(deviceRepository.findById(existingDevice.getId())).isEmpty();
+        }
+
+        @Test
+        void givenCurrentETag_whenGetAll_thenReturnNotModifiedUntilAnyDeviceChanges() {
+            String etag = RestAssured.given()
+                    .port(port)
+                    .when().get("/api/devices")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .header("ETag", startsWith("W/"))
+                    .extract().header("ETag");
+
+            RestAssured.given()
+                    .port(port)
+                    .header("If-None-Match", etag)
+                    .when().get("/api/devices/search?brand=BrandA")
+                    .then()
+                    .statusCode(HttpStatus.NOT_MODIFIED.value());
+
+            RestAssured.given()
+                    .contentType(ContentType.JSON)
+                    .port(port)
+                    .body(new DeviceCreateDto("Another", "BrandB", DeviceState.AVAILABLE))
+                    .when().post("/api/devices")
+                    .then().statusCode(HttpStatus.CREATED.value());
+
+            RestAssured.given()
+                    .port(port)
+                    .header("If-None-Match", etag)
+                    .when().get("/api/devices")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .header("ETag", not(equalTo(etag)))
+                    .body("content.name", hasItem("Another"));
+        }
+    }
+
+    // budgets are the statement counts of today's implementation, so an extra query fails the build; each request
+    // runs alone, so it executes its own reads rather than sharing a coalesced one, and group commit is off
+    @Nested
+    class StatementBudgetTests {
+
+        private DeviceEntity existingDevice;
+
+        @BeforeEach
+        void setUp() {
+            var device = new DeviceEntity();
+            device.setName("Budget Device");
+            device.setBrand("Budget Brand");
+            device.setState(DeviceState.AVAILABLE);
+            existingDevice = deviceRepository.save(device);
+        }
+
+        @Test
+        // the insert, plus a nextval whenever the pooled id block of 50 runs out
+        void givenDto_whenCreate_thenStayWithinBudget() {
+            var givenBody = new DeviceCreateDto();
+            givenBody.setName("Budget Device");
+            givenBody.setBrand("Budget Brand");
+            givenBody.setState(DeviceState.AVAILABLE);
+
+            RestAssured.given()
+                    .port(port)
+                    .contentType(ContentType.JSON)
+                    .body(givenBody)
+                    .when()
+                    .post("/api/devices")
+                    .then()
+                    .statusCode(HttpStatus.CREATED.value())
+                    .spec(SqlStatements.between(1, 2));
+        }
+
+        @Test
+        void givenExistingDevice_whenGetById_thenStayWithinBudget() {
+            RestAssured.given()
+                    .port(port)
+                    .when()
+                    .get("/api/devices/{id}", existingDevice.getId())
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .spec(SqlStatements.between(1, 1));
+        }
+
+        @Test
+        void givenExistingDevice_whenUpdate_thenStayWithinBudget() {
+            RestAssured.given()
+                    .port(port)
+                    .contentType(ContentType.JSON)
+                    .body(new DeviceUpdateDto("Renamed", "Budget Brand", DeviceState.AVAILABLE))
+                    .when()
+                    .put("/api/devices/{id}", existingDevice.getId())
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .spec(SqlStatements.between(1, 2));
+        }
+
+        @Test
+        void givenExistingDevice_whenDelete_thenStayWithinBudget() {
+            RestAssured.given()
+                    .port(port)
+                    .when()
+                    .delete("/api/devices/{id}", existingDevice.getId())
+                    .then()
+                    .statusCode(HttpStatus.NO_CONTENT.value())
+                    .spec(SqlStatements.between(1, 2));
+        }
+
+        @Test
+        void givenDevices_whenGetPage_thenStayWithinBudget() {
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("size", 20)
+                    .when()
+                    .get("/api/devices")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .spec(SqlStatements.between(1, 3));
+        }
+
+        @Test
+        void givenDevices_whenGetPageWithoutTotal_thenStayWithinBudget() {
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("size", 20)
+                    .queryParam("total", "NONE")
+                    .when()
+                    .get("/api/devices")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .spec(SqlStatements.between(1, 2));
+        }
+
+        @Test
+        void givenDevices_whenSearchByCursor_thenStayWithinBudget() {
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("brand", "Budget Brand")
+                    .queryParam("cursor", "")
+                    .queryParam("size", 20)
+                    .when()
+                    .get("/api/devices/search")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .spec(SqlStatements.between(1, 2));
+        }
+    }
+
     @Nested
     class SearchTests {
         @Test
@@ -387,6 +679,794 @@ class DeviceManagerControllersTest extends AbstractTest {
                     .body("content.size()", greaterThanOrEqualTo(2))
                     .log().all();
         }
+
+        @Test
+        void givenTotalNone_whenSearchDevices_thenSkipTotals() {
+            var device = new DeviceEntity();
+            device.setName("Pixel 9");
+            device.setBrand("Google");
+            device.setState(DeviceState.AVAILABLE);
+            deviceRepository.save(device);
+
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("brand", "Google")
+                    .queryParam("total", "NONE")
+                    .when()
+                    .get("/api/devices/search")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("content.size()", greaterThanOrEqualTo(1))
+                    .body("totalMode", equalTo("NONE"))
+                    .body("totalElements", nullValue())
+                    .body("hasNext", equalTo(false))
+                    .log().all();
+        }
+    }
+
+    @Nested
+    class MatchSearchTests {
+
+        @BeforeEach
+        void setUp() {
+            deviceRepository.deleteAll();
+            deviceRepository.saveAll(List.of(
+                    device("Zephyrbook Pro", "Zephyr Labs", DeviceState.AVAILABLE),
+                    device("Zephyrbook Pro Max", "Zephyr Labs", DeviceState.AVAILABLE),
+                    device("Travel Zephyrbook", "Zephyr Labs", DeviceState.IN_USE),
+                    device("Galaxy Tab", "Samsung", DeviceState.AVAILABLE)));
+        }
+
+        @Test
+        void givenNamePrefix_whenSearch_thenReturnMatchesRankedBySimilarity() {
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("name", "zephyrbook pro")
+                    .queryParam("match", "PREFIX")
+                    .when()
+                    .get("/api/devices/search")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("content.name", contains("Zephyrbook Pro", "Zephyrbook Pro Max"))
+                    .body("totalElements", equalTo(2));
+        }
+
+        @Test
+        void givenNameFragmentAndState_whenSearchContains_thenKeepStateFilter() {
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("name", "phyrbook")
+                    .queryParam("state", "IN_USE")
+                    .queryParam("match", "CONTAINS")
+                    .when()
+                    .get("/api/devices/search")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("content.name", contains("Travel Zephyrbook"));
+        }
+
+        @Test
+        void givenMisspelledBrand_whenSearchSimilar_thenReturnBrandDevicesPaged() {
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("brand", "Zephir Labs")
+                    .queryParam("match", "SIMILAR")
+                    .queryParam("size", 2)
+                    .when()
+                    .get("/api/devices/search")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("content.brand", everyItem(equalTo("Zephyr Labs")))
+                    .body("content.size()", equalTo(2))
+                    .body("totalElements", equalTo(3))
+                    .body("hasNext", equalTo(true));
+        }
+
+        @Test
+        void givenMoreMatchesThanTheCap_whenSearchContains_thenRankAndCountOnlyTheCap() {
+            jdbcTemplate.update("""
+                    INSERT INTO device_table (id, name, brand, state, created_at, updated_at, version)
+                    SELECT nextval('device_table_id_seq'), 'Zephyrbook ' || n, 'Zephyr Labs', 'AVAILABLE', now(),
+                           now(), 0
+                    FROM generate_series(1, ?) n
+                    """, DeviceService.MAX_RANKED_MATCHES);
+
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("name", "phyrbook")
+                    .queryParam("match", "CONTAINS")
+                    .when()
+                    .get("/api/devices/search")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("totalElements", equalTo(DeviceService.MAX_RANKED_MATCHES))
+                    .body("totalMode", equalTo("ESTIMATED"));
+        }
+
+        @Test
+        void givenWildcardCharacters_whenSearchContains_thenMatchThemLiterally() {
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("name", "%%%")
+                    .queryParam("match", "CONTAINS")
+                    .when()
+                    .get("/api/devices/search")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("content", empty());
+        }
+
+        @Test
+        void givenShortTerm_whenSearchSimilar_thenReturnBadRequest() {
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("name", "ze")
+                    .queryParam("match", "SIMILAR")
+                    .when()
+                    .get("/api/devices/search")
+                    .then()
+                    .statusCode(HttpStatus.BAD_REQUEST.value())
+                    .body("code", equalTo("INVALID_SEARCH"));
+        }
     }
 
-}
\ No newline at end of file
+    @Nested
+    class SuggestTests {
+
+        @BeforeEach
+        void setUp() {
+            deviceRepository.deleteAll();
+            deviceRepository.saveAll(List.of(
+                    device("Quasar One", "Quasar Works"),
+                    device("Quasar One", "Quasar Works"),
+                    device("quasar mini", "Quasar Works"),
+                    device("Nebula", "Quantum Devices")));
+            suggestionIndex.refresh();
+        }
+
+        @Test
+        void givenPrefix_whenSuggest_thenReturnNamesAndBrandsByDeviceCount() {
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("prefix", "QUA")
+                    .when()
+                    .get("/api/devices/suggest")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("names.value", contains("Quasar One", "quasar mini"))
+                    .body("names.devices", contains(2, 1))
+                    .body("brands.value", contains("Quasar Works", "Quantum Devices"))
+                    .spec(SqlStatements.atMost(0));
+        }
+
+        @Test
+        void givenCreateRenameAndDelete_whenSuggest_thenCountsFollowTheChanges() {
+            DeviceResponseDto created = RestAssured.given()
+                    .port(port)
+                    .contentType(ContentType.JSON)
+                    .body(new DeviceCreateDto("Quasar Max", "Quasar Works", DeviceState.AVAILABLE))
+                    .when()
+                    .post("/api/devices")
+                    .then()
+                    .statusCode(HttpStatus.CREATED.value())
+                    .extract()
+                    .as(DeviceResponseDto.class);
+
+            DeviceUpdateDto rename = new DeviceUpdateDto("Quasar One", "Quasar Works", DeviceState.AVAILABLE);
+            RestAssured.given()
+                    .port(port)
+                    .contentType(ContentType.JSON)
+                    .body(rename)
+                    .when()
+                    .put("/api/devices/" + created.getId())
+                    .then()
+                    .statusCode(HttpStatus.OK.value());
+
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("prefix", "quasar")
+                    .when()
+                    .get("/api/devices/suggest")
+                    .then()
+                    .body("names.value", contains("Quasar One", "quasar mini"))
+                    .body("names.devices", contains(3, 1))
+                    .body("brands.devices", contains(4));
+
+            RestAssured.given()
+                    .port(port)
+                    .when()
+                    .delete("/api/devices/" + created.getId())
+                    .then()
+                    .statusCode(HttpStatus.NO_CONTENT.value());
+
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("prefix", "quasar")
+                    .queryParam("limit", 1)
+                    .when()
+                    .get("/api/devices/suggest")
+                    .then()
+                    .body("names.value", contains("Quasar One"))
+                    .body("names.devices", contains(2))
+                    .body("brands.devices", contains(3));
+        }
+
+        @Test
+        void givenBlankPrefix_whenSuggest_thenReturnBadRequest() {
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("prefix", " ")
+                    .when()
+                    .get("/api/devices/suggest")
+                    .then()
+                    .statusCode(HttpStatus.BAD_REQUEST.value())
+                    .body("code", equalTo("INVALID_SEARCH"));
+        }
+    }
+
+    @Nested
+    class InventoryTests {
+
+        @BeforeEach
+        void setUp() {
+            deviceRepository.deleteAll();
+            deviceRepository.saveAll(List.of(
+                    device("Pixel 9", "Google", DeviceState.AVAILABLE),
+                    device("Pixel 8", "Google", DeviceState.AVAILABLE),
+                    device("Pixel 7", "Google", DeviceState.IN_USE),
+                    device("iPhone", "Apple", DeviceState.INACTIVE)));
+        }
+
+        @Test
+        void givenDevices_whenGetInventory_thenReturnCountsByBrandAndState() {
+            RestAssured.given()
+                    .port(port)
+                    .when()
+                    .get("/api/devices/inventory")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("total", equalTo(4))
+                    .body("counts.brand", contains("Apple", "Google", "Google"))
+                    .body("counts.state", contains("INACTIVE", "AVAILABLE", "IN_USE"))
+                    .body("counts.devices", contains(1, 2, 1))
+                    .spec(SqlStatements.atMost(2));
+        }
+
+        @Test
+        void givenBulkTransition_whenGetInventoryForBrand_thenCountsFollowTheTransition() {
+            RestAssured.given()
+                    .port(port)
+                    .contentType(ContentType.JSON)
+                    .body(DeviceStateTransitionDto.builder()
+                            .brand("Google")
+                            .state(DeviceState.AVAILABLE)
+                            .targetState(DeviceState.INACTIVE)
+                            .build())
+                    .when()
+                    .post("/api/devices/state-transition")
+                    .then()
+                    .statusCode(HttpStatus.OK.value());
+
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("brand", "Google")
+                    .when()
+                    .get("/api/devices/inventory")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("total", equalTo(3))
+                    .body("counts.state", contains("INACTIVE", "IN_USE"))
+                    .body("counts.devices", contains(2, 1));
+        }
+
+        @Test
+        void givenCountsChangedBehindTheTriggers_whenReconcile_thenRepairDrift() {
+            jdbcTemplate.update("""
+                    INSERT INTO device_inventory_count (brand, state, slot, devices) VALUES ('Apple', 'AVAILABLE', -1, 5)
+                    ON CONFLICT (brand, state, slot) DO UPDATE SET devices = device_inventory_count.devices + 5
+                    """);
+
+            assertThat(inventory.reconcile()).extracting(DeviceInventoryCountDto::devices).containsExactly(-5L);
+
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("brand", "Apple")
+                    .when()
+                    .get("/api/devices/inventory")
+                    .then()
+                    .body("total", equalTo(1));
+            assertThat(inventory.reconcile()).isEmpty();
+        }
+    }
+
+    @Nested
+    class CursorTests {
+
+        @Test
+        void givenDevices_whenSearchByCursor_thenWalkAllPagesOnce() {
+            deviceRepository.deleteAll();
+            for (int i = 0; i < 5; i++) {
+                var device = new DeviceEntity();
+                device.setName("Cursor Device " + i);
+                device.setBrand("Cursor Brand");
+                device.setState(DeviceState.AVAILABLE);
+                deviceRepository.save(device);
+            }
+
+            var first = RestAssured.given()
+                    .port(port)
+                    .queryParam("brand", "Cursor Brand")
+                    .queryParam("cursor", "")
+                    .queryParam("size", 3)
+                    .queryParam("sort", "name,desc")
+                    .when()
+                    .get("/api/devices/search")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("content.name", contains("Cursor Device 4", "Cursor Device 3", "Cursor Device 2"))
+                    .body("nextCursor", notNullValue())
+                    .extract().path("nextCursor");
+
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("brand", "Cursor Brand")
+                    .queryParam("cursor", (String) first)
+                    .queryParam("size", 3)
+                    .when()
+                    .get("/api/devices/search")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("content.name", contains("Cursor Device 1", "Cursor Device 0"))
+                    .body("nextCursor", nullValue())
+                    .log().all();
+        }
+
+        @Test
+        void givenMalformedCursor_whenGetAll_thenReturnBadRequest() {
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("cursor", "garbage")
+                    .when()
+                    .get("/api/devices")
+                    .then()
+                    .statusCode(HttpStatus.BAD_REQUEST.value())
+                    .body("code", equalTo("INVALID_CURSOR"))
+                    .log().all();
+        }
+
+        @Test
+        void givenCursorOfAnotherBrand_whenSearchByCursor_thenReturnBadRequest() {
+            deviceRepository.deleteAll();
+            deviceRepository.saveAll(List.of(device("Cursor Device 0", "Cursor Brand"),
+                    device("Cursor Device 1", "Cursor Brand")));
+            String next = RestAssured.given()
+                    .port(port)
+                    .queryParam("brand", "Cursor Brand")
+                    .queryParam("cursor", "")
+                    .queryParam("size", 1)
+                    .when()
+                    .get("/api/devices/search")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .extract().path("nextCursor");
+
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("brand", "Other Brand")
+                    .queryParam("cursor", next)
+                    .when()
+                    .get("/api/devices/search")
+                    .then()
+                    .statusCode(HttpStatus.BAD_REQUEST.value())
+                    .body("code", equalTo("INVALID_CURSOR"));
+        }
+
+        @Test
+        void givenNameWithCursor_whenSearchByCursor_thenReturnBadRequest() {
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("name", "macbook")
+                    .queryParam("match", "PREFIX")
+                    .queryParam("cursor", "")
+                    .when()
+                    .get("/api/devices/search")
+                    .then()
+                    .statusCode(HttpStatus.BAD_REQUEST.value())
+                    .body("code", equalTo("INVALID_SEARCH"));
+        }
+    }
+
+    @Nested
+    class StateTransitionTests {
+
+        @Test
+        void givenBrandFilter_whenTransitionState_thenUpdateAllButInUseDevices() {
+            deviceRepository.deleteAll();
+            List<DeviceEntity> devices = deviceRepository.saveAll(List.of(
+                    device("Site A 1", "Site Brand", DeviceState.AVAILABLE),
+                    device("Site A 2", "Site Brand", DeviceState.AVAILABLE),
+                    device("Site A 3", "Site Brand", DeviceState.IN_USE),
+                    device("Elsewhere", "Other Brand", DeviceState.AVAILABLE)));
+
+            RestAssured.given()
+                    .port(port)
+                    .contentType(ContentType.JSON)
+                    .body(DeviceStateTransitionDto.builder().brand("Site Brand").targetState(DeviceState.INACTIVE).build())
+                    .when()
+                    .post("/api/devices/state-transition")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("affected", equalTo(2))
+                    .log().all();
+
+            List<DeviceEntity> reloaded = deviceRepository.findAllById(devices.stream().map(DeviceEntity::getId).toList());
+            assertThat(reloaded)
+                    .extracting(DeviceEntity::getName, DeviceEntity::getState)
+                    .containsExactlyInAnyOrder(
+                            tuple("Site A 1", DeviceState.INACTIVE),
+                            tuple("Site A 2", DeviceState.INACTIVE),
+                            tuple("Site A 3", DeviceState.IN_USE),
+                            tuple("Elsewhere", DeviceState.AVAILABLE));
+            assertThat(reloaded)
+                    .filteredOn(device -> device.getState() == DeviceState.INACTIVE)
+                    .allSatisfy(device -> assertThat(device.getVersion()).isEqualTo(1L));
+        }
+
+        @Test
+        void givenInUseFilter_whenTransitionState_thenReturnConflict() {
+            RestAssured.given()
+                    .port(port)
+                    .contentType(ContentType.JSON)
+                    .body(DeviceStateTransitionDto.builder().state(DeviceState.IN_USE).targetState(DeviceState.AVAILABLE).build())
+                    .when()
+                    .post("/api/devices/state-transition")
+                    .then()
+                    .statusCode(HttpStatus.CONFLICT.value())
+                    .body("code", equalTo("DEVICE_OPERATION_ERROR"));
+        }
+    }
+
+    @Nested
+    class ImportTests {
+
+        @Test
+        void givenCsvWithInvalidRows_whenImport_thenLoadValidRowsAndReportRejected() {
+            deviceRepository.deleteAll();
+            String csv = """
+                    name,brand,state
+                    Imported A,Import Brand,AVAILABLE
+                    ,Import Brand,AVAILABLE
+                    Imported B,Import Brand,IN_USE
+                    Imported C,Import Brand,BROKEN
+                    """ + "X".repeat(150) + ",Import Brand,AVAILABLE\n";
+
+            RestAssured.given()
+                    .port(port)
+                    .contentType("text/csv")
+                    .body(csv)
+                    .when()
+                    .post("/api/devices/import")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("accepted", equalTo(2))
+                    .body("rejected", equalTo(3))
+                    .body("rejections.line", contains(3, 5, 6))
+                    .body("rejections[0].message", equalTo("Name is required"))
+                    .body("rejections[2].message", equalTo("Name must be at most 100 characters"))
+                    .log().all();
+
+            assertThat(deviceRepository.findAll())
+                    .extracting(DeviceEntity::getName)
+                    .containsExactlyInAnyOrder("Imported A", "Imported B");
+
+            var created = new DeviceEntity();
+            created.setName("After Import");
+            created.setBrand("Import Brand");
+            created.setState(DeviceState.AVAILABLE);
+            assertThat(deviceRepository.save(created).getId()).isNotNull();
+            assertThat(deviceRepository.count()).isEqualTo(3);
+        }
+
+        @Test
+        void givenNdjson_whenImport_thenLoadRows() {
+            deviceRepository.deleteAll();
+
+            RestAssured.given()
+                    .port(port)
+                    .contentType("application/x-ndjson")
+                    .body(("{\"name\":\"Json A\",\"brand\":\"Json\",\"state\":\"AVAILABLE\"}\n"
+                            + "{\"name\":\"Json B\",\"brand\":\"Json\",\"state\":\"INACTIVE\"}\n")
+                            .getBytes(StandardCharsets.UTF_8))
+                    .when()
+                    .post("/api/devices/import")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("accepted", equalTo(2))
+                    .body("rejected", equalTo(0));
+
+            assertThat(deviceRepository.count()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    class ExportTests {
+
+        @BeforeEach
+        void init() {
+            deviceRepository.deleteAll();
+            for (int i = 0; i < 3; i++) {
+                var device = new DeviceEntity();
+                device.setName("Export Device " + i);
+                device.setBrand("Export Brand");
+                device.setState(DeviceState.AVAILABLE);
+                deviceRepository.save(device);
+            }
+            var other = new DeviceEntity();
+            other.setName("Other, \"quoted\"");
+            other.setBrand("Other Brand");
+            other.setState(DeviceState.INACTIVE);
+            deviceRepository.save(other);
+        }
+
+        @Test
+        void givenBrandFilter_whenExportNdjson_thenStreamOneJsonObjectPerLine() {
+            String body = RestAssured.given()
+                    .port(port)
+                    .queryParam("brand", "Export Brand")
+                    .when()
+                    .get("/api/devices/export")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .contentType(startsWith("application/x-ndjson"))
+                    .header("Content-Disposition", containsString("devices.ndjson"))
+                    .extract().asString();
+
+            assertThat(body.lines().toList())
+                    .hasSize(3)
+                    .allSatisfy(line -> assertThat(line).startsWith("{\"id\":").contains("\"brand\":\"Export Brand\""));
+        }
+
+        @Test
+        void givenCsvFormat_whenExport_thenWriteHeaderAndEscapeFields() {
+            String body = RestAssured.given()
+                    .port(port)
+                    .queryParam("state", "INACTIVE")
+                    .queryParam("format", "CSV")
+                    .when()
+                    .get("/api/devices/export")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .contentType(startsWith("text/csv"))
+                    .extract().asString();
+
+            List<String> lines = body.lines().toList();
+            assertThat(lines).hasSize(2);
+            assertThat(lines.get(0)).isEqualTo("id,name,brand,state,createdAt,updatedAt");
+            assertThat(lines.get(1)).contains(",\"Other, \"\"quoted\"\"\",Other Brand,INACTIVE,");
+        }
+    }
+
+    @Nested
+    class BatchTests {
+
+        @Test
+        void givenMixedBatch_whenApplyBatch_thenReturnPerItemResults() {
+            deviceRepository.deleteAll();
+
+            var inUse = new DeviceEntity();
+            inUse.setName("Busy Device");
+            inUse.setBrand("Brand X");
+            inUse.setState(DeviceState.IN_USE);
+            inUse = deviceRepository.save(inUse);
+
+            var rename = new DeviceBatchUpdateDto();
+            rename.setId(inUse.getId());
+            rename.setName("Renamed");
+            rename.setBrand("Brand X");
+            rename.setState(DeviceState.IN_USE);
+
+            var request = DeviceBatchRequestDto.builder()
+                    .create(List.of(new DeviceCreateDto("Device B", "Brand Y", DeviceState.AVAILABLE)))
+                    .update(List.of(rename))
+                    .delete(List.of(inUse.getId()))
+                    .build();
+
+            RestAssured.given()
+                    .port(port)
+                    .contentType(ContentType.JSON)
+                    .body(request)
+                    .when()
+                    .post("/api/devices/batch")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("succeeded", equalTo(1))
+                    .body("failed", equalTo(2))
+                    .body("results.operation", contains("CREATE", "UPDATE", "DELETE"))
+                    .body("results.code", contains(null, "DEVICE_UPDATE_ERROR", "DEVICE_OPERATION_ERROR"))
+                    .log().all();
+
+            assertThat(deviceRepository.findById(inUse.getId())).get()
+                    .extracting(DeviceEntity::getName).isEqualTo("Busy Device");
+        }
+    }
+
+    @Nested
+    class ChangeFeedTests {
+
+        private String latest;
+
+        @BeforeEach
+        void setUp() {
+            deviceRepository.deleteAll();
+            latest = RestAssured.given()
+                    .port(port)
+                    .queryParam("after", "latest")
+                    .when()
+                    .get("/api/devices/changes")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("changes", empty())
+                    .extract().path("next");
+        }
+
+        @Test
+        void givenWrites_whenGetChanges_thenReturnThemInCommitOrderAndResumeFromNext() {
+            DeviceEntity created = deviceRepository.save(device("Pixel 9", "Google"));
+            created.setState(DeviceState.IN_USE);
+            deviceRepository.save(created);
+            DeviceEntity removed = deviceRepository.save(device("Pixel 8", "Google"));
+            deviceRepository.delete(removed);
+
+            String next = RestAssured.given()
+                    .port(port)
+                    .queryParam("after", latest)
+                    .when()
+                    .get("/api/devices/changes")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("changes.type", contains("CREATED", "UPDATED", "CREATED", "DELETED"))
+                    .body("changes.deviceId", contains(created.getId().intValue(), created.getId().intValue(),
+                            removed.getId().intValue(), removed.getId().intValue()))
+                    .body("changes.state", contains("AVAILABLE", "IN_USE", "AVAILABLE", "AVAILABLE"))
+                    .body("changes.version", contains(0, 1, 0, 0))
+                    .extract().path("next");
+
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("after", next)
+                    .queryParam("limit", 1)
+                    .when()
+                    .get("/api/devices/changes")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .body("changes", empty())
+                    .body("next", equalTo(next));
+        }
+
+        @Test
+        void givenLimit_whenGetChanges_thenDeliverInBatches() {
+            deviceRepository.saveAll(List.of(device("Pixel 7", "Google"), device("Pixel 8", "Google"),
+                    device("Pixel 9", "Google")));
+
+            String next = RestAssured.given()
+                    .port(port)
+                    .queryParam("after", latest)
+                    .queryParam("limit", 2)
+                    .when()
+                    .get("/api/devices/changes")
+                    .then()
+                    .body("changes.name", contains("Pixel 7", "Pixel 8"))
+                    .extract().path("next");
+
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("after", next)
+                    .queryParam("limit", 2)
+                    .when()
+                    .get("/api/devices/changes")
+                    .then()
+                    .body("changes.name", contains("Pixel 9"));
+        }
+
+        @Test
+        void givenNoPendingChange_whenLongPoll_thenAnswerOnceADeviceIsCreated() throws Exception {
+            CompletableFuture<List<String>> poll = CompletableFuture.supplyAsync(() -> RestAssured.given()
+                    .port(port)
+                    .queryParam("after", latest)
+                    .queryParam("wait", 10)
+                    .when()
+                    .get("/api/devices/changes")
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .extract().path("changes.name"));
+            Thread.sleep(500);
+            assertThat(poll).isNotDone();
+
+            deviceRepository.save(device("Pixel 9", "Google"));
+
+            assertThat(poll.get(5, TimeUnit.SECONDS)).containsExactly("Pixel 9");
+        }
+
+        @Test
+        void givenChange_whenStreamChanges_thenSendItAsEventWithResumableId() throws Exception {
+            deviceRepository.save(device("Pixel 9", "Google"));
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                    + "/api/devices/changes/stream?after=" + latest)).build();
+
+            try (HttpClient client = HttpClient.newHttpClient()) {
+                HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+                assertThat(response.headers().firstValue("Content-Type")).get().asString()
+                        .startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+
+                List<String> event = CompletableFuture.supplyAsync(() -> response.body()
+                        .takeWhile(line -> !line.isEmpty())
+                        .toList()).get(10, TimeUnit.SECONDS);
+                response.body().close();
+
+                assertThat(event).hasSize(3);
+                assertThat(event.get(0)).matches("id:\\d+-\\d+");
+                assertThat(event.get(1)).isEqualTo("event:changes");
+                assertThat(event.get(2)).startsWith("data:").contains("\"name\":\"Pixel 9\"");
+            }
+        }
+
+        @Test
+        void givenOffsetBeforePurgedChanges_whenGetChanges_thenReturnGone() {
+            deviceRepository.save(device("Pixel 9", "Google"));
+            String purgedThrough = RestAssured.given()
+                    .port(port)
+                    .queryParam("after", latest)
+                    .when()
+                    .get("/api/devices/changes")
+                    .then()
+                    .extract().path("next");
+            String[] position = purgedThrough.split("-");
+            jdbcTemplate.update("UPDATE device_change_outbox_horizon SET txid = CAST(? AS xid8), id = ?",
+                    position[0], Long.parseLong(position[1]));
+            try {
+                RestAssured.given()
+                        .port(port)
+                        .queryParam("after", latest)
+                        .when()
+                        .get("/api/devices/changes")
+                        .then()
+                        .statusCode(HttpStatus.GONE.value())
+                        .body("code", equalTo("CHANGES_EXPIRED"));
+
+                RestAssured.given()
+                        .port(port)
+                        .queryParam("after", purgedThrough)
+                        .when()
+                        .get("/api/devices/changes")
+                        .then()
+                        .statusCode(HttpStatus.OK.value());
+            } finally {
+                jdbcTemplate.update("UPDATE device_change_outbox_horizon SET txid = '0', id = 0");
+            }
+        }
+
+        @Test
+        void givenMalformedOffset_whenGetChanges_thenReturnBadRequest() {
+            RestAssured.given()
+                    .port(port)
+                    .queryParam("after", "yesterday")
+                    .when()
+                    .get("/api/devices/changes")
+                    .then()
+                    .statusCode(HttpStatus.BAD_REQUEST.value())
+                    .body("code", equalTo("INVALID_CURSOR"));
+        }
+    }
+
+    private static DeviceEntity device(String name, String brand) {
+        return device(name, brand, DeviceState.AVAILABLE);
+    }
+
+    private static DeviceEntity device(String name, String brand, DeviceState state) {
+        var device = new DeviceEntity();
+        device.setName(name);
+        device.setBrand(brand);
+        device.setState(state);
+        return device;
+    }
+}
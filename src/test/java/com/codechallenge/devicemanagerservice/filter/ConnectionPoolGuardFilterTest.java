@@ -0,0 +1,92 @@
+package com.codechallenge.devicemanagerservice.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionPoolGuardFilterTest {
+
+    private ConnectionPoolGuardFilter systemUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        systemUnderTest = new ConnectionPoolGuardFilter(1, Duration.ofMillis(10), List.of("/api/devices/changes"),
+                new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    @Test
+    void givenFreeSlot_whenFilter_thenPassThrough() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        systemUnderTest.doFilter(new MockHttpServletRequest("GET", "/api/devices"), response, chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void givenAllSlotsTaken_whenFilter_thenRejectWithServiceUnavailable() throws Exception {
+        MockHttpServletResponse inner = new MockHttpServletResponse();
+        MockHttpServletResponse outer = new MockHttpServletResponse();
+
+        // the nested request arrives while the outer one still holds the only slot
+        systemUnderTest.doFilter(new MockHttpServletRequest("GET", "/api/devices/1"), outer,
+                (request, response) -> systemUnderTest.doFilter(new MockHttpServletRequest("GET", "/api/devices/2"),
+                        inner, new MockFilterChain()));
+
+        assertThat(outer.getStatus()).isEqualTo(200);
+        assertThat(inner.getStatus()).isEqualTo(503);
+        assertThat(inner.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(inner.getContentAsString()).contains("SERVICE_UNAVAILABLE");
+    }
+
+    @Test
+    void givenFinishedRequest_whenFilterAgain_thenSlotWasReleased() throws Exception {
+        systemUnderTest.doFilter(new MockHttpServletRequest("GET", "/api/devices"), new MockHttpServletResponse(),
+                new MockFilterChain());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        systemUnderTest.doFilter(new MockHttpServletRequest("GET", "/api/devices"), response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void givenAsyncRequest_whenFilterAgain_thenSlotIsHeldUntilAsyncCompletes() throws Exception {
+        MockHttpServletRequest streaming = new MockHttpServletRequest("GET", "/api/devices/export");
+        streaming.setAsyncSupported(true);
+        systemUnderTest.doFilter(streaming, new MockHttpServletResponse(),
+                (request, response) -> request.startAsync());
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        systemUnderTest.doFilter(new MockHttpServletRequest("GET", "/api/devices"), rejected, new MockFilterChain());
+        ((MockAsyncContext) streaming.getAsyncContext()).complete();
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        systemUnderTest.doFilter(new MockHttpServletRequest("GET", "/api/devices"), admitted, new MockFilterChain());
+
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(admitted.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void givenUnguardedPath_whenAllSlotsTaken_thenPassThrough() throws Exception {
+        MockHttpServletResponse inner = new MockHttpServletResponse();
+
+        systemUnderTest.doFilter(new MockHttpServletRequest("GET", "/api/devices/1"), new MockHttpServletResponse(),
+                (request, response) -> systemUnderTest.doFilter(
+                        new MockHttpServletRequest("GET", "/api/devices/changes"), inner, new MockFilterChain()));
+
+        assertThat(inner.getStatus()).isEqualTo(200);
+    }
+}
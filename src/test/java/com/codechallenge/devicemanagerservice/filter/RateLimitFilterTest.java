@@ -0,0 +1,104 @@
+package com.codechallenge.devicemanagerservice.filter;
+
+import com.codechallenge.devicemanagerservice.config.DeviceRateLimitProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RateLimitFilter systemUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // 10 reads and 1 write per second, bursts of 2 reads and 1 write
+        systemUnderTest = new RateLimitFilter(
+                new DeviceRateLimitProperties(true, "X-API-Key", Set.of("first", "second"), 10, 2, 1, 1, 5, 100,
+                        Duration.ofMinutes(1)),
+                pending::get, now::get, new ObjectMapper().registerModule(new JavaTimeModule()), meterRegistry);
+    }
+
+    @Test
+    void givenBurstSpent_whenRead_thenRejectWithTooManyRequestsUntilRefilled() throws Exception {
+        assertThat(filter("GET", "10.0.0.1", null).getStatus()).isEqualTo(200);
+        assertThat(filter("GET", "10.0.0.1", null).getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse rejected = filter("GET", "10.0.0.1", null);
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(rejected.getContentAsString()).contains("TOO_MANY_REQUESTS");
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(filter("GET", "10.0.0.1", null).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void givenWriteBudgetSpent_whenRead_thenReadsHaveTheirOwnBudget() throws Exception {
+        assertThat(filter("POST", "10.0.0.1", null).getStatus()).isEqualTo(200);
+        assertThat(filter("PUT", "10.0.0.1", null).getStatus()).isEqualTo(429);
+
+        assertThat(filter("GET", "10.0.0.1", null).getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("device.requests.rejected").tag("kind", "write").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void givenApiKey_whenSharedAddress_thenBudgetPerKey() throws Exception {
+        assertThat(filter("POST", "10.0.0.1", "first").getStatus()).isEqualTo(200);
+        assertThat(filter("POST", "10.0.0.1", "second").getStatus()).isEqualTo(200);
+        assertThat(filter("POST", "10.0.0.1", "first").getStatus()).isEqualTo(429);
+        assertThat(filter("POST", "10.0.0.2", null).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void givenUnknownApiKeys_whenSameAddress_thenShareTheAddressBudget() throws Exception {
+        assertThat(filter("POST", "10.0.0.1", "minted-1").getStatus()).isEqualTo(200);
+        assertThat(filter("POST", "10.0.0.1", "minted-2").getStatus()).isEqualTo(429);
+        assertThat(filter("POST", "10.0.0.1", null).getStatus()).isEqualTo(429);
+        assertThat(filter("POST", "10.0.0.1", "first").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void givenPoolQueueAboveThreshold_whenRequest_thenShedWithServiceUnavailable() throws Exception {
+        pending.set(6);
+
+        MockHttpServletResponse shed = filter("GET", "10.0.0.1", null);
+
+        assertThat(shed.getStatus()).isEqualTo(503);
+        assertThat(shed.getHeader("Retry-After")).isEqualTo("1");
+        pending.set(5);
+        assertThat(filter("GET", "10.0.0.1", null).getStatus()).isEqualTo(200);
+        assertThat(filter("GET", "10.0.0.1", null).getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletResponse filter(String method, String address, String apiKey) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/devices");
+        request.setRemoteAddr(address);
+        if (apiKey != null) {
+            request.addHeader("X-API-Key", apiKey);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        systemUnderTest.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
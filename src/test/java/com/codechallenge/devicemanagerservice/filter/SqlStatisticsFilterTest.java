@@ -0,0 +1,40 @@
+package com.codechallenge.devicemanagerservice.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlStatisticsFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final SqlStatisticsFilter systemUnderTest = new SqlStatisticsFilter(meterRegistry, true);
+
+    @Test
+    void givenSynchronousRequest_whenFilter_thenRecordAndReturnHeaders() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        systemUnderTest.doFilter(new MockHttpServletRequest("GET", "/api/devices"), response, (request, ignored) -> {
+        });
+
+        assertThat(response.getHeader(SqlStatisticsFilter.STATEMENTS_HEADER)).isEqualTo("0");
+        assertThat(meterRegistry.get("device.request.sql.statements").tag("async", "false").summary().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void givenAsyncRequest_whenFilter_thenTagItAsyncWithoutHeaders() throws Exception {
+        MockHttpServletRequest streaming = new MockHttpServletRequest("GET", "/api/devices/export");
+        streaming.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        systemUnderTest.doFilter(streaming, response, (request, ignored) -> request.startAsync());
+
+        assertThat(response.getHeader(SqlStatisticsFilter.STATEMENTS_HEADER)).isNull();
+        assertThat(meterRegistry.get("device.request.sql.statements").tag("async", "true").summary().count())
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,38 @@
+package com.codechallenge.devicemanagerservice.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    @Test
+    void givenConcurrentCallersAtOneInstant_whenAcquire_thenGrantExactlyTheBurst() throws Exception {
+        TokenBucket systemUnderTest = new TokenBucket(1, 50);
+        AtomicInteger granted = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 1000).forEach(i -> executor.submit(() -> {
+                if (systemUnderTest.tryAcquire(0) == 0) {
+                    granted.incrementAndGet();
+                }
+            }));
+        }
+
+        assertThat(granted).hasValue(50);
+    }
+
+    @Test
+    void givenEmptyBucket_whenAcquire_thenReportTimeUntilNextToken() {
+        TokenBucket systemUnderTest = new TokenBucket(4, 1);
+
+        assertThat(systemUnderTest.tryAcquire(0)).isZero();
+        assertThat(systemUnderTest.tryAcquire(100_000_000L)).isEqualTo(150_000_000L);
+        assertThat(systemUnderTest.tryAcquire(250_000_000L)).isZero();
+    }
+}
@@ -0,0 +1,73 @@
+package com.codechallenge.devicemanagerservice.importer;
+
+import com.codechallenge.devicemanagerservice.dto.DeviceFileFormat;
+import com.codechallenge.devicemanagerservice.exception.InvalidImportException;
+import com.codechallenge.devicemanagerservice.model.DeviceState;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeviceImportReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Test
+    void givenExportedCsv_whenRead_thenParseQuotedFieldsAndKeepLineNumbers() throws IOException {
+        List<DeviceImportRow> rows = readAll(DeviceFileFormat.CSV, """
+                id,name,brand,state,createdAt,updatedAt
+                1,"Laptop, 14""\",Apple,AVAILABLE,,
+                2,"Multi
+                line",Dell,IN_USE,,
+
+                3,Phone,Nokia,BROKEN,,
+                """);
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0).device().getName()).isEqualTo("Laptop, 14\"");
+        assertThat(rows.get(0).line()).isEqualTo(2);
+        assertThat(rows.get(1).device().getName()).isEqualTo("Multi\nline");
+        assertThat(rows.get(1).device().getState()).isEqualTo(DeviceState.IN_USE);
+        assertThat(rows.get(2).line()).isEqualTo(6);
+        assertThat(rows.get(2).error()).isEqualTo("Invalid state value: BROKEN");
+    }
+
+    @Test
+    void givenCsvWithoutStateColumn_whenRead_thenRejectWholeFile() {
+        assertThatThrownBy(() -> readAll(DeviceFileFormat.CSV, "name,brand\nA,B\n"))
+                .isInstanceOf(InvalidImportException.class);
+    }
+
+    @Test
+    void givenNdjson_whenRead_thenReportMalformedLinesAndContinue() throws IOException {
+        List<DeviceImportRow> rows = readAll(DeviceFileFormat.NDJSON, """
+                {"id":1,"name":"A","brand":"B","state":"AVAILABLE"}
+                {"name":
+                {"name":"C","brand":"D","state":"INACTIVE"}
+                """);
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0).device().getName()).isEqualTo("A");
+        assertThat(rows.get(1).error()).startsWith("Malformed JSON");
+        assertThat(rows.get(2).device().getState()).isEqualTo(DeviceState.INACTIVE);
+    }
+
+    private List<DeviceImportRow> readAll(DeviceFileFormat format, String input) throws IOException {
+        DeviceImportReader reader = DeviceImportReader.of(format,
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), objectMapper);
+        List<DeviceImportRow> rows = new ArrayList<>();
+        for (DeviceImportRow row = reader.next(); row != null; row = reader.next()) {
+            rows.add(row);
+        }
+        return rows;
+    }
+}
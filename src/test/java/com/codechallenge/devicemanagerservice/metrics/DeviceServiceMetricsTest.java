@@ -0,0 +1,70 @@
+package com.codechallenge.devicemanagerservice.metrics;
+
+import com.codechallenge.devicemanagerservice.exception.DeviceNotFoundException;
+import com.codechallenge.devicemanagerservice.exception.DeviceOperationException;
+import com.codechallenge.devicemanagerservice.service.DeviceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeviceServiceMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private DeviceService deviceService;
+    private DeviceService systemUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        deviceService = mock(DeviceService.class);
+        AspectJProxyFactory factory = new AspectJProxyFactory(deviceService);
+        factory.addInterface(DeviceService.class);
+        factory.addAspect(new DeviceServiceMetrics(meterRegistry));
+        systemUnderTest = factory.getProxy();
+    }
+
+    @Test
+    void givenMissingDevice_whenGetById_thenRecordNotFound() {
+        when(deviceService.getById(1L)).thenReturn(Optional.empty());
+
+        systemUnderTest.getById(1L);
+
+        assertThat(count("getById", "not_found")).isEqualTo(1);
+    }
+
+    @Test
+    void givenDeviceInUse_whenDelete_thenRecordConflictAndRethrow() {
+        doThrow(new DeviceOperationException("in use")).when(deviceService).deleteDevice(1L);
+
+        assertThatThrownBy(() -> systemUnderTest.deleteDevice(1L)).isInstanceOf(DeviceOperationException.class);
+
+        assertThat(count("deleteDevice", "conflict")).isEqualTo(1);
+    }
+
+    @Test
+    void givenUnknownDevice_whenUpdate_thenRecordNotFound() {
+        when(deviceService.updateDevice(any(), any())).thenThrow(new DeviceNotFoundException(1L));
+
+        assertThatThrownBy(() -> systemUnderTest.updateDevice(1L, null)).isInstanceOf(DeviceNotFoundException.class);
+
+        assertThat(count("updateDevice", "not_found")).isEqualTo(1);
+    }
+
+    private long count(String operation, String outcome) {
+        return meterRegistry.get(DeviceServiceMetrics.TIMER)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+}
@@ -0,0 +1,56 @@
+package com.codechallenge.devicemanagerservice.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SqlStatisticsListenerTest {
+
+    private final SqlStatisticsListener systemUnderTest = new SqlStatisticsListener();
+
+    @Test
+    void givenQueryAndBatch_whenCapture_thenCountRoundTripsAndRows() {
+        SqlStatistics statistics = SqlStatistics.capture(() -> {
+            execute(null);
+            next(true);
+            next(true);
+            next(false);
+            execute(new int[]{1, 1, -2});
+        });
+
+        assertThat(statistics.statements()).isEqualTo(2);
+        assertThat(statistics.rows()).isEqualTo(4);
+    }
+
+    @Test
+    void givenNoStatistics_whenExecute_thenIgnore() {
+        execute(1);
+
+        assertThat(SqlStatistics.current()).isNull();
+    }
+
+    private void execute(Object result) {
+        ExecutionInfo info = new ExecutionInfo();
+        info.setResult(result);
+        systemUnderTest.beforeQuery(info, List.of());
+        systemUnderTest.afterQuery(info, List.of());
+    }
+
+    private void next(boolean hasRow) {
+        try {
+            systemUnderTest.afterMethod(MethodExecutionContext.Builder.create()
+                    .target(mock(ResultSet.class))
+                    .method(ResultSet.class.getMethod("next"))
+                    .result(hasRow)
+                    .build());
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
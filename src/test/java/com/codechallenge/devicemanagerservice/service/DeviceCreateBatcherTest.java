@@ -0,0 +1,183 @@
+package com.codechallenge.devicemanagerservice.service;
+
+import com.codechallenge.devicemanagerservice.config.DeviceGroupCommitProperties;
+import com.codechallenge.devicemanagerservice.dto.DeviceCreateDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.event.DeviceChangedEvent;
+import com.codechallenge.devicemanagerservice.exception.DeviceOverloadedException;
+import com.codechallenge.devicemanagerservice.model.DeviceEntity;
+import com.codechallenge.devicemanagerservice.model.DeviceState;
+import com.codechallenge.devicemanagerservice.repository.DeviceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeviceCreateBatcherTest {
+
+    private final DeviceRepository repository = mock(DeviceRepository.class);
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    private final AtomicLong ids = new AtomicLong();
+
+    // every create blocks until its batch is written, so each needs a thread of its own
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    // writes wait for released, which the tests that hold a batch in flight count down themselves
+    private final CountDownLatch writing = new CountDownLatch(1);
+
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    private DeviceCreateBatcher systemUnderTest;
+
+    @AfterEach
+    void tearDown() {
+        released.countDown();
+        systemUnderTest.stop();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void givenConcurrentCreates_whenCreate_thenWriteThemInOneTransaction() throws Exception {
+        systemUnderTest = batcher(4, Duration.ofSeconds(5), 100);
+        systemUnderTest.start();
+
+        List<CompletableFuture<DeviceResponseDto>> creates = IntStream.range(0, 4)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> systemUnderTest.create(device("Phone " + i)),
+                        callers))
+                .toList();
+
+        for (CompletableFuture<DeviceResponseDto> create : creates) {
+            assertThat(create.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+        }
+        assertThat(creates.stream().map(CompletableFuture::join).map(DeviceResponseDto::getId).distinct()).hasSize(4);
+        verify(transactionTemplate, times(1)).execute(any());
+        verify(eventPublisher, times(4)).publishEvent(any(DeviceChangedEvent.class));
+    }
+
+    @Test
+    void givenRowViolatingConstraint_whenCreate_thenFailOnlyThatCreate() throws Exception {
+        systemUnderTest = batcher(4, Duration.ofSeconds(5), 100);
+        systemUnderTest.start();
+
+        List<CompletableFuture<DeviceResponseDto>> creates = IntStream.range(0, 4)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> systemUnderTest.create(device(i == 2
+                        ? "duplicate"
+                        : "Phone " + i)), callers))
+                .toList();
+
+        for (CompletableFuture<DeviceResponseDto> create : creates) {
+            try {
+                DeviceResponseDto created = create.get(5, TimeUnit.SECONDS);
+                assertThat(created.getName()).startsWith("Phone");
+            } catch (ExecutionException e) {
+                assertThat(e).hasCauseInstanceOf(DataIntegrityViolationException.class);
+            }
+        }
+        assertThat(creates.stream().filter(CompletableFuture::isCompletedExceptionally)).hasSize(1);
+        verify(eventPublisher, times(3)).publishEvent(any(DeviceChangedEvent.class));
+    }
+
+    @Test
+    void givenFullQueue_whenCreate_thenRejectWithoutWaiting() throws Exception {
+        systemUnderTest = batcher(1, Duration.ofMillis(5), 1, Duration.ofSeconds(5));
+        systemUnderTest.start();
+        CompletableFuture<DeviceResponseDto> first = CompletableFuture.supplyAsync(
+                () -> systemUnderTest.create(device("Phone")), callers);
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<CompletableFuture<DeviceResponseDto>> creates = List.of(
+                CompletableFuture.supplyAsync(() -> systemUnderTest.create(device("Tablet")), callers),
+                CompletableFuture.supplyAsync(() -> systemUnderTest.create(device("Watch")), callers));
+        CompletableFuture<Object> rejected = CompletableFuture.anyOf(creates.toArray(CompletableFuture[]::new));
+        assertThatThrownBy(() -> rejected.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(DeviceOverloadedException.class);
+
+        released.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+        assertThat(creates.stream().filter(create -> !create.isCompletedExceptionally()).findFirst().orElseThrow()
+                .get(5, TimeUnit.SECONDS).getId()).isEqualTo(2L);
+    }
+
+    @Test
+    void givenBatcherNotRunning_whenCreate_thenReject() {
+        systemUnderTest = batcher(4, Duration.ofMillis(5), 100);
+
+        assertThatThrownBy(() -> systemUnderTest.create(device("Phone")))
+                .isInstanceOf(DeviceOverloadedException.class);
+    }
+
+    @Test
+    void givenSlowWrite_whenCreate_thenGiveUpAfterMaxWaitAndWithdrawQueuedCreates() throws Exception {
+        systemUnderTest = batcher(1, Duration.ofMillis(5), 100, Duration.ofMillis(200));
+        systemUnderTest.start();
+        CompletableFuture<DeviceResponseDto> beingWritten = CompletableFuture.supplyAsync(
+                () -> systemUnderTest.create(device("Phone")), callers);
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> systemUnderTest.create(device("Tablet")))
+                .isInstanceOf(DeviceOverloadedException.class);
+        assertThatThrownBy(() -> beingWritten.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(DeviceOverloadedException.class);
+
+        released.countDown();
+        systemUnderTest.stop();
+        verify(repository, times(1)).saveAll(anyList());
+    }
+
+    private DeviceCreateBatcher batcher(int maxBatchSize, Duration maxLinger, int queueCapacity) {
+        released.countDown();
+        return batcher(maxBatchSize, maxLinger, queueCapacity, Duration.ofSeconds(5));
+    }
+
+    private DeviceCreateBatcher batcher(int maxBatchSize, Duration maxLinger, int queueCapacity, Duration maxWait) {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            released.await(5, TimeUnit.SECONDS);
+            List<DeviceEntity> entities = invocation.getArgument(0);
+            if (entities.stream().anyMatch(entity -> entity.getName().equals("duplicate"))) {
+                throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+            }
+            entities.forEach(entity -> {
+                entity.setId(ids.incrementAndGet());
+                entity.setVersion(0L);
+            });
+            return entities;
+        });
+        return new DeviceCreateBatcher(repository, eventPublisher, transactionTemplate,
+                new DeviceGroupCommitProperties(true, maxBatchSize, maxLinger, queueCapacity, maxWait),
+                new SimpleMeterRegistry());
+    }
+
+    private static DeviceCreateDto device(String name) {
+        return new DeviceCreateDto(name, "Apple", DeviceState.AVAILABLE);
+    }
+}
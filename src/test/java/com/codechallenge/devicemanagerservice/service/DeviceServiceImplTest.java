@@ -1,25 +1,59 @@
 package com.codechallenge.devicemanagerservice.service;
 
+import com.codechallenge.devicemanagerservice.cache.CachedDevice;
+import com.codechallenge.devicemanagerservice.cache.DeviceCache;
+import com.codechallenge.devicemanagerservice.concurrency.DeviceReadCoalescer;
+import com.codechallenge.devicemanagerservice.dto.DeviceBatchItemResultDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceBatchRequestDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceBatchResponseDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceBatchUpdateDto;
 import com.codechallenge.devicemanagerservice.dto.DeviceCreateDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceInventoryCountDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceInventoryDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceMatchMode;
 import com.codechallenge.devicemanagerservice.dto.DeviceResponseDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceStateTransitionDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceSuggestionDto;
+import com.codechallenge.devicemanagerservice.dto.DeviceSuggestionsDto;
 import com.codechallenge.devicemanagerservice.dto.DeviceUpdateDto;
+import com.codechallenge.devicemanagerservice.dto.VersionedDeviceDto;
+import com.codechallenge.devicemanagerservice.event.DeviceChangeType;
+import com.codechallenge.devicemanagerservice.event.DeviceChangedEvent;
 import com.codechallenge.devicemanagerservice.exception.DeviceNotFoundException;
 import com.codechallenge.devicemanagerservice.exception.DeviceOperationException;
 import com.codechallenge.devicemanagerservice.exception.DeviceUpdateException;
+import com.codechallenge.devicemanagerservice.exception.DeviceVersionMismatchException;
+import com.codechallenge.devicemanagerservice.exception.InvalidCursorException;
+import com.codechallenge.devicemanagerservice.exception.InvalidSearchException;
+import com.codechallenge.devicemanagerservice.inventory.DeviceInventory;
+import com.codechallenge.devicemanagerservice.mapper.DeviceMapper;
 import com.codechallenge.devicemanagerservice.model.DeviceEntity;
+import com.codechallenge.devicemanagerservice.model.DeviceLabels;
 import com.codechallenge.devicemanagerservice.model.DeviceState;
+import com.codechallenge.devicemanagerservice.repository.DeletedDevice;
 import com.codechallenge.devicemanagerservice.repository.DeviceRepository;
+import com.codechallenge.devicemanagerservice.repository.UpdatedDevice;
+import com.codechallenge.devicemanagerservice.suggest.DeviceSuggestionIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -31,6 +65,28 @@ class DeviceServiceImplTest {
     @Mock
     private DeviceRepository repository;
 
+    @Mock
+    private DeviceCache deviceCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private DeviceSuggestionIndex suggestionIndex;
+
+    @Mock
+    private DeviceInventory inventory;
+
+    @Mock
+    private DeviceCreateBatcher createBatcher;
+
+    @Spy
+    private DeviceReadCoalescer coalescer = new DeviceReadCoalescer(mock(PlatformTransactionManager.class),
+            new SimpleMeterRegistry());
+
     @InjectMocks
     private DeviceServiceImpl systemUnderTest;
 
@@ -56,6 +112,8 @@ class DeviceServiceImplTest {
             mockEntity.setUpdatedAt(Instant.now());
 
      
+            when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                    invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
             when(repository.save(any(DeviceEntity.class))).thenReturn(mockEntity);
             
             DeviceResponseDto response = systemUnderTest.save(dto);
@@ -67,6 +125,18 @@ class DeviceServiceImplTest {
 
             verify(repository, times(1)).save(any(DeviceEntity.class));
         }
+
+        @Test
+        void givenGroupCommitRunning_whenSave_thenHandCreateToBatcher() {
+            DeviceCreateDto dto = new DeviceCreateDto("MacBook Pro", "Apple", DeviceState.AVAILABLE);
+            DeviceResponseDto created = DeviceResponseDto.builder().id(7L).name("MacBook Pro").build();
+            when(createBatcher.isRunning()).thenReturn(true);
+            when(createBatcher.create(dto)).thenReturn(created);
+
+            assertThat(systemUnderTest.save(dto)).isSameAs(created);
+
+            verifyNoInteractions(repository, transactionTemplate, eventPublisher);
+        }
     }
 
     @Nested
@@ -76,7 +146,8 @@ class DeviceServiceImplTest {
             Long id = 1L;
             DeviceUpdateDto dto = new DeviceUpdateDto();
 
-            when(repository.findById(id)).thenReturn(Optional.empty());
+            when(repository.updateUnlessInUse(id, null, null, null, null)).thenReturn(Optional.empty());
+            when(repository.findVersionById(id)).thenReturn(Optional.empty());
 
             assertThrows(DeviceNotFoundException.class, () -> systemUnderTest.updateDevice(id, dto));
         }
@@ -84,86 +155,101 @@ class DeviceServiceImplTest {
         @Test
         void givenInUseDevice_whenChangeNameOrBrand_thenThrowUpdateException() {
             Long id = 1L;
-            DeviceEntity existing = new DeviceEntity();
-            existing.setId(id);
-            existing.setName("Old");
-            existing.setBrand("Brand");
-            existing.setState(DeviceState.IN_USE);
-
             DeviceUpdateDto dto = new DeviceUpdateDto();
             dto.setName("New");
 
-            when(repository.findById(id)).thenReturn(Optional.of(existing));
+            when(repository.updateUnlessInUse(id, "New", null, null, null)).thenReturn(Optional.empty());
+            when(repository.findVersionById(id)).thenReturn(Optional.of(0L));
 
             DeviceUpdateException ex = assertThrows(DeviceUpdateException.class,
                     () -> systemUnderTest.updateDevice(id, dto));
             assertEquals("Cannot update name or brand when device is in use.", ex.getMessage());
+            verify(eventPublisher, never()).publishEvent(any());
         }
 
         @Test
         void givenInUseDevice_whenChangeStateValid_thenUpdateSuccessfully() {
             Long id = 1L;
-            DeviceEntity existing = new DeviceEntity();
-            existing.setId(id);
-            existing.setState(DeviceState.IN_USE);
-
             DeviceUpdateDto dto = new DeviceUpdateDto();
             dto.setState(DeviceState.valueOf("AVAILABLE"));
 
-            when(repository.findById(id)).thenReturn(Optional.of(existing));
-            when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+            when(repository.updateUnlessInUse(id, null, null, DeviceState.AVAILABLE, null))
+                    .thenReturn(Optional.of(updated(id, "Old", "Brand", DeviceState.AVAILABLE, 2L)));
 
             DeviceResponseDto result = systemUnderTest.updateDevice(id, dto);
 
-            assertEquals(DeviceState.AVAILABLE.name(), existing.getState().name());
-            assertNotNull(existing.getUpdatedAt());
-            assertNotNull(result);
+            assertEquals(DeviceState.AVAILABLE.name(), result.getState());
+            assertNotNull(result.getUpdatedAt());
+            verify(repository, never()).findVersionById(any());
         }
 
         @Test
         void givenAvailableDevice_whenChangeNameAndBrand_thenUpdateSuccessfully() {
             Long id = 1L;
-            DeviceEntity existing = new DeviceEntity();
-            existing.setId(id);
-            existing.setName("Old");
-            existing.setBrand("OldBrand");
-            existing.setState(DeviceState.AVAILABLE);
-
             DeviceUpdateDto dto = new DeviceUpdateDto();
             dto.setName("New");
             dto.setBrand("NewBrand");
 
-            when(repository.findById(id)).thenReturn(Optional.of(existing));
-            when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+            when(repository.updateUnlessInUse(id, "New", "NewBrand", null, null))
+                    .thenReturn(Optional.of(updated(id, "New", "NewBrand", DeviceState.AVAILABLE, 4L)));
 
             DeviceResponseDto result = systemUnderTest.updateDevice(id, dto);
 
-            assertEquals("New", existing.getName());
-            assertEquals("NewBrand", existing.getBrand());
-            assertNotNull(existing.getUpdatedAt());
-            assertNotNull(result);
+            assertEquals("New", result.getName());
+            assertEquals("NewBrand", result.getBrand());
+            verify(eventPublisher, times(1)).publishEvent(argThat((DeviceChangedEvent event) ->
+                    event.id().equals(id) && event.version() == 4L && event.type() == DeviceChangeType.UPDATED
+                            && event.previous().equals(new DeviceLabels("Old", "OldBrand"))));
         }
 
         @Test
         void givenPartialUpdate_thenOnlySpecifiedFieldsChanged() {
             Long id = 1L;
-            DeviceEntity existing = new DeviceEntity();
-            existing.setId(id);
-            existing.setName("Old");
-            existing.setBrand("OldBrand");
-            existing.setState(DeviceState.AVAILABLE);
-
             DeviceUpdateDto dto = new DeviceUpdateDto();
             dto.setName("NewName");
 
-            when(repository.findById(id)).thenReturn(Optional.of(existing));
-            when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+            when(repository.updateUnlessInUse(id, "NewName", null, null, null))
+                    .thenReturn(Optional.of(updated(id, "NewName", "OldBrand", DeviceState.AVAILABLE, 1L)));
 
             DeviceResponseDto result = systemUnderTest.updateDevice(id, dto);
 
-            assertEquals("NewName", existing.getName());
-            assertEquals("OldBrand", existing.getBrand());
-            assertNotNull(existing.getUpdatedAt());
+            assertEquals("NewName", result.getName());
+            assertEquals("OldBrand", result.getBrand());
+        }
+
+        @Test
+        void givenStaleExpectedVersion_whenUpdate_thenThrowVersionMismatch() {
+            Long id = 1L;
+            DeviceUpdateDto dto = new DeviceUpdateDto();
+            dto.setName("New");
+
+            when(repository.updateUnlessInUse(id, "New", null, null, 2L)).thenReturn(Optional.empty());
+            when(repository.findVersionById(id)).thenReturn(Optional.of(3L));
+
+            assertThatThrownBy(() -> systemUnderTest.updateDevice(id, dto, 2L))
+                    .isInstanceOf(DeviceVersionMismatchException.class)
+                    .hasMessageContaining("version 3");
+            verify(eventPublisher, never()).publishEvent(any());
+        }
+
+        @Test
+        void givenCurrentExpectedVersion_whenUpdate_thenReturnNewVersion() {
+            Long id = 1L;
+            DeviceUpdateDto dto = new DeviceUpdateDto();
+            dto.setName("New");
+
+            when(repository.updateUnlessInUse(id, "New", null, null, 3L))
+                    .thenReturn(Optional.of(updated(id, "New", "Brand", DeviceState.AVAILABLE, 4L)));
+
+            VersionedDeviceDto result = systemUnderTest.updateDevice(id, dto, 3L);
+
+            assertEquals(4L, result.version());
+            assertEquals("New", result.device().getName());
+        }
+
+        private UpdatedDevice updated(Long id, String name, String brand, DeviceState state, long version) {
+            return new UpdatedDevice(new VersionedDeviceDto(new DeviceResponseDto(id, name, brand, state,
+                    Instant.now(), Instant.now()), version), new DeviceLabels("Old", "OldBrand"));
         }
     }
 
@@ -185,7 +271,7 @@ class DeviceServiceImplTest {
 
         @Test
         void givenExistingDeviceId_whenGetById_thenReturnDeviceResponseDto() {
-            when(repository.findById(1L)).thenReturn(Optional.of(existingDevice));
+            when(repository.findDtoById(1L)).thenReturn(Optional.of(versioned(existingDevice)));
 
             Optional<DeviceResponseDto> result = systemUnderTest.getById(1L);
 
@@ -196,17 +282,62 @@ class DeviceServiceImplTest {
             assertThat(dto.getBrand()).isEqualTo("Apple");
             assertThat(dto.getState()).isEqualTo("AVAILABLE");
 
-            verify(repository, times(1)).findById(1L);
+            verify(repository, times(1)).findDtoById(1L);
+            verify(repository, never()).findById(any());
         }
 
         @Test
         void givenNonExistingDeviceId_whenGetById_thenReturnEmptyOptional() {
-            when(repository.findById(1000L)).thenReturn(Optional.empty());
+            when(repository.findDtoById(1000L)).thenReturn(Optional.empty());
 
             Optional<DeviceResponseDto> result = systemUnderTest.getById(1000L);
 
             assertThat(result).isEmpty();
-            verify(repository, times(1)).findById(1000L);
+            verify(repository, times(1)).findDtoById(1000L);
+        }
+
+        @Test
+        void givenCachedDevice_whenGetById_thenSkipRepository() {
+            DeviceResponseDto cachedDto = DeviceResponseDto.builder().id(1L).name("MacBook Pro").build();
+            when(deviceCache.get(1L)).thenReturn(new CachedDevice(3L, cachedDto));
+
+            Optional<DeviceResponseDto> result = systemUnderTest.getById(1L);
+
+            assertThat(result).containsSame(cachedDto);
+            verify(repository, never()).findDtoById(any());
+        }
+
+        @Test
+        void givenCachedDevice_whenGetVersion_thenSkipRepository() {
+            DeviceResponseDto cachedDto = DeviceResponseDto.builder().id(1L).name("MacBook Pro").build();
+            when(deviceCache.get(1L)).thenReturn(new CachedDevice(3L, cachedDto));
+
+            assertThat(systemUnderTest.getVersion(1L)).contains(3L);
+            verify(repository, never()).findVersionById(any());
+            verify(repository, never()).findDtoById(any());
+        }
+
+        @Test
+        void givenCacheMiss_whenGetVersion_thenReadVersionOnly() {
+            when(repository.findVersionById(1L)).thenReturn(Optional.of(5L));
+
+            assertThat(systemUnderTest.getVersion(1L)).contains(5L);
+            verify(repository, never()).findDtoById(any());
+        }
+
+        @Test
+        void givenCacheMiss_whenGetById_thenPopulateCacheWithVersion() {
+            existingDevice.setVersion(7L);
+            when(repository.findDtoById(1L)).thenReturn(Optional.of(versioned(existingDevice)));
+
+            systemUnderTest.getById(1L);
+
+            verify(deviceCache, times(1)).put(any(DeviceResponseDto.class), eq(7L));
+        }
+
+        private VersionedDeviceDto versioned(DeviceEntity entity) {
+            return new VersionedDeviceDto(DeviceMapper.createDeviceDto(entity),
+                    entity.getVersion() != null ? entity.getVersion() : 0L);
         }
     }
 
@@ -234,32 +365,33 @@ class DeviceServiceImplTest {
             device2.setCreatedAt(Instant.now());
             device2.setUpdatedAt(Instant.now());
 
-            Page<DeviceEntity> mockPage = new PageImpl<>(List.of(device1, device2), pageable, 2);
+            Page<DeviceResponseDto> mockPage = new PageImpl<>(List.of(device1, device2), pageable, 2)
+                    .map(DeviceMapper::createDeviceDto);
 
-            when(repository.findAll(pageable)).thenReturn(mockPage);
+            when(repository.findDtos(null, pageable)).thenReturn(mockPage);
 
-            Page<DeviceResponseDto> result = systemUnderTest.getAllDevice(pageable);
+            Page<DeviceResponseDto> result = systemUnderTest.getAllDevice(pageable, 0L);
 
             assertThat(result.getTotalElements()).isEqualTo(2);
             assertThat(result.getContent()).extracting("name")
                     .containsExactly("Device A", "Device B");
 
-            verify(repository, times(1)).findAll(pageable);
+            verify(repository, times(1)).findDtos(null, pageable);
         }
 
         @Test
         void givenNoDevicesExist_whenGetAll_thenReturnEmptyPage() {
             Pageable pageable = PageRequest.of(0, 2);
-            Page<DeviceEntity> mockPage = new PageImpl<>(List.of(), pageable, 0);
+            Page<DeviceResponseDto> mockPage = new PageImpl<>(List.of(), pageable, 0);
 
-            when(repository.findAll(pageable)).thenReturn(mockPage);
+            when(repository.findDtos(null, pageable)).thenReturn(mockPage);
 
-            Page<DeviceResponseDto> result = systemUnderTest.getAllDevice(pageable);
+            Page<DeviceResponseDto> result = systemUnderTest.getAllDevice(pageable, 0L);
 
             assertThat(result.getTotalElements()).isEqualTo(0);
             assertThat(result.getContent()).isEmpty();
 
-            verify(repository, times(1)).findAll(pageable);
+            verify(repository, times(1)).findDtos(null, pageable);
         }
     }
 
@@ -268,49 +400,50 @@ class DeviceServiceImplTest {
 
         @Test
         void givenExistingDevice_whenDelete_thenShouldSucceed() {
-          
-            DeviceEntity existingDevice = new DeviceEntity();
-            existingDevice.setId(1L);
-            existingDevice.setName("MacBook Pro");
-            existingDevice.setBrand("Apple");
-            existingDevice.setState(DeviceState.AVAILABLE);
+            when(repository.deleteUnlessInUse(1L, null))
+                    .thenReturn(Optional.of(new DeletedDevice(3L, new DeviceLabels("Name", "Brand"))));
 
-            when(repository.findById(1L)).thenReturn(Optional.of(existingDevice));
-       
             systemUnderTest.deleteDevice(1L);
 
-            verify(repository, times(1)).findById(1L);
-            verify(repository, times(1)).delete(existingDevice);
+            verify(repository, times(1)).deleteUnlessInUse(1L, null);
+            verify(repository, never()).findVersionById(any());
+            verify(eventPublisher, times(1)).publishEvent(argThat((DeviceChangedEvent event) ->
+                    event.id().equals(1L) && event.version() == 3L && event.type() == DeviceChangeType.DELETED));
         }
 
         @Test
         void givenNonExistingDevice_whenDelete_thenThrowNotFoundException() {
-            when(repository.findById(199L)).thenReturn(Optional.empty());
+            when(repository.deleteUnlessInUse(199L, null)).thenReturn(Optional.empty());
+            when(repository.findVersionById(199L)).thenReturn(Optional.empty());
 
             assertThatThrownBy(() -> systemUnderTest.deleteDevice(199L))
                     .isInstanceOf(DeviceNotFoundException.class)
                     .hasMessageContaining("199");
 
-            verify(repository, times(1)).findById(199L);
-            verify(repository, never()).delete(Mockito.<DeviceEntity>any());
+            verify(eventPublisher, never()).publishEvent(any());
         }
 
         @Test
-        void givenDeviceInUse_whenDelete_thenThrowOperationException() {
-            DeviceEntity inUseDevice = new DeviceEntity();
-            inUseDevice.setId(2L);
-            inUseDevice.setName("Dell XPS");
-            inUseDevice.setBrand("Dell");
-            inUseDevice.setState(DeviceState.IN_USE);
+        void givenStaleExpectedVersion_whenDelete_thenThrowVersionMismatch() {
+            when(repository.deleteUnlessInUse(2L, 1L)).thenReturn(Optional.empty());
+            when(repository.findVersionById(2L)).thenReturn(Optional.of(2L));
+
+            assertThatThrownBy(() -> systemUnderTest.deleteDevice(2L, 1L))
+                    .isInstanceOf(DeviceVersionMismatchException.class);
 
-            when(repository.findById(2L)).thenReturn(Optional.of(inUseDevice));
+            verify(eventPublisher, never()).publishEvent(any());
+        }
+
+        @Test
+        void givenDeviceInUse_whenDelete_thenThrowOperationException() {
+            when(repository.deleteUnlessInUse(2L, null)).thenReturn(Optional.empty());
+            when(repository.findVersionById(2L)).thenReturn(Optional.of(0L));
 
             assertThatThrownBy(() -> systemUnderTest.deleteDevice(2L))
                     .isInstanceOf(DeviceOperationException.class)
                     .hasMessageContaining("in use");
 
-            verify(repository, times(1)).findById(2L);
-            verify(repository, never()).delete(Mockito.<DeviceEntity>any());
+            verify(eventPublisher, never()).publishEvent(any());
         }
     }
 
@@ -335,12 +468,13 @@ class DeviceServiceImplTest {
             device2.setBrand("Apple");
             device2.setState(DeviceState.AVAILABLE);
 
-            Page<DeviceEntity> devicePage = new PageImpl<>(List.of(device1, device2));
+            Page<DeviceResponseDto> devicePage = new PageImpl<>(List.of(device1, device2))
+                    .map(DeviceMapper::createDeviceDto);
 
-            when(repository.findAll(ArgumentMatchers.<Specification<DeviceEntity>>any(), eq(pageable)))
+            when(repository.findDtos(ArgumentMatchers.<Specification<DeviceEntity>>any(), eq(pageable)))
                     .thenReturn(devicePage);
 
-            Page<DeviceResponseDto> result = systemUnderTest.findDevices(brand, state, pageable);
+            Page<DeviceResponseDto> result = systemUnderTest.findDevices(brand, state, pageable, 0L);
 
             assertThat(result).isNotNull();
             assertThat(result.getContent()).hasSize(2);
@@ -348,7 +482,7 @@ class DeviceServiceImplTest {
             assertThat(result.getContent().get(1).getName()).isEqualTo("iPhone 14");
 
             verify(repository, times(1))
-                    .findAll(ArgumentMatchers.<Specification<DeviceEntity>>any(), eq(pageable));
+                    .findDtos(ArgumentMatchers.<Specification<DeviceEntity>>any(), eq(pageable));
         }
 
         @Test
@@ -357,18 +491,18 @@ class DeviceServiceImplTest {
             DeviceState state = DeviceState.AVAILABLE;
             Pageable pageable = PageRequest.of(0, 10);
 
-            Page<DeviceEntity> emptyPage = new PageImpl<>(Collections.emptyList());
+            Page<DeviceResponseDto> emptyPage = new PageImpl<>(Collections.emptyList());
 
-            when(repository.findAll(ArgumentMatchers.<Specification<DeviceEntity>>any(), eq(pageable)))
+            when(repository.findDtos(ArgumentMatchers.<Specification<DeviceEntity>>any(), eq(pageable)))
                     .thenReturn(emptyPage);
 
-            Page<DeviceResponseDto> result = systemUnderTest.findDevices(brand, state, pageable);
+            Page<DeviceResponseDto> result = systemUnderTest.findDevices(brand, state, pageable, 0L);
 
             assertThat(result.getContent()).isEmpty();
             assertThat(result.getTotalElements()).isEqualTo(0);
 
             verify(repository, times(1))
-                    .findAll(ArgumentMatchers.<Specification<DeviceEntity>>any(), eq(pageable));
+                    .findDtos(ArgumentMatchers.<Specification<DeviceEntity>>any(), eq(pageable));
         }
 
         @Test
@@ -389,13 +523,13 @@ class DeviceServiceImplTest {
             device2.setState(state);
 
             List<DeviceEntity> devices = List.of(device1, device2);
-            Page<DeviceEntity> devicePage = new PageImpl<>(devices);
+            Page<DeviceResponseDto> devicePage = new PageImpl<>(devices).map(DeviceMapper::createDeviceDto);
 
             Pageable pageable = PageRequest.of(0, 10);
 
-            when(repository.findAll(any(Specification.class), eq(pageable))).thenReturn(devicePage);
+            when(repository.findDtos(any(Specification.class), eq(pageable))).thenReturn(devicePage);
 
-            Page<DeviceResponseDto> result = systemUnderTest.findDevices(brand, state, pageable);
+            Page<DeviceResponseDto> result = systemUnderTest.findDevices(brand, state, pageable, 0L);
 
             assertThat(result.getContent()).hasSize(2);
             assertThat(result.getContent().get(0).getId()).isEqualTo(device1.getId());
@@ -403,10 +537,288 @@ class DeviceServiceImplTest {
             assertThat(result.getContent().get(1).getId()).isEqualTo(device2.getId());
             assertThat(result.getContent().get(1).getName()).isEqualTo(device2.getName());
 
-            verify(repository, times(1)).findAll(any(Specification.class), eq(pageable));
+            verify(repository, times(1)).findDtos(any(Specification.class), eq(pageable));
+        }
+
+        @Test
+        void givenShortTerm_whenFindMatchingDevices_thenThrowInvalidSearchWithoutQuery() {
+            Pageable pageable = PageRequest.of(0, 10);
+
+            assertThatThrownBy(() -> systemUnderTest.findMatchingDevices("ab", null, DeviceMatchMode.CONTAINS, null,
+                    pageable))
+                    .isInstanceOf(InvalidSearchException.class)
+                    .hasMessageContaining("at least 3 characters");
+
+            verifyNoInteractions(repository);
+        }
+
+        @Test
+        void givenNoTerm_whenFindMatchingDevices_thenThrowInvalidSearch() {
+            assertThatThrownBy(() -> systemUnderTest.findMatchingDevicesSlice(null, " ", DeviceMatchMode.SIMILAR,
+                    DeviceState.AVAILABLE, PageRequest.of(0, 10)))
+                    .isInstanceOf(InvalidSearchException.class);
+        }
+
+        @Test
+        void givenExactName_whenFindMatchingDevices_thenQueryWithoutMinimumLength() {
+            Pageable pageable = PageRequest.of(0, 10);
+            when(repository.findDtos(ArgumentMatchers.<Specification<DeviceEntity>>any(), eq(pageable)))
+                    .thenReturn(Page.empty(pageable));
+
+            Page<DeviceResponseDto> result = systemUnderTest.findMatchingDevices("X1", null, DeviceMatchMode.EXACT,
+                    null, pageable);
+
+            assertThat(result.getContent()).isEmpty();
+        }
+    }
+
+    @Nested
+    class SuggestTests {
+
+        @Test
+        void givenPrefix_whenSuggest_thenAskTheIndexWithStrippedPrefix() {
+            DeviceSuggestionsDto suggestions = new DeviceSuggestionsDto(
+                    List.of(new DeviceSuggestionDto("Galaxy", 3)), List.of());
+            when(suggestionIndex.suggest("gal", 5)).thenReturn(suggestions);
+
+            assertThat(systemUnderTest.suggest(" gal ", 5)).isEqualTo(suggestions);
+            verifyNoInteractions(repository);
+        }
+
+        @Test
+        void givenBlankPrefixOrLimitOutOfRange_whenSuggest_thenReject() {
+            assertThatThrownBy(() -> systemUnderTest.suggest(" ", 5)).isInstanceOf(InvalidSearchException.class);
+            assertThatThrownBy(() -> systemUnderTest.suggest("gal", 0)).isInstanceOf(InvalidSearchException.class);
+            assertThatThrownBy(() -> systemUnderTest.suggest("gal", DeviceServiceImpl.MAX_SUGGESTIONS + 1))
+                    .isInstanceOf(InvalidSearchException.class);
+            verifyNoInteractions(suggestionIndex);
+        }
+    }
+
+    @Nested
+    class InventoryTests {
+
+        @Test
+        void givenBlankBrand_whenGetInventory_thenReadAllCountsAndSumTotal() {
+            when(inventory.counts(null)).thenReturn(List.of(
+                    new DeviceInventoryCountDto("Apple", "AVAILABLE", 3),
+                    new DeviceInventoryCountDto("Apple", "IN_USE", 2)));
+
+            DeviceInventoryDto result = systemUnderTest.getInventory(" ");
+
+            assertThat(result.total()).isEqualTo(5);
+            assertThat(result.counts()).hasSize(2);
+            verifyNoInteractions(repository);
         }
+    }
 
+    @Nested
+    class EstimateTests {
+
+        @Test
+        void givenNoFilter_whenEstimate_thenUseTableStatistics() {
+            when(repository.estimateCount()).thenReturn(1_000_000L);
+
+            assertThat(systemUnderTest.estimateDevices(null, null)).isEqualTo(1_000_000L);
+
+            verify(repository, never()).count();
+        }
+
+        @Test
+        void givenNeverAnalyzedTable_whenEstimate_thenFallBackToCount() {
+            when(repository.estimateCount()).thenReturn(-1L);
+            when(repository.count()).thenReturn(3L);
 
+            assertThat(systemUnderTest.estimateDevices(" ", null)).isEqualTo(3L);
+        }
+
+        @Test
+        void givenFilter_whenEstimate_thenReadPlannerRows() {
+            when(repository.explainSearch("Apple", "AVAILABLE"))
+                    .thenReturn(List.of("Index Only Scan using idx_device_brand on device_table  (cost=0.42..8.44 rows=1234 width=4)"));
+
+            assertThat(systemUnderTest.estimateDevices("Apple", DeviceState.AVAILABLE)).isEqualTo(1234L);
+        }
+    }
+
+    @Nested
+    class FindDevicesAfterTests {
+
+        @Test
+        void givenMoreRowsThanSize_whenFindDevicesAfter_thenTrimAndReportNext() {
+            DeviceEntity device1 = new DeviceEntity();
+            device1.setId(1L);
+            device1.setName("Device A");
+            DeviceEntity device2 = new DeviceEntity();
+            device2.setId(2L);
+            device2.setName("Device B");
+            DeviceEntity device3 = new DeviceEntity();
+            device3.setId(3L);
+            device3.setName("Device C");
+
+            when(repository.findDtos(ArgumentMatchers.<Specification<DeviceEntity>>any(), any(Sort.class), eq(3)))
+                    .thenReturn(Stream.of(device1, device2, device3).map(DeviceMapper::createDeviceDto).toList());
+
+            DeviceCursor cursor = DeviceCursor.first(Sort.by("name"), "Apple", DeviceState.AVAILABLE);
+            Slice<DeviceResponseDto> result = systemUnderTest.findDevicesAfter("Apple", DeviceState.AVAILABLE, cursor, 2);
+
+            assertThat(result.hasNext()).isTrue();
+            assertThat(result.getContent()).extracting("name").containsExactly("Device A", "Device B");
+        }
+
+        @Test
+        void givenCursor_whenEncodeAndDecode_thenKeepPosition() {
+            DeviceResponseDto last = DeviceResponseDto.builder().id(42L).name("Name|with|pipes").build();
+
+            DeviceCursor next = DeviceCursor.first(Sort.by(Sort.Direction.DESC, "name"), "Apple", null).next(last);
+            DeviceCursor decoded = DeviceCursor.decode(next.encode(), "Apple", null);
+
+            assertThat(decoded).isEqualTo(next);
+            assertThat(decoded.key()).isEqualTo(DeviceSortKey.NAME);
+            assertThat(decoded.value()).isEqualTo("Name|with|pipes");
+            assertThat(decoded.id()).isEqualTo(42L);
+            assertThatThrownBy(() -> DeviceCursor.decode("not-a-cursor", "Apple", null))
+                    .isInstanceOf(InvalidCursorException.class);
+        }
+
+        @Test
+        void givenCursorOfAnotherFilter_whenDecode_thenReject() {
+            DeviceResponseDto last = DeviceResponseDto.builder().id(42L).name("Device A").build();
+            String token = DeviceCursor.first(Sort.by("name"), "Apple", DeviceState.AVAILABLE).next(last).encode();
+
+            assertThatThrownBy(() -> DeviceCursor.decode(token, "Samsung", DeviceState.AVAILABLE))
+                    .isInstanceOf(InvalidCursorException.class);
+            assertThatThrownBy(() -> DeviceCursor.decode(token, "Apple", null))
+                    .isInstanceOf(InvalidCursorException.class);
+        }
+    }
+
+    @Nested
+    class ExportTests {
+
+        @Test
+        void givenMatchingDevices_whenExport_thenStreamEveryRowAndCloseCursor() {
+            List<DeviceResponseDto> consumed = new ArrayList<>();
+            AtomicBoolean closed = new AtomicBoolean();
+            Stream<DeviceResponseDto> rows = Stream.of(
+                            DeviceResponseDto.builder().id(1L).name("Device A").build(),
+                            DeviceResponseDto.builder().id(2L).name("Device B").build())
+                    .onClose(() -> closed.set(true));
+            when(repository.streamDtos(ArgumentMatchers.<Specification<DeviceEntity>>any(),
+                    eq(DeviceServiceImpl.EXPORT_FETCH_SIZE))).thenReturn(rows);
+
+            long exported = systemUnderTest.exportDevices("Apple", DeviceState.AVAILABLE, consumed::add);
+
+            assertThat(exported).isEqualTo(2);
+            assertThat(consumed).extracting("name").containsExactly("Device A", "Device B");
+            assertThat(closed).isTrue();
+        }
+    }
+
+    @Nested
+    class StateTransitionTests {
+
+        @Test
+        void givenMoreRowsThanChunk_whenTransitionState_thenContinueAfterLastIdAndPublishEvents() {
+            when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                    invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+            List<VersionedDeviceDto> fullChunk = LongStream.rangeClosed(1, DeviceServiceImpl.STATE_TRANSITION_CHUNK_SIZE)
+                    .mapToObj(id -> new VersionedDeviceDto(DeviceResponseDto.builder().id(id * 2).build(), 1L))
+                    .toList();
+            List<VersionedDeviceDto> lastChunk = List.of(
+                    new VersionedDeviceDto(DeviceResponseDto.builder().id(20_001L).build(), 3L));
+            when(repository.transitionState("Apple", DeviceState.AVAILABLE, DeviceState.INACTIVE, 0L,
+                    DeviceServiceImpl.STATE_TRANSITION_CHUNK_SIZE)).thenReturn(fullChunk);
+            when(repository.transitionState("Apple", DeviceState.AVAILABLE, DeviceState.INACTIVE, 10_000L,
+                    DeviceServiceImpl.STATE_TRANSITION_CHUNK_SIZE)).thenReturn(lastChunk);
+
+            long affected = systemUnderTest.transitionState(DeviceStateTransitionDto.builder()
+                    .brand("Apple").state(DeviceState.AVAILABLE).targetState(DeviceState.INACTIVE).build());
+
+            assertThat(affected).isEqualTo(DeviceServiceImpl.STATE_TRANSITION_CHUNK_SIZE + 1L);
+            verify(transactionTemplate, times(2)).execute(any());
+            verify(eventPublisher, times(DeviceServiceImpl.STATE_TRANSITION_CHUNK_SIZE + 1))
+                    .publishEvent(any(DeviceChangedEvent.class));
+        }
+
+        @Test
+        void givenInUseFilter_whenTransitionState_thenThrowOperationException() {
+            DeviceStateTransitionDto request = DeviceStateTransitionDto.builder()
+                    .state(DeviceState.IN_USE).targetState(DeviceState.AVAILABLE).build();
+
+            assertThatThrownBy(() -> systemUnderTest.transitionState(request))
+                    .isInstanceOf(DeviceOperationException.class);
+            verifyNoInteractions(transactionTemplate);
+        }
+    }
+
+    @Nested
+    class BatchTests {
+
+        @Test
+        void givenCreates_whenApplyBatch_thenSaveAllInOneCall() {
+            DeviceBatchRequestDto request = DeviceBatchRequestDto.builder()
+                    .create(List.of(
+                            new DeviceCreateDto("MacBook Pro", "Apple", DeviceState.AVAILABLE),
+                            new DeviceCreateDto("XPS 13", "Dell", DeviceState.IN_USE)))
+                    .build();
+
+            when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+                List<DeviceEntity> entities = invocation.getArgument(0);
+                long id = 1;
+                for (DeviceEntity entity : entities) {
+                    entity.setId(id++);
+                }
+                return entities;
+            });
+
+            DeviceBatchResponseDto response = systemUnderTest.applyBatch(request);
+
+            assertThat(response.succeeded()).isEqualTo(2);
+            assertThat(response.failed()).isZero();
+            assertThat(response.results()).extracting(DeviceBatchItemResultDto::id).containsExactly(1L, 2L);
+            verify(repository, times(1)).saveAll(anyList());
+        }
+
+        @Test
+        void givenInUseDevice_whenApplyBatch_thenRejectOnlyThatItem() {
+            DeviceEntity inUse = new DeviceEntity();
+            inUse.setId(1L);
+            inUse.setName("Old");
+            inUse.setBrand("Brand");
+            inUse.setState(DeviceState.IN_USE);
+
+            DeviceEntity available = new DeviceEntity();
+            available.setId(2L);
+            available.setName("Other");
+            available.setBrand("Brand");
+            available.setState(DeviceState.AVAILABLE);
+
+            DeviceBatchUpdateDto rename = new DeviceBatchUpdateDto();
+            rename.setId(1L);
+            rename.setName("New");
+
+            DeviceBatchUpdateDto missing = new DeviceBatchUpdateDto();
+            missing.setId(3L);
+            missing.setName("Ghost");
+
+            DeviceBatchRequestDto request = DeviceBatchRequestDto.builder()
+                    .update(List.of(rename, missing))
+                    .delete(List.of(1L, 2L))
+                    .build();
+
+            when(repository.saveAll(anyList())).thenReturn(List.of());
+            when(repository.findAllById(List.of(1L, 3L, 2L))).thenReturn(List.of(inUse, available));
+
+            DeviceBatchResponseDto response = systemUnderTest.applyBatch(request);
+
+            assertThat(response.succeeded()).isEqualTo(1);
+            assertThat(response.failed()).isEqualTo(3);
+            assertThat(response.results()).extracting(DeviceBatchItemResultDto::code)
+                    .containsExactly("DEVICE_UPDATE_ERROR", "DEVICE_NOT_FOUND", "DEVICE_OPERATION_ERROR", null);
+            assertEquals("Old", inUse.getName());
+            verify(repository, times(1)).deleteAll(List.of(available));
+        }
     }
 
-}
\ No newline at end of file
+}
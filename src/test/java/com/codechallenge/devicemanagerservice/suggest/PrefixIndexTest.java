@@ -0,0 +1,99 @@
+package com.codechallenge.devicemanagerservice.suggest;
+
+import com.codechallenge.devicemanagerservice.dto.DeviceSuggestionDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixIndexTest {
+
+    private PrefixIndex systemUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        systemUnderTest = new PrefixIndex();
+        systemUnderTest.replace(Map.of(
+                "Galaxy S24", 3L,
+                "galaxy tab", 7L,
+                "Galaxy Buds", 1L,
+                "Pixel 9", 5L,
+                "Gameboy", 2L));
+    }
+
+    @Test
+    void givenPrefixInAnyCase_whenTop_thenReturnMostDevicesFirst() {
+        assertThat(systemUnderTest.top("GAL", 10)).containsExactly(
+                new DeviceSuggestionDto("galaxy tab", 7),
+                new DeviceSuggestionDto("Galaxy S24", 3),
+                new DeviceSuggestionDto("Galaxy Buds", 1));
+    }
+
+    @Test
+    void givenLimit_whenTop_thenKeepOnlyTheLargestCounts() {
+        assertThat(systemUnderTest.top("ga", 2)).containsExactly(
+                new DeviceSuggestionDto("galaxy tab", 7),
+                new DeviceSuggestionDto("Galaxy S24", 3));
+        assertThat(systemUnderTest.top("x", 2)).isEmpty();
+    }
+
+    @Test
+    void givenChangesAfterBuild_whenTop_thenMergeThemIntoCounts() {
+        systemUnderTest.add("Galaxy Buds", 9);
+        systemUnderTest.add("Galaxy Fold", 4);
+        systemUnderTest.add("galaxy tab", -7);
+
+        assertThat(systemUnderTest.top("galaxy", 10)).containsExactly(
+                new DeviceSuggestionDto("Galaxy Buds", 10),
+                new DeviceSuggestionDto("Galaxy Fold", 4),
+                new DeviceSuggestionDto("Galaxy S24", 3));
+    }
+
+    @Test
+    void givenChangeDuringRebuild_whenReplaced_thenKeepIt() {
+        systemUnderTest.add("Pixel 9", 1);
+        systemUnderTest.startRebuild();
+        systemUnderTest.add("Pixel 8", 1);
+
+        systemUnderTest.replace(Map.of("Pixel 9", 6L));
+
+        assertThat(systemUnderTest.top("pix", 10)).containsExactly(
+                new DeviceSuggestionDto("Pixel 9", 6),
+                new DeviceSuggestionDto("Pixel 8", 1));
+        assertThat(systemUnderTest.size()).isEqualTo(1);
+    }
+
+    @Test
+    void givenManyValuesWithTies_whenTop_thenMatchAFullScan() {
+        Map<String, Long> counts = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            counts.put("Device %03d".formatted(i), (long) (i * 37 % 23 + 1));
+        }
+        systemUnderTest.replace(counts);
+        systemUnderTest.add("Device 007", 40);
+        systemUnderTest.add("Device 250", -21);
+
+        Map<String, Long> current = new HashMap<>(counts);
+        current.merge("Device 007", 40L, Long::sum);
+        current.merge("Device 250", -21L, Long::sum);
+        List<DeviceSuggestionDto> expected = current.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith("Device 2"))
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(10)
+                .map(entry -> new DeviceSuggestionDto(entry.getKey(), entry.getValue()))
+                .toList();
+
+        assertThat(systemUnderTest.top("device 2", 10)).containsExactlyElementsOf(expected);
+        assertThat(systemUnderTest.top("dev", 1)).containsExactly(new DeviceSuggestionDto("Device 007", 47));
+    }
+
+    @Test
+    void givenBuiltIndex_whenMemoryBytes_thenCountEncodedTextAndArrays() {
+        // 45 bytes of text, 6 offsets, 5 counts and 10 tree nodes
+        assertThat(systemUnderTest.memoryBytes()).isEqualTo(45 + 6 * 4 + 5 * 4 + 10 * 4);
+    }
+}